@@ -0,0 +1,104 @@
+package com.campus.lostfound.controller;
+
+import com.campus.lostfound.dao.ItemFixtures;
+import com.campus.lostfound.model.Item;
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON encoding of item pages with the servlet's Gson configuration.
+ *
+ * streamed writes item by item through a JsonWriter, as the GET handler
+ * does; buffered builds the whole array as a String first, as the older
+ * handlers did; parse is the single-item POST body.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemSerializationBenchmark {
+
+    @Param({"1", "50", "1000"})
+    public int pageSize;
+
+    @Param({"SMALL", "TYPICAL", "LARGE"})
+    public ItemFixtures.Payload payload;
+
+    private Gson gson;
+    private List<Item> page;
+    private String singleItemJson;
+
+    @Setup
+    public void setUp() {
+        gson = ItemServlet.createGson();
+        page = ItemFixtures.items(pageSize, payload, 42L);
+        singleItemJson = gson.toJson(page.get(0));
+    }
+
+    @Benchmark
+    public long streamed() throws IOException {
+        CountingWriter out = new CountingWriter();
+        JsonWriter writer = new JsonWriter(out);
+        writer.beginArray();
+        for (Item item : page) {
+            gson.toJson(item, Item.class, writer);
+        }
+        writer.endArray();
+        writer.flush();
+        return out.count;
+    }
+
+    @Benchmark
+    public String buffered() {
+        return gson.toJson(page);
+    }
+
+    @Benchmark
+    public Item parse() {
+        return gson.fromJson(singleItemJson, Item.class);
+    }
+
+    /** Discards output but keeps the writes observable to the JIT. */
+    static final class CountingWriter extends Writer {
+        long count;
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            count += len;
+        }
+
+        @Override
+        public void write(String str, int off, int len) {
+            count += len;
+        }
+
+        @Override
+        public void write(int c) {
+            count++;
+        }
+
+        @Override
+        public void flush() {}
+
+        @Override
+        public void close() {}
+    }
+}
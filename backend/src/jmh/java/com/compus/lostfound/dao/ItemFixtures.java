@@ -0,0 +1,98 @@
+package com.campus.lostfound.dao;
+
+import com.campus.lostfound.model.Item;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic item data for benchmarks.
+ *
+ * The same seed always produces the same items, so runs before and after a
+ * change see identical datasets. Word frequencies are skewed: a few names
+ * and locations are common, most are rare, like real reports.
+ */
+public final class ItemFixtures {
+
+    public static final String[] CATEGORIES = {
+            "electronics", "clothing", "books", "keys", "wallets", "bags", "jewelry", "other"
+    };
+    public static final String[] COMMON_NAMES = {"phone", "wallet", "keys", "umbrella"};
+    public static final String[] RARE_NAMES = {
+            "calculator", "headphones", "scarf", "notebook", "charger", "bottle", "glasses",
+            "laptop", "jacket", "badge", "ring", "watch", "textbook", "tablet", "hoodie"
+    };
+    public static final String[] LOCATIONS = {
+            "library", "cafeteria", "gym", "main hall", "parking lot", "lab building",
+            "student center", "dormitory a", "dormitory b", "lecture hall 3"
+    };
+    private static final String[] COLORS = {"black", "blue", "red", "silver", "white", "green"};
+    private static final String[] FILLER = {
+            "found", "near", "the", "entrance", "left", "on", "table", "after", "class",
+            "small", "scratch", "case", "with", "sticker", "name", "tag", "inside", "pocket"
+    };
+
+    /** Description length, which dominates row and JSON size. */
+    public enum Payload {
+        SMALL(0), TYPICAL(12), LARGE(120);
+
+        final int descriptionWords;
+
+        Payload(int descriptionWords) {
+            this.descriptionWords = descriptionWords;
+        }
+    }
+
+    private ItemFixtures() {}
+
+    public static List<Item> items(int count, Payload payload, long seed) {
+        Random random = new Random(seed);
+        Calendar calendar = Calendar.getInstance();
+        List<Item> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String name = random.nextInt(10) < 6
+                    ? pick(random, COMMON_NAMES)
+                    : pick(random, RARE_NAMES);
+            calendar.clear();
+            calendar.set(2024, Calendar.JANUARY, 1);
+            calendar.add(Calendar.DAY_OF_YEAR, random.nextInt(730));
+            items.add(new Item(
+                    String.format("item-%08d", i),
+                    pick(random, COLORS) + " " + name,
+                    pick(random, CATEGORIES),
+                    description(random, name, payload),
+                    pick(random, LOCATIONS),
+                    calendar.getTime(),
+                    "OPEN",
+                    "user" + random.nextInt(1000) + "@campus.edu",
+                    random.nextBoolean() ? "LOST" : "FOUND",
+                    "user-" + random.nextInt(1000)));
+        }
+        return items;
+    }
+
+    public static ItemDAOMemoryImpl memoryDao(List<Item> items) {
+        ItemDAOMemoryImpl dao = new ItemDAOMemoryImpl();
+        for (Item item : items) {
+            dao.save(item);
+        }
+        return dao;
+    }
+
+    private static String description(Random random, String name, Payload payload) {
+        if (payload.descriptionWords == 0) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder(name);
+        for (int i = 1; i < payload.descriptionWords; i++) {
+            sb.append(' ').append(pick(random, FILLER));
+        }
+        return sb.toString();
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
@@ -0,0 +1,87 @@
+package com.campus.lostfound.dao;
+
+import com.campus.lostfound.model.Item;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ItemDAOMemoryImpl search and page reads across dataset sizes and
+ * selectivities:
+ *
+ *   narrow - rare name within one category (few matches)
+ *   broad  - common category only (about 1/8 of items)
+ *   miss   - name that no item has
+ *   ranked - full-text query, ordered by rank
+ *   month  - one month's date range, no other filter
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemSearchBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    @Param({"narrow", "broad", "miss", "ranked", "month"})
+    public String selectivity;
+
+    @Param({"50"})
+    public int pageSize;
+
+    private ItemDAOMemoryImpl dao;
+    private ItemQuery query;
+
+    @Setup
+    public void setUp() {
+        dao = ItemFixtures.memoryDao(ItemFixtures.items(size, ItemFixtures.Payload.TYPICAL, 42L));
+        switch (selectivity) {
+            case "narrow":
+                query = new ItemQuery(null, "calculator", "electronics", null, null);
+                break;
+            case "broad":
+                query = new ItemQuery(null, null, "keys", null, null);
+                break;
+            case "miss":
+                query = new ItemQuery(null, "spaceship", null, null, null);
+                break;
+            case "ranked":
+                query = new ItemQuery(null, "black wallet library", null, null, null, null);
+                break;
+            case "month":
+                query = new ItemQuery(null, null, null, null, DateRange.of(LocalDate.of(2025, 6, 1), LocalDate.of(2025, 6, 30)));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown selectivity: " + selectivity);
+        }
+    }
+
+    @Benchmark
+    public List<Item> search() {
+        if (query.isRanked()) {
+            // search() has no text parameter; ranked reads only exist as pages
+            return dao.findPage(query, null, pageSize).getItems();
+        }
+        return dao.search(query.getItemName(), query.getCategory(), query.getLocation(), query.getDates());
+    }
+
+    @Benchmark
+    public ItemPage firstPage() {
+        return dao.findPage(query, null, pageSize);
+    }
+}
@@ -0,0 +1,113 @@
+package com.campus.lostfound.dao;
+
+import com.campus.lostfound.model.Item;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Proxy;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ItemDAOPostgresImpl.mapRow over an in-memory ResultSet, so the cost of
+ * column lookup by name and object construction is measured without JDBC
+ * or network time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapRowBenchmark {
+
+    @Param({"1", "100", "1000"})
+    public int rows;
+
+    @Param({"SMALL", "TYPICAL", "LARGE"})
+    public ItemFixtures.Payload payload;
+
+    private List<Item> source;
+    private RowCursor cursor;
+    private ResultSet resultSet;
+
+    @Setup
+    public void setUp() {
+        source = ItemFixtures.items(rows, payload, 42L);
+        cursor = new RowCursor(source);
+        resultSet = cursor.asResultSet();
+    }
+
+    @Benchmark
+    public void mapRows(Blackhole bh) throws SQLException {
+        cursor.reset();
+        while (resultSet.next()) {
+            bh.consume(ItemDAOPostgresImpl.mapRow(resultSet));
+        }
+    }
+
+    /**
+     * Minimal forward-only ResultSet over pre-built rows, answering only the
+     * calls mapRow makes.
+     */
+    static final class RowCursor {
+        private final List<Map<String, Object>> rows = new java.util.ArrayList<>();
+        private int position = -1;
+
+        RowCursor(List<Item> items) {
+            for (Item item : items) {
+                Map<String, Object> row = new HashMap<>();
+                row.put("id", item.getId());
+                row.put("item_name", item.getItemName());
+                row.put("category", item.getCategory());
+                row.put("description", item.getDescription());
+                row.put("location", item.getLocation());
+                row.put("date", item.getDate() != null ? new Date(item.getDate().getTime()) : null);
+                row.put("status", item.getStatus());
+                row.put("contact_info", item.getContactInfo());
+                row.put("type", item.getType());
+                row.put("user_id", item.getUserId());
+                rows.add(row);
+            }
+        }
+
+        void reset() {
+            position = -1;
+        }
+
+        ResultSet asResultSet() {
+            return (ResultSet) Proxy.newProxyInstance(
+                    ResultSet.class.getClassLoader(),
+                    new Class<?>[]{ResultSet.class},
+                    (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "next":
+                                return ++position < rows.size();
+                            case "getString":
+                            case "getDate":
+                            case "getObject":
+                                return rows.get(position).get((String) args[0]);
+                            case "close":
+                                return null;
+                            default:
+                                throw new UnsupportedOperationException(method.getName());
+                        }
+                    });
+        }
+    }
+}
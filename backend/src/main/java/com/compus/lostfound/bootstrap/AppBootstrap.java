@@ -0,0 +1,350 @@
+package com.campus.lostfound.bootstrap;
+
+import com.campus.lostfound.controller.ItemServlet;
+import com.campus.lostfound.dao.CachingItemDAO;
+import com.campus.lostfound.dao.InstrumentedItemDAO;
+import com.campus.lostfound.dao.InstrumentedUserDAO;
+import com.campus.lostfound.dao.ItemChangeTracker;
+import com.campus.lostfound.dao.ItemDAO;
+import com.campus.lostfound.dao.ItemDAOLogImpl;
+import com.campus.lostfound.dao.ItemDAOPostgresImpl;
+import com.campus.lostfound.dao.ItemPartitionMaintainer;
+import com.campus.lostfound.dao.ItemPhotoDAO;
+import com.campus.lostfound.dao.ItemPhotoDAOPostgresImpl;
+import com.campus.lostfound.dao.UserDAO;
+import com.campus.lostfound.dao.UserDAOPostgresImpl;
+import com.campus.lostfound.dao.UserPresenceFilter;
+import com.campus.lostfound.dao.WriteBehindItemDAO;
+import com.campus.lostfound.events.ItemEventBus;
+import com.campus.lostfound.events.ItemEventRelay;
+import com.campus.lostfound.facet.FacetIndex;
+import com.campus.lostfound.match.MatchEngine;
+import com.campus.lostfound.metrics.MetricsRegistry;
+import com.campus.lostfound.photo.PhotoStore;
+import com.campus.lostfound.util.AccessLog;
+import com.campus.lostfound.util.DaoExecutor;
+import com.campus.lostfound.util.DatabaseUtil;
+import com.campus.lostfound.util.Env;
+import com.campus.lostfound.util.PasswordHasher;
+import com.campus.lostfound.util.ReplicaRouter;
+
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts and stops the application's shared state.
+ *
+ * On startup: connects the pool (plus read replica pools from
+ * DATABASE_REPLICA_URLS, comma separated), applies SchemaMigrations, builds
+ * the DAO stack (Postgres or, with ITEM_STORE=log, the local append-log
+ * store for items; metrics; optional cache; optional write-behind queue;
+ * with Postgres, the partition maintainer that adds monthly partitions and
+ * archives resolved and expired items), the user presence filter, the
+ * match engine, the facet index, the photo store and the item event relay,
+ * and publishes them as AppServices. Warmup then runs in the background and flips
+ * Readiness to READY when done; until then /api/health/ready answers 503 so
+ * the load balancer keeps traffic away.
+ *
+ * A failure here does not stop the container: readiness reports FAILED and
+ * the servlets refuse to initialize with the reason.
+ *
+ * On shutdown (after all servlets are destroyed) queued item writes are
+ * drained, the background components are stopped and the shared executors
+ * and the pool are closed.
+ */
+@WebListener
+public class AppBootstrap implements ServletContextListener {
+
+    private AppServices app;
+    private ItemEventRelay relay;
+    private MatchEngine matchEngine;
+    private FacetIndex facetIndex;
+    private ItemDAOLogImpl itemLog;
+    private WriteBehindItemDAO writeBehind;
+    private ItemPartitionMaintainer partitions;
+    private PhotoStore photoStore;
+
+    @Override
+    public void contextInitialized(ServletContextEvent sce) {
+        app = new AppServices();
+        sce.getServletContext().setAttribute(AppServices.ATTRIBUTE, app);
+        Readiness readiness = app.getReadiness();
+
+        String databaseUrl = System.getenv("DATABASE_URL");
+        if (databaseUrl == null || databaseUrl.isEmpty()) {
+            readiness.failed("DATABASE_URL environment variable is required for Neon PostgreSQL. Please configure it.");
+            System.err.println(readiness.getDetail());
+            return;
+        }
+
+        ItemDAO itemDAO;
+        UserDAO userDAO;
+        UserPresenceFilter presence;
+        ItemPhotoDAO photoDAO = null;
+        try {
+            DatabaseUtil.init(databaseUrl);
+            List<String> replicaUrls = new ArrayList<>();
+            for (String url : Env.getString("DATABASE_REPLICA_URLS", "").split(",")) {
+                if (!url.trim().isEmpty()) {
+                    replicaUrls.add(url.trim());
+                }
+            }
+            if (!replicaUrls.isEmpty()) {
+                DatabaseUtil.initReplicas(replicaUrls);
+                registerReplicaMetrics(MetricsRegistry.shared(), DatabaseUtil.getReplicaRouter());
+                System.out.println("Routing reads across " + replicaUrls.size() + " replica(s)");
+            }
+            try (Connection conn = DatabaseUtil.getConnection()) {
+                readiness.schemaMigrated(SchemaMigrations.migrate(conn));
+            }
+            System.out.println("Schema at version " + readiness.getSchemaVersion());
+
+            MetricsRegistry metrics = MetricsRegistry.shared();
+            boolean metricsEnabled = Env.getBoolean("METRICS_ENABLED", true);
+            String itemStore = Env.getString("ITEM_STORE", "postgres").toLowerCase();
+            if ("log".equals(itemStore)) {
+                Path logDir = Paths.get(Env.getString("ITEM_LOG_DIR", "data/items"));
+                itemLog = ItemDAOLogImpl.open(logDir, Env.getInt("ITEM_LOG_COMPACT_MB", 64) * 1024L * 1024L);
+                registerItemLogMetrics(metrics, itemLog);
+                itemDAO = itemLog;
+                System.out.println("Using append-log item DAO in " + logDir.toAbsolutePath());
+            } else {
+                itemDAO = new ItemDAOPostgresImpl();
+                System.out.println("Using Postgres DAO");
+                if (Env.getBoolean("ITEM_PARTITION_MAINTENANCE_ENABLED", true)) {
+                    partitions = new ItemPartitionMaintainer(Env.getInt("ITEM_PARTITION_MONTHS_AHEAD", 3),
+                            Env.getInt("ITEM_ARCHIVE_EXPIRE_DAYS", 365), Env.getInt("ITEM_ARCHIVE_RESOLVED_DAYS", 30),
+                            Arrays.asList(Env.getString("ITEM_ARCHIVE_RESOLVED_STATUSES", "CLAIMED,RETURNED,CLOSED").split(",")),
+                            Env.getInt("ITEM_ARCHIVE_BATCH", 1000));
+                    registerPartitionMetrics(metrics, partitions);
+                }
+            }
+            userDAO = new UserDAOPostgresImpl();
+            if (metricsEnabled) {
+                itemDAO = new InstrumentedItemDAO(itemDAO, itemStore, metrics);
+                userDAO = new InstrumentedUserDAO(userDAO, "postgres", metrics);
+            }
+            if (Env.getBoolean("ITEM_CACHE_ENABLED", false)) {
+                int maxEntries = Env.getInt("ITEM_CACHE_MAX_ENTRIES", 1000);
+                int ttlSeconds = Env.getInt("ITEM_CACHE_TTL_SECONDS", 30);
+                CachingItemDAO cache = new CachingItemDAO(itemDAO, maxEntries, ttlSeconds, TimeUnit.SECONDS);
+                registerCacheMetrics(metrics, cache);
+                itemDAO = cache;
+                System.out.println("Item cache enabled (" + maxEntries + " entries, " + ttlSeconds + "s TTL)");
+            }
+            if (Env.getBoolean("ITEM_WRITE_BEHIND_ENABLED", false)) {
+                // Outermost, so the cache is invalidated when a group commits rather than when it is queued
+                WriteBehindItemDAO.Durability durability = WriteBehindItemDAO.Durability.valueOf(
+                        Env.getString("ITEM_WRITE_BEHIND_DURABILITY", "committed").toUpperCase());
+                writeBehind = new WriteBehindItemDAO(itemDAO, durability,
+                        Env.getInt("ITEM_WRITE_BEHIND_QUEUE", 10000),
+                        Env.getInt("ITEM_WRITE_BEHIND_BATCH", 500),
+                        Env.getInt("ITEM_WRITE_BEHIND_LINGER_MS", 0),
+                        Env.getInt("ITEM_WRITE_BEHIND_OFFER_TIMEOUT_MS", 50), metrics);
+                registerWriteBehindMetrics(metrics, writeBehind);
+                itemDAO = writeBehind;
+                System.out.println("Item write-behind enabled (" + durability + ", queue "
+                        + writeBehind.getCapacity() + ")");
+            }
+            presence = new UserPresenceFilter(userDAO, Env.getInt("USER_FILTER_EXPECTED_USERS", 100000), 0.01);
+            if (Env.getBoolean("MATCH_ENABLED", true)) {
+                matchEngine = new MatchEngine(Env.getInt("MATCH_MAX_CANDIDATES", 20),
+                        Env.getDouble("MATCH_MIN_SCORE", 0.25), Env.getInt("MATCH_DATE_WINDOW_DAYS", 30));
+                // Registered before the backfill reads the table so no write falls in between
+                ItemChangeTracker.addListener(matchEngine);
+            }
+            if (Env.getBoolean("FACETS_ENABLED", true)) {
+                facetIndex = new FacetIndex(Env.getInt("FACET_HISTOGRAM_DAYS", 90));
+                ItemChangeTracker.addListener(facetIndex);
+            }
+            if (Env.getBoolean("PHOTOS_ENABLED", true)) {
+                Path photoDir = Paths.get(Env.getString("PHOTO_DIR", "data/photos"));
+                photoStore = new PhotoStore(photoDir, ItemServlet.MAX_PHOTO_BYTES,
+                        Env.getInt("PHOTO_THUMBNAIL_SIZE", 320), Env.getInt("PHOTO_THUMBNAIL_THREADS", 2),
+                        Env.getInt("PHOTO_THUMBNAIL_QUEUE", 1000));
+                photoDAO = new ItemPhotoDAOPostgresImpl();
+                registerPhotoMetrics(metrics, photoStore);
+                System.out.println("Storing photos in " + photoDir.toAbsolutePath());
+            }
+            relay = new ItemEventRelay(ItemEventBus.shared(), ItemServlet.createGson(),
+                    Env.getBoolean("ITEM_EVENTS_LISTEN_NOTIFY", true));
+            relay.start();
+        } catch (Exception e) {
+            readiness.failed("Failed to initialize the data layer: " + e.getMessage());
+            e.printStackTrace();
+            return;
+        }
+        app.init(itemDAO, userDAO, presence, matchEngine, facetIndex, photoDAO, photoStore,
+                Env.getInt("PHOTO_MAX_PER_ITEM", 10));
+
+        background("user-filter-warmup", () -> {
+            try {
+                presence.warm();
+            } catch (RuntimeException e) {
+                // Availability checks keep going to the database
+                e.printStackTrace();
+            }
+        });
+        if (matchEngine != null) {
+            MatchEngine engine = matchEngine;
+            int parallelism = Env.getInt("MATCH_BACKFILL_PARALLELISM", Runtime.getRuntime().availableProcessors());
+            ItemDAO source = itemDAO;
+            background("match-backfill", () -> {
+                try {
+                    engine.backfill(source.findAll(), parallelism);
+                } catch (RuntimeException e) {
+                    System.err.println("Match engine backfill failed; matching disabled: " + e.getMessage());
+                    e.printStackTrace();
+                    ItemChangeTracker.removeListener(engine);
+                }
+            });
+        }
+        if (facetIndex != null) {
+            FacetIndex index = facetIndex;
+            ItemDAO source = itemDAO;
+            background("facet-backfill", () -> {
+                try {
+                    index.backfill(source.findAll());
+                } catch (RuntimeException e) {
+                    System.err.println("Facet index backfill failed; facet counts disabled: " + e.getMessage());
+                    e.printStackTrace();
+                    ItemChangeTracker.removeListener(index);
+                }
+            });
+        }
+        if (partitions != null) {
+            // After the listeners are registered, so the first archiving pass reaches them
+            partitions.start(Env.getInt("ITEM_PARTITION_CHECK_MINUTES", 60), TimeUnit.MINUTES);
+        }
+        Warmup warmup = new Warmup(itemDAO, userDAO, ItemServlet.createGson());
+        background("app-warmup", () -> {
+            long start = System.currentTimeMillis();
+            warmup.run(Env.getInt("WARMUP_CONNECTIONS", 4), Env.getInt("WARMUP_ITERATIONS", 20));
+            readiness.ready(System.currentTimeMillis() - start);
+            System.out.println("Warmup finished in " + readiness.getWarmupMillis() + " ms; ready");
+        });
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent sce) {
+        if (writeBehind != null) {
+            // Before the relay and the pool: drained writes still publish their events
+            writeBehind.close(Env.getInt("ITEM_WRITE_BEHIND_DRAIN_SECONDS", 30), TimeUnit.SECONDS);
+        }
+        if (partitions != null) {
+            partitions.stop();
+        }
+        if (relay != null) {
+            relay.stop();
+        }
+        if (matchEngine != null) {
+            ItemChangeTracker.removeListener(matchEngine);
+        }
+        if (facetIndex != null) {
+            ItemChangeTracker.removeListener(facetIndex);
+        }
+        if (itemLog != null) {
+            try {
+                itemLog.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        if (photoStore != null) {
+            photoStore.close();
+        }
+        DaoExecutor.shutdownShared();
+        AccessLog.shutdownShared();
+        PasswordHasher.shutdownShared();
+        DatabaseUtil.shutdown();
+        sce.getServletContext().removeAttribute(AppServices.ATTRIBUTE);
+    }
+
+    private static void background(String name, Runnable task) {
+        Thread t = new Thread(task, name);
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private static void registerReplicaMetrics(MetricsRegistry metrics, ReplicaRouter router) {
+        for (ReplicaRouter.Replica r : router.getReplicas()) {
+            metrics.gauge("db_replica_healthy", "1 if the replica is taking reads",
+                    () -> r.isHealthy() ? 1 : 0, "replica", r.getName());
+            metrics.gauge("db_replica_lag_seconds", "Replay lag at the last health check",
+                    () -> r.getLagMillis() / 1000.0, "replica", r.getName());
+            metrics.gauge("db_replica_connections_active", "Replica connections handed out",
+                    () -> r.getPoolStats().getActive(), "replica", r.getName());
+            metrics.counterFunction("db_replica_reads_total", "Read connections served by the replica",
+                    r::getReadCount, "replica", r.getName());
+        }
+        metrics.counterFunction("db_primary_reads_total", "Read connections served by the primary",
+                router::getPrimaryReadCount);
+        metrics.counterFunction("db_replica_failovers_total", "Reads moved off a replica that failed to connect",
+                router::getFailoverCount);
+        metrics.counterFunction("db_replica_busy_skips_total", "Reads moved off a replica with no free connection",
+                router::getBusySkipCount);
+    }
+
+    private static void registerItemLogMetrics(MetricsRegistry metrics, ItemDAOLogImpl itemLog) {
+        metrics.gauge("item_log_bytes", "Size of the current item log generation", itemLog::getLogBytes);
+        metrics.gauge("item_log_generation", "Current item log generation", itemLog::getGeneration);
+        metrics.gauge("item_log_items", "Items held by the append-log store", itemLog::getItemCount);
+        metrics.counterFunction("item_log_records_total", "Records appended to the item log", itemLog::getRecordCount);
+        metrics.counterFunction("item_log_fsyncs_total", "Item log fsyncs; fewer than records when writes are grouped",
+                itemLog::getSyncCount);
+    }
+
+    private static void registerWriteBehindMetrics(MetricsRegistry metrics, WriteBehindItemDAO writeBehind) {
+        metrics.gauge("item_write_behind_queue_depth", "Items accepted and not yet committed",
+                writeBehind::getQueuedItems);
+        metrics.gauge("item_write_behind_queue_capacity", "Write-behind queue capacity in items",
+                writeBehind::getCapacity);
+        metrics.counterFunction("item_write_behind_flushes_total", "Write-behind group commits",
+                writeBehind::getFlushCount);
+        metrics.counterFunction("item_write_behind_rejected_total", "Saves refused because the queue was full",
+                writeBehind::getRejectedCount);
+        metrics.counterFunction("item_write_behind_failed_total", "Queued items whose commit failed",
+                writeBehind::getFailedCount);
+    }
+
+    private static void registerPartitionMetrics(MetricsRegistry metrics, ItemPartitionMaintainer partitions) {
+        metrics.counterFunction("item_archived_total", "Items moved to the archive partition",
+                partitions::getArchivedCount);
+        metrics.counterFunction("item_partitions_created_total", "Monthly item partitions created",
+                partitions::getPartitionsCreatedCount);
+        metrics.counterFunction("item_partition_maintenance_failures_total", "Partition maintenance runs that failed",
+                partitions::getFailedRunCount);
+    }
+
+    private static void registerPhotoMetrics(MetricsRegistry metrics, PhotoStore photos) {
+        metrics.counterFunction("photo_stored_total", "Photo uploads written to the store",
+                photos::getStoredCount);
+        metrics.counterFunction("photo_deduplicated_total", "Photo uploads identical to a stored file",
+                photos::getDeduplicatedCount);
+        metrics.counterFunction("photo_thumbnails_total", "Thumbnails generated", photos::getThumbnailCount);
+        metrics.counterFunction("photo_thumbnail_failures_total", "Thumbnails that could not be generated",
+                photos::getThumbnailFailureCount);
+        metrics.gauge("photo_thumbnail_queue_depth", "Thumbnails waiting for the pool",
+                photos::getThumbnailQueueDepth);
+    }
+
+    private static void registerCacheMetrics(MetricsRegistry metrics, CachingItemDAO cache) {
+        metrics.gauge("item_cache_entries", "Entries in the item cache", () -> cache.getStats().getSize());
+        metrics.counterFunction("item_cache_hits_total", "Item cache hits", () -> cache.getStats().getHits());
+        metrics.counterFunction("item_cache_misses_total", "Item cache misses", () -> cache.getStats().getMisses());
+        metrics.counterFunction("item_cache_coalesced_total", "Item cache misses that joined an in-flight load",
+                () -> cache.getStats().getCoalesced());
+        metrics.counterFunction("item_cache_evictions_total", "Item cache evictions", () -> cache.getStats().getEvictions());
+        metrics.counterFunction("item_cache_invalidations_total", "Item cache entries dropped by writes",
+                () -> cache.getStats().getInvalidations());
+    }
+}
@@ -0,0 +1,108 @@
+package com.campus.lostfound.bootstrap;
+
+import com.campus.lostfound.dao.ItemDAO;
+import com.campus.lostfound.dao.ItemPhotoDAO;
+import com.campus.lostfound.dao.UserDAO;
+import com.campus.lostfound.dao.UserPresenceFilter;
+import com.campus.lostfound.facet.FacetIndex;
+import com.campus.lostfound.match.MatchEngine;
+import com.campus.lostfound.photo.PhotoStore;
+
+import javax.servlet.ServletContext;
+
+/**
+ * The data layer built once by AppBootstrap and shared by every servlet
+ * through a ServletContext attribute.
+ */
+public final class AppServices {
+
+    public static final String ATTRIBUTE = AppServices.class.getName();
+
+    private final Readiness readiness = new Readiness();
+    private volatile ItemDAO itemDAO;
+    private volatile UserDAO userDAO;
+    private volatile UserPresenceFilter userPresence;
+    private volatile MatchEngine matchEngine;
+    private volatile FacetIndex facetIndex;
+    private volatile ItemPhotoDAO itemPhotoDAO;
+    private volatile PhotoStore photoStore;
+    private volatile int maxPhotosPerItem;
+
+    AppServices() {}
+
+    /**
+     * The services of this web application.
+     *
+     * @throws IllegalStateException if the bootstrap listener did not run
+     */
+    public static AppServices get(ServletContext context) {
+        AppServices app = (AppServices) context.getAttribute(ATTRIBUTE);
+        if (app == null) {
+            throw new IllegalStateException("AppBootstrap has not run for this context");
+        }
+        return app;
+    }
+
+    void init(ItemDAO itemDAO, UserDAO userDAO, UserPresenceFilter userPresence, MatchEngine matchEngine,
+              FacetIndex facetIndex, ItemPhotoDAO itemPhotoDAO, PhotoStore photoStore, int maxPhotosPerItem) {
+        this.itemDAO = itemDAO;
+        this.userDAO = userDAO;
+        this.userPresence = userPresence;
+        this.matchEngine = matchEngine;
+        this.facetIndex = facetIndex;
+        this.itemPhotoDAO = itemPhotoDAO;
+        this.photoStore = photoStore;
+        this.maxPhotosPerItem = maxPhotosPerItem;
+    }
+
+    public Readiness getReadiness() {
+        return readiness;
+    }
+
+    public ItemDAO getItemDAO() {
+        return require(itemDAO);
+    }
+
+    public UserDAO getUserDAO() {
+        return require(userDAO);
+    }
+
+    public UserPresenceFilter getUserPresence() {
+        return require(userPresence);
+    }
+
+    /** Null when matching is disabled with MATCH_ENABLED=false. */
+    public MatchEngine getMatchEngine() {
+        require(itemDAO);
+        return matchEngine;
+    }
+
+    /** Null when facet counts are disabled with FACETS_ENABLED=false. */
+    public FacetIndex getFacetIndex() {
+        require(itemDAO);
+        return facetIndex;
+    }
+
+    /** Null when photos are disabled with PHOTOS_ENABLED=false. */
+    public ItemPhotoDAO getItemPhotoDAO() {
+        require(itemDAO);
+        return itemPhotoDAO;
+    }
+
+    /** Null when photos are disabled with PHOTOS_ENABLED=false. */
+    public PhotoStore getPhotoStore() {
+        require(itemDAO);
+        return photoStore;
+    }
+
+    public int getMaxPhotosPerItem() {
+        return maxPhotosPerItem;
+    }
+
+    private <T> T require(T service) {
+        if (service == null) {
+            throw new IllegalStateException("Data layer is not available: " + readiness.getDetail());
+        }
+        return service;
+    }
+}
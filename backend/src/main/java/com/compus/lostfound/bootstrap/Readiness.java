@@ -0,0 +1,52 @@
+package com.campus.lostfound.bootstrap;
+
+/**
+ * Startup progress as reported by /api/health/ready: STARTING until the
+ * schema is migrated and the pool and hot queries are warm, then READY.
+ * FAILED is terminal; the instance needs a restart.
+ */
+public final class Readiness {
+
+    public enum State { STARTING, READY, FAILED }
+
+    private volatile State state = State.STARTING;
+    private volatile String detail = "starting";
+    private volatile int schemaVersion;
+    private volatile long warmupMillis = -1;
+
+    void schemaMigrated(int version) {
+        this.schemaVersion = version;
+        this.detail = "warming up";
+    }
+
+    void ready(long warmupMillis) {
+        this.warmupMillis = warmupMillis;
+        this.detail = "ready";
+        this.state = State.READY;
+    }
+
+    void failed(String reason) {
+        this.detail = reason;
+        this.state = State.FAILED;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public boolean isReady() {
+        return state == State.READY;
+    }
+
+    public String getDetail() {
+        return detail;
+    }
+
+    public int getSchemaVersion() {
+        return schemaVersion;
+    }
+
+    public long getWarmupMillis() {
+        return warmupMillis;
+    }
+}
@@ -0,0 +1,246 @@
+package com.campus.lostfound.bootstrap;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Ordered, versioned schema changes, applied once per database at startup.
+ *
+ * Each migration runs in its own transaction and is recorded in
+ * schema_migrations; a session advisory lock keeps instances that start
+ * together from applying the same version twice. Never edit a released
+ * migration: add a new version instead. The early versions use IF NOT EXISTS
+ * because they replace the DDL the DAO constructors used to run, so
+ * databases created before migrations existed pass through them unchanged.
+ *
+ * An optional migration that fails is logged and left unrecorded, so it is
+ * retried on the next start (used for extensions the server may not allow).
+ */
+public final class SchemaMigrations {
+
+    // Arbitrary key for pg_advisory_lock; only has to be unique within this database
+    private static final long LOCK_KEY = 0x4C6F737446L;
+
+    static final class Migration {
+        final int version;
+        final String description;
+        final boolean optional;
+        final String[] statements;
+
+        Migration(int version, String description, boolean optional, String... statements) {
+            this.version = version;
+            this.description = description;
+            this.optional = optional;
+            this.statements = statements;
+        }
+    }
+
+    static final List<Migration> MIGRATIONS = Arrays.asList(
+            new Migration(1, "create items", false,
+                    "CREATE TABLE IF NOT EXISTS items (" +
+                    "id VARCHAR(64) PRIMARY KEY," +
+                    "item_name VARCHAR(255) NOT NULL," +
+                    "category VARCHAR(100)," +
+                    "description TEXT," +
+                    "location VARCHAR(255)," +
+                    "date DATE," +
+                    "status VARCHAR(50)," +
+                    "contact_info VARCHAR(255)," +
+                    "type VARCHAR(20)," +
+                    "user_id VARCHAR(64)" +
+                    ")"),
+            // Keyset pagination over (date, id), optionally within one type
+            new Migration(2, "items keyset pagination indexes", false,
+                    "CREATE INDEX IF NOT EXISTS idx_items_date_id ON items (date, id)",
+                    "CREATE INDEX IF NOT EXISTS idx_items_type_date_id ON items (type, date, id)"),
+            // Weighted full-text document, maintained by Postgres on every insert/update
+            new Migration(3, "items full-text search", false,
+                    "ALTER TABLE items ADD COLUMN IF NOT EXISTS search_vector tsvector GENERATED ALWAYS AS (" +
+                    "setweight(to_tsvector('english', coalesce(item_name, '')), 'A') || " +
+                    "setweight(to_tsvector('english', coalesce(description, '')), 'B') || " +
+                    "setweight(to_tsvector('english', coalesce(location, '')), 'C')) STORED",
+                    "CREATE INDEX IF NOT EXISTS idx_items_search_vector ON items USING gin (search_vector)"),
+            // Lets LOWER(col) LIKE '%x%' substring filters use an index scan
+            new Migration(4, "items trigram indexes", true,
+                    "CREATE EXTENSION IF NOT EXISTS pg_trgm",
+                    "CREATE INDEX IF NOT EXISTS idx_items_name_trgm ON items USING gin (LOWER(item_name) gin_trgm_ops)",
+                    "CREATE INDEX IF NOT EXISTS idx_items_location_trgm ON items USING gin (LOWER(location) gin_trgm_ops)"),
+            new Migration(5, "create users", false,
+                    "CREATE TABLE IF NOT EXISTS users (" +
+                    "id VARCHAR(64) PRIMARY KEY," +
+                    "username VARCHAR(255) UNIQUE NOT NULL," +
+                    "password VARCHAR(255) NOT NULL," +
+                    "email VARCHAR(255) UNIQUE NOT NULL" +
+                    ")"),
+            // items becomes LIST partitioned on archived: items_archive holds what
+            // ItemPartitionMaintainer has archived, items_live is RANGE partitioned by
+            // month on date. Rows with no date, or in a month without a partition,
+            // land in items_live_default. A partitioned table cannot have a primary
+            // key without the partition columns, and date is nullable, so id gets a
+            // plain index; ids are UUIDs generated by the DAO.
+            new Migration(6, "partition items by archived flag and month", false,
+                    "ALTER TABLE items RENAME TO items_unpartitioned",
+                    "CREATE TABLE items (" +
+                    "id VARCHAR(64) NOT NULL," +
+                    "item_name VARCHAR(255) NOT NULL," +
+                    "category VARCHAR(100)," +
+                    "description TEXT," +
+                    "location VARCHAR(255)," +
+                    "date DATE," +
+                    "status VARCHAR(50)," +
+                    "contact_info VARCHAR(255)," +
+                    "type VARCHAR(20)," +
+                    "user_id VARCHAR(64)," +
+                    "archived BOOLEAN NOT NULL DEFAULT false," +
+                    "search_vector tsvector GENERATED ALWAYS AS (" +
+                    "setweight(to_tsvector('english', coalesce(item_name, '')), 'A') || " +
+                    "setweight(to_tsvector('english', coalesce(description, '')), 'B') || " +
+                    "setweight(to_tsvector('english', coalesce(location, '')), 'C')) STORED" +
+                    ") PARTITION BY LIST (archived)",
+                    "CREATE TABLE items_archive PARTITION OF items FOR VALUES IN (true)",
+                    "CREATE TABLE items_live PARTITION OF items FOR VALUES IN (false) PARTITION BY RANGE (date)",
+                    "CREATE TABLE items_live_default PARTITION OF items_live DEFAULT",
+                    // One partition per month of the last two years that has items, plus the
+                    // current month; ItemPartitionMaintainer keeps creating them from here on
+                    "DO $$ DECLARE m date; BEGIN " +
+                    "FOR m IN SELECT DISTINCT date_trunc('month', date)::date FROM items_unpartitioned " +
+                    "WHERE date >= date_trunc('month', current_date) - interval '24 months' " +
+                    "AND date < date_trunc('month', current_date) " +
+                    "UNION SELECT date_trunc('month', current_date)::date LOOP " +
+                    "EXECUTE format('CREATE TABLE %I PARTITION OF items_live FOR VALUES FROM (%L) TO (%L)', " +
+                    "'items_' || to_char(m, '\"y\"YYYY\"m\"MM'), m, (m + interval '1 month')::date); " +
+                    "END LOOP; END $$",
+                    "INSERT INTO items (id, item_name, category, description, location, date, status, contact_info, type, user_id) " +
+                    "SELECT id, item_name, category, description, location, date, status, contact_info, type, user_id " +
+                    "FROM items_unpartitioned",
+                    "DROP TABLE items_unpartitioned",
+                    // Created on the parent after the copy; each partition gets its own copy
+                    "CREATE INDEX idx_items_id ON items (id)",
+                    "CREATE INDEX idx_items_date_id ON items (date, id)",
+                    "CREATE INDEX idx_items_type_date_id ON items (type, date, id)",
+                    "CREATE INDEX idx_items_search_vector ON items USING gin (search_vector)"),
+            // Version 4's indexes went with the unpartitioned table
+            new Migration(7, "items trigram indexes on partitions", true,
+                    "CREATE EXTENSION IF NOT EXISTS pg_trgm",
+                    "CREATE INDEX IF NOT EXISTS idx_items_name_trgm ON items USING gin (LOWER(item_name) gin_trgm_ops)",
+                    "CREATE INDEX IF NOT EXISTS idx_items_location_trgm ON items USING gin (LOWER(location) gin_trgm_ops)"),
+            // hash names the file in the PhotoStore
+            new Migration(8, "create item photos", false,
+                    "CREATE TABLE IF NOT EXISTS item_photos (" +
+                    "item_id VARCHAR(64) NOT NULL," +
+                    "hash CHAR(64) NOT NULL," +
+                    "content_type VARCHAR(50) NOT NULL," +
+                    "size_bytes BIGINT NOT NULL," +
+                    "created_at TIMESTAMPTZ NOT NULL DEFAULT now()," +
+                    "PRIMARY KEY (item_id, hash)" +
+                    ")"),
+            // Version 6 lost the primary key on items.id. item_ids holds every id once
+            // and a row trigger keeps it in step, so a second row with the same id fails
+            // its INSERT. Moving a row between partitions (archiving) fires as a DELETE
+            // and an INSERT. Copies already made by a retried write are dropped first,
+            // keeping the live one. created_at lets rows without a date age out; the
+            // rows already there count from now.
+            new Migration(9, "unique item ids and item creation time", false,
+                    "DELETE FROM items a USING items b WHERE a.id = b.id " +
+                    "AND (a.archived, a.tableoid, a.ctid) > (b.archived, b.tableoid, b.ctid)",
+                    "CREATE TABLE item_ids (id VARCHAR(64) PRIMARY KEY)",
+                    "INSERT INTO item_ids (id) SELECT id FROM items",
+                    "CREATE FUNCTION items_track_id() RETURNS trigger LANGUAGE plpgsql AS $$ BEGIN " +
+                    "IF TG_OP = 'INSERT' THEN INSERT INTO item_ids (id) VALUES (NEW.id); RETURN NEW; END IF; " +
+                    "IF TG_OP = 'UPDATE' THEN UPDATE item_ids SET id = NEW.id WHERE id = OLD.id; RETURN NEW; END IF; " +
+                    "DELETE FROM item_ids WHERE id = OLD.id; RETURN OLD; END $$",
+                    "CREATE TRIGGER items_track_id AFTER INSERT OR DELETE OR UPDATE OF id ON items " +
+                    "FOR EACH ROW EXECUTE FUNCTION items_track_id()",
+                    "ALTER TABLE items ADD COLUMN created_at TIMESTAMPTZ NOT NULL DEFAULT now()"));
+
+    private SchemaMigrations() {}
+
+    /**
+     * Applies every pending migration in version order.
+     *
+     * @return the highest version recorded afterwards
+     */
+    public static int migrate(Connection conn) throws SQLException {
+        try (PreparedStatement lock = conn.prepareStatement("SELECT pg_advisory_lock(?)")) {
+            lock.setLong(1, LOCK_KEY);
+            lock.execute();
+        }
+        try {
+            try (Statement st = conn.createStatement()) {
+                st.execute("CREATE TABLE IF NOT EXISTS schema_migrations (" +
+                        "version INT PRIMARY KEY," +
+                        "description VARCHAR(255) NOT NULL," +
+                        "applied_at TIMESTAMPTZ NOT NULL DEFAULT now()" +
+                        ")");
+            }
+            Set<Integer> applied = appliedVersions(conn);
+            for (Migration m : MIGRATIONS) {
+                if (!applied.contains(m.version)) {
+                    apply(conn, m);
+                }
+            }
+            return currentVersion(conn);
+        } finally {
+            try (PreparedStatement unlock = conn.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+                unlock.setLong(1, LOCK_KEY);
+                unlock.execute();
+            }
+        }
+    }
+
+    private static void apply(Connection conn, Migration m) throws SQLException {
+        long start = System.currentTimeMillis();
+        conn.setAutoCommit(false);
+        try {
+            try (Statement st = conn.createStatement()) {
+                for (String sql : m.statements) {
+                    st.execute(sql);
+                }
+            }
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO schema_migrations (version, description) VALUES (?, ?)")) {
+                ps.setInt(1, m.version);
+                ps.setString(2, m.description);
+                ps.executeUpdate();
+            }
+            conn.commit();
+            System.out.println("Applied migration " + m.version + " (" + m.description + ") in "
+                    + (System.currentTimeMillis() - start) + " ms");
+        } catch (SQLException e) {
+            conn.rollback();
+            if (!m.optional) {
+                throw new SQLException("Migration " + m.version + " (" + m.description + ") failed: "
+                        + e.getMessage(), e.getSQLState(), e);
+            }
+            System.err.println("Skipped optional migration " + m.version + " (" + m.description + "): "
+                    + e.getMessage());
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    private static Set<Integer> appliedVersions(Connection conn) throws SQLException {
+        Set<Integer> versions = new HashSet<>();
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT version FROM schema_migrations")) {
+            while (rs.next()) {
+                versions.add(rs.getInt(1));
+            }
+        }
+        return versions;
+    }
+
+    private static int currentVersion(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT coalesce(max(version), 0) FROM schema_migrations")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+}
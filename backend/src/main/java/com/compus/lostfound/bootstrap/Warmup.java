@@ -0,0 +1,124 @@
+package com.campus.lostfound.bootstrap;
+
+import com.campus.lostfound.dao.DateRange;
+import com.campus.lostfound.dao.ItemDAO;
+import com.campus.lostfound.dao.ItemQuery;
+import com.campus.lostfound.dao.ItemSink;
+import com.campus.lostfound.dao.PageCursor;
+import com.campus.lostfound.dao.UserDAO;
+import com.campus.lostfound.model.Item;
+import com.campus.lostfound.util.DatabaseUtil;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Pays the first-request costs before the instance takes traffic: opens pool
+ * connections (TCP, TLS and auth to the database) and runs the hot queries
+ * through the full DAO stack and JSON encoding until the JIT has seen them.
+ *
+ * Results are discarded. Failures are logged and do not stop startup; the
+ * instance is merely colder than intended.
+ */
+final class Warmup {
+
+    // Same page size the item endpoints use by default
+    private static final int PAGE_SIZE = 50;
+
+    private final ItemDAO itemDAO;
+    private final UserDAO userDAO;
+    private final Gson gson;
+
+    Warmup(ItemDAO itemDAO, UserDAO userDAO, Gson gson) {
+        this.itemDAO = itemDAO;
+        this.userDAO = userDAO;
+        this.gson = gson;
+    }
+
+    void run(int connections, int iterations) {
+        warmPool(connections);
+        List<ItemQuery> queries = Arrays.asList(
+                new ItemQuery(null, null, null, null, DateRange.ANY),
+                new ItemQuery("LOST", null, null, null, DateRange.ANY),
+                new ItemQuery("FOUND", null, null, null, DateRange.ANY),
+                new ItemQuery(null, "wallet", null, null, null, DateRange.ANY),
+                new ItemQuery(null, null, "phone", null, "library", DateRange.ANY));
+        int failures = 0;
+        for (int i = 0; i < iterations; i++) {
+            for (ItemQuery query : queries) {
+                try {
+                    JsonWriter writer = new JsonWriter(new DiscardingWriter());
+                    writer.beginArray();
+                    itemDAO.streamPage(query, null, PAGE_SIZE, new ItemSink() {
+                        @Override
+                        public void begin(PageCursor nextCursor) {}
+
+                        @Override
+                        public void item(Item item) {
+                            gson.toJson(item, Item.class, writer);
+                        }
+                    });
+                    writer.endArray();
+                } catch (IOException | RuntimeException e) {
+                    failures++;
+                }
+            }
+            try {
+                userDAO.findByUsername("__warmup__");
+            } catch (RuntimeException e) {
+                failures++;
+            }
+        }
+        if (failures > 0) {
+            System.err.println("Warmup: " + failures + " queries failed");
+        }
+    }
+
+    /**
+     * Holds the connections at the same time so the pool really opens that
+     * many, then hands them all back as warm idle connections.
+     */
+    private void warmPool(int connections) {
+        List<Connection> held = new ArrayList<>();
+        try {
+            for (int i = 0; i < connections; i++) {
+                Connection conn = DatabaseUtil.getConnection();
+                held.add(conn);
+                try (Statement st = conn.createStatement()) {
+                    st.execute("SELECT 1");
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            System.err.println("Warmup: opened " + held.size() + " of " + connections
+                    + " connections: " + e.getMessage());
+        } finally {
+            for (Connection conn : held) {
+                try {
+                    conn.close();
+                } catch (SQLException ignored) {
+                    // Pool drops it
+                }
+            }
+        }
+    }
+
+    private static final class DiscardingWriter extends Writer {
+        @Override
+        public void write(char[] cbuf, int off, int len) {}
+
+        @Override
+        public void flush() {}
+
+        @Override
+        public void close() {}
+    }
+}
@@ -0,0 +1,430 @@
+package com.campus.lostfound.controller;
+
+import com.campus.lostfound.filter.AuthFilter;
+import com.campus.lostfound.util.DaoExecutor;
+import com.campus.lostfound.util.DatabaseUtil;
+import com.campus.lostfound.util.Env;
+import com.campus.lostfound.util.ReplicaRouter;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletResponse;
+import javax.servlet.WriteListener;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs servlet handlers on the DaoExecutor instead of the container thread.
+ *
+ * The request is put into async mode, the handler runs on a DAO worker and
+ * the response is completed when it returns, fails or times out. When the
+ * executor is full the request is rejected with 503 and Retry-After.
+ * Set ASYNC_SERVLETS_ENABLED=false to run handlers inline.
+ *
+ * A timed-out handler is not stopped (a JDBC call does not answer to
+ * interrupts), but it writes through a GuardedResponse: once the timeout
+ * has answered and completed the request, whatever the handler still does
+ * to the response is dropped. The container recycles the response after
+ * complete(), so those writes would otherwise land in another request.
+ */
+final class AsyncDispatch {
+
+    interface Handler {
+        void handle(HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException;
+    }
+
+    static final boolean ENABLED = Env.getBoolean("ASYNC_SERVLETS_ENABLED", true);
+    static final long TIMEOUT_MS = Env.getInt("ASYNC_TIMEOUT_MS", 15000);
+    static final String RETRY_AFTER_SECONDS = "2";
+
+    private AsyncDispatch() {}
+
+    static void dispatch(HttpServletRequest request, HttpServletResponse response, Handler handler)
+            throws IOException, ServletException {
+        if (!ENABLED || !request.isAsyncSupported()) {
+            handle(request, response, handler);
+            return;
+        }
+
+        // The container resets path information once this thread leaves the
+        // servlet, so the handler gets a copy taken now.
+        HttpServletRequest snapshot = new PathSnapshot(request);
+        AsyncContext ctx = request.startAsync(snapshot, response);
+        ctx.setTimeout(TIMEOUT_MS);
+        // Whoever finishes it first (worker or timeout) owns completing the response
+        Completion finished = new Completion();
+        GuardedResponse guarded = new GuardedResponse(response, finished);
+        ctx.addListener(new AsyncListener() {
+            @Override
+            public void onTimeout(AsyncEvent event) throws IOException {
+                if (finished.finish()) {
+                    writeError(response, HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Request timed out");
+                    closeBody(response);
+                    ctx.complete();
+                }
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                if (finished.finish()) {
+                    ctx.complete();
+                }
+            }
+
+            @Override
+            public void onComplete(AsyncEvent event) {}
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {}
+        });
+
+        try {
+            DaoExecutor.shared().execute(() -> run(ctx, finished, snapshot, guarded, handler));
+        } catch (RejectedExecutionException e) {
+            if (finished.finish()) {
+                response.setHeader("Retry-After", RETRY_AFTER_SECONDS);
+                writeError(response, HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Server busy, please retry");
+                closeBody(response);
+                ctx.complete();
+            }
+        }
+    }
+
+    private static void run(AsyncContext ctx, Completion finished, HttpServletRequest request,
+                            GuardedResponse response, Handler handler) {
+        try {
+            handle(request, response, handler);
+        } catch (Throwable t) {
+            t.printStackTrace();
+            // Dropped by the guard if the timeout has already answered
+            writeError(response, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Internal server error");
+        } finally {
+            if (finished.finish()) {
+                closeBody(response.getResponse());
+                ctx.complete();
+            }
+        }
+    }
+
+    /**
+     * Runs the handler with read-your-writes routing: a user who wrote
+     * recently reads from the primary, and any write request starts (or
+     * extends) that window once it has been handled.
+     */
+    private static void handle(HttpServletRequest request, HttpServletResponse response, Handler handler)
+            throws IOException, ServletException {
+        String userId = AuthFilter.userId(request);
+        ReplicaRouter.PrimaryReads pin = DatabaseUtil.wroteRecently(userId) ? DatabaseUtil.pinPrimaryReads() : null;
+        try {
+            handler.handle(request, response);
+        } finally {
+            if (pin != null) {
+                pin.close();
+            }
+            if (userId != null && !"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod())) {
+                DatabaseUtil.recordWrite(userId);
+            }
+        }
+    }
+
+    /**
+     * Request whose servlet path, path info and context path stay as they
+     * were when the request entered the servlet.
+     */
+    private static final class PathSnapshot extends HttpServletRequestWrapper {
+        private final String contextPath;
+        private final String servletPath;
+        private final String pathInfo;
+
+        PathSnapshot(HttpServletRequest request) {
+            super(request);
+            this.contextPath = request.getContextPath();
+            this.servletPath = request.getServletPath();
+            this.pathInfo = request.getPathInfo();
+        }
+
+        @Override
+        public String getContextPath() {
+            return contextPath;
+        }
+
+        @Override
+        public String getServletPath() {
+            return servletPath;
+        }
+
+        @Override
+        public String getPathInfo() {
+            return pathInfo;
+        }
+    }
+
+    /**
+     * Finished flag of one dispatched request. finish() takes the same lock
+     * as GuardedResponse's writes, so once it returns no handler write is in
+     * progress and none will start.
+     */
+    private static final class Completion {
+        private boolean done;
+
+        /** True for the one caller that finishes the request. */
+        synchronized boolean finish() {
+            if (done) {
+                return false;
+            }
+            done = true;
+            return true;
+        }
+    }
+
+    private interface IOAction {
+        void run() throws IOException;
+    }
+
+    /**
+     * The response as the handler sees it: every change to it, and every
+     * byte or char of body, is dropped once the request has been finished.
+     * Getters still read through.
+     */
+    private static final class GuardedResponse extends HttpServletResponseWrapper {
+        private final Completion finished;
+        private PrintWriter writer;
+        private ServletOutputStream stream;
+
+        GuardedResponse(HttpServletResponse response, Completion finished) {
+            super(response);
+            this.finished = finished;
+        }
+
+        private void unlessFinished(Runnable action) {
+            synchronized (finished) {
+                if (!finished.done) {
+                    action.run();
+                }
+            }
+        }
+
+        private void unlessFinishedIO(IOAction action) throws IOException {
+            synchronized (finished) {
+                if (!finished.done) {
+                    action.run();
+                }
+            }
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            synchronized (finished) {
+                if (writer == null) {
+                    Writer target = finished.done ? new StringWriter() : super.getWriter();
+                    // Unbuffered, so every write reaches the guard before the container
+                    writer = new PrintWriter(new Writer() {
+                        @Override
+                        public void write(char[] cbuf, int off, int len) throws IOException {
+                            unlessFinishedIO(() -> target.write(cbuf, off, len));
+                        }
+
+                        @Override
+                        public void flush() throws IOException {
+                            unlessFinishedIO(target::flush);
+                        }
+
+                        @Override
+                        public void close() throws IOException {
+                            unlessFinishedIO(target::close);
+                        }
+                    });
+                }
+                return writer;
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            synchronized (finished) {
+                if (stream == null) {
+                    ServletOutputStream target = finished.done ? null : super.getOutputStream();
+                    stream = new ServletOutputStream() {
+                        @Override
+                        public void write(int b) throws IOException {
+                            unlessFinishedIO(() -> target.write(b));
+                        }
+
+                        @Override
+                        public void write(byte[] b, int off, int len) throws IOException {
+                            unlessFinishedIO(() -> target.write(b, off, len));
+                        }
+
+                        @Override
+                        public void flush() throws IOException {
+                            unlessFinishedIO(target::flush);
+                        }
+
+                        @Override
+                        public void close() throws IOException {
+                            unlessFinishedIO(target::close);
+                        }
+
+                        @Override
+                        public boolean isReady() {
+                            synchronized (finished) {
+                                return finished.done || target.isReady();
+                            }
+                        }
+
+                        @Override
+                        public void setWriteListener(WriteListener listener) {
+                            unlessFinished(() -> target.setWriteListener(listener));
+                        }
+                    };
+                }
+                return stream;
+            }
+        }
+
+        @Override
+        public void setStatus(int sc) {
+            unlessFinished(() -> super.setStatus(sc));
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            unlessFinishedIO(() -> super.sendError(sc));
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            unlessFinishedIO(() -> super.sendError(sc, msg));
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            unlessFinishedIO(() -> super.sendRedirect(location));
+        }
+
+        @Override
+        public void setHeader(String name, String value) {
+            unlessFinished(() -> super.setHeader(name, value));
+        }
+
+        @Override
+        public void addHeader(String name, String value) {
+            unlessFinished(() -> super.addHeader(name, value));
+        }
+
+        @Override
+        public void setIntHeader(String name, int value) {
+            unlessFinished(() -> super.setIntHeader(name, value));
+        }
+
+        @Override
+        public void addIntHeader(String name, int value) {
+            unlessFinished(() -> super.addIntHeader(name, value));
+        }
+
+        @Override
+        public void setDateHeader(String name, long date) {
+            unlessFinished(() -> super.setDateHeader(name, date));
+        }
+
+        @Override
+        public void addDateHeader(String name, long date) {
+            unlessFinished(() -> super.addDateHeader(name, date));
+        }
+
+        @Override
+        public void addCookie(Cookie cookie) {
+            unlessFinished(() -> super.addCookie(cookie));
+        }
+
+        @Override
+        public void setContentType(String type) {
+            unlessFinished(() -> super.setContentType(type));
+        }
+
+        @Override
+        public void setCharacterEncoding(String charset) {
+            unlessFinished(() -> super.setCharacterEncoding(charset));
+        }
+
+        @Override
+        public void setContentLength(int len) {
+            unlessFinished(() -> super.setContentLength(len));
+        }
+
+        @Override
+        public void setContentLengthLong(long len) {
+            unlessFinished(() -> super.setContentLengthLong(len));
+        }
+
+        @Override
+        public void setLocale(Locale loc) {
+            unlessFinished(() -> super.setLocale(loc));
+        }
+
+        @Override
+        public void setBufferSize(int size) {
+            unlessFinished(() -> super.setBufferSize(size));
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            unlessFinishedIO(super::flushBuffer);
+        }
+
+        @Override
+        public void resetBuffer() {
+            unlessFinished(super::resetBuffer);
+        }
+
+        @Override
+        public void reset() {
+            unlessFinished(super::reset);
+        }
+    }
+
+    private static void writeError(HttpServletResponse response, int status, String message) {
+        if (response.isCommitted()) {
+            return;
+        }
+        try {
+            response.resetBuffer();
+            response.setStatus(status);
+            response.setContentType("application/json");
+            response.setCharacterEncoding("UTF-8");
+            response.getWriter().write("{\"error\": \"" + message + "\"}");
+        } catch (IOException | IllegalStateException e) {
+            // Client is gone or the body is already streaming; nothing more to send.
+        }
+    }
+
+    /**
+     * Close the body so response wrappers (e.g. compression) can finish it
+     * before the request completes.
+     */
+    private static void closeBody(ServletResponse response) {
+        try {
+            response.getWriter().close();
+        } catch (IllegalStateException e) {
+            try {
+                response.getOutputStream().close();
+            } catch (IOException | IllegalStateException ignored) {
+                // Nothing was written.
+            }
+        } catch (IOException ignored) {
+            // Client disconnected.
+        }
+    }
+}
@@ -1,10 +1,18 @@
 package com.campus.lostfound.controller;
 
+import com.campus.lostfound.bootstrap.AppServices;
+import com.campus.lostfound.dao.RegistrationResult;
 import com.campus.lostfound.dao.UserDAO;
-import com.campus.lostfound.dao.UserDAOPostgresImpl;
+import com.campus.lostfound.dao.UserPresenceFilter;
+import com.campus.lostfound.filter.AuthFilter;
 import com.campus.lostfound.model.User;
+import com.campus.lostfound.util.DatabaseUtil;
+import com.campus.lostfound.util.PasswordHasher;
+import com.campus.lostfound.util.ReplicaRouter;
+import com.campus.lostfound.util.TokenService;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonObject;
 
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
@@ -13,27 +21,67 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import java.io.IOException;
+import java.util.concurrent.RejectedExecutionException;
 
 // Add webServlet authentication 
-@WebServlet("/api/auth/*")
+@WebServlet(value = "/api/auth/*", asyncSupported = true)
     public class AuthServlet extends HttpServlet {
+    private static final long serialVersionUID = 1L;
     private UserDAO userDAO;
+    private UserPresenceFilter presence;
+    private PasswordHasher passwordHasher;
+    private TokenService tokens;
     private Gson gson = new Gson();
         @Override
     public void init() throws ServletException {
-       String dbUrl = System.getenv("DATABASE_URL");
-        if (dbUrl == null || dbUrl.isEmpty()) {
-            throw new ServletException("DATABASE_URL environment variable not set");
-        }
         try {
-            com.campus.lostfound.util.DatabaseUtil.init(dbUrl);
-            userDAO = new UserDAOPostgresImpl(); // No connection passed, it uses DatabaseUtil
-        } catch (Exception e) {
-            throw new ServletException("Failed to initialize AuthServlet", e);
+            AppServices app = AppServices.get(getServletContext());
+            userDAO = app.getUserDAO();
+            presence = app.getUserPresence();
+            passwordHasher = PasswordHasher.shared();
+            tokens = TokenService.shared();
+        } catch (RuntimeException e) {
+            throw new ServletException("Failed to initialize AuthServlet: " + e.getMessage(), e);
         }
     }
           @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        AsyncDispatch.dispatch(req, resp, this::handleGet);
+    }
+    private void handleGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding("UTF-8");
+        if ("/available".equals(req.getPathInfo())) {
+            handleAvailable(req, resp);
+        } else {
+            resp.setStatus(HttpServletResponse.SC_NOT_FOUND);
+        }
+    }
+    /**
+     * GET /api/auth/available?username=...&email=... ; either parameter may be omitted.
+     */
+    private void handleAvailable(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        String username = req.getParameter("username");
+        String email = req.getParameter("email");
+        if ((username == null || username.isEmpty()) && (email == null || email.isEmpty())) {
+            resp.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            resp.getWriter().write(gson.toJson("username or email is required"));
+            return;
+        }
+        JsonObject body = new JsonObject();
+        if (username != null && !username.isEmpty()) {
+            body.addProperty("usernameAvailable", presence.isUsernameAvailable(username));
+        }
+        if (email != null && !email.isEmpty()) {
+            body.addProperty("emailAvailable", presence.isEmailAvailable(email));
+        }
+        resp.getWriter().write(gson.toJson(body));
+    }
+          @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        AsyncDispatch.dispatch(req, resp, this::handlePost);
+    }
+    private void handlePost(HttpServletRequest req, HttpServletResponse resp) throws IOException {
         String path = req.getPathInfo();
         resp.setContentType("application/json");
         resp.setCharacterEncoding("UTF-8");
@@ -41,6 +89,8 @@ import java.io.IOException;
                 handleRegister(req, resp);
             } else if ("/login".equals(path)) {
             handleLogin(req, resp);
+            } else if ("/logout".equals(path)) {
+            handleLogout(req, resp);
             } else {
             resp.setStatus(HttpServletResponse.SC_NOT_FOUND);
         }
@@ -53,34 +103,71 @@ import java.io.IOException;
                 resp.getWriter().write(gson.toJson("Missing field(s)"));
                 return;
             }
-            if (userDAO.findByUsername(newUser.getUsername()) != null) {
+            newUser.setId(null);
+            newUser.setPassword(passwordHasher.hash(newUser.getPassword()));
+            // One statement: inserts, or reports which unique field is taken
+            RegistrationResult result = userDAO.register(newUser);
+            if (result == RegistrationResult.USERNAME_TAKEN) {
                 resp.setStatus(HttpServletResponse.SC_CONFLICT);
                 resp.getWriter().write(gson.toJson("Username already taken"));
                 return;
             }
-            userDAO.createUser(newUser);
+            if (result == RegistrationResult.EMAIL_TAKEN) {
+                resp.setStatus(HttpServletResponse.SC_CONFLICT);
+                resp.getWriter().write(gson.toJson("Email already registered"));
+                return;
+            }
+            presence.add(newUser.getUsername(), newUser.getEmail());
             resp.setStatus(HttpServletResponse.SC_CREATED);
             resp.getWriter().write(gson.toJson("User created successfully"));
+        } catch (RejectedExecutionException e) {
+            busy(resp);
         } catch (Exception e) {
             resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
             resp.getWriter().write(gson.toJson("Error: " + e.getMessage()));
         }
     }
     private void handleLogin(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        // Primary, so an account registered a moment ago can log in before replicas catch up
+        ReplicaRouter.PrimaryReads primary = DatabaseUtil.pinPrimaryReads();
         try {
             User creds = gson.fromJson(req.getReader(), User.class);
-            User user = userDAO.findByUsername(creds.getUsername());
-            
-            if (user != null && user.getPassword().equals(creds.getPassword())) {
+            User user = creds != null && creds.getUsername() != null ? userDAO.findByUsername(creds.getUsername()) : null;
+
+            // Unknown users still cost one hash so timing does not reveal which usernames exist
+            if (passwordHasher.verify(creds != null ? creds.getPassword() : null, user != null ? user.getPassword() : null)) {
+                if (passwordHasher.needsRehash(user.getPassword())) {
+                    // Upgrade plaintext (or weaker) stored passwords on successful login
+                    userDAO.updatePassword(user.getId(), passwordHasher.hash(creds.getPassword()));
+                }
                 user.setPassword(null);
-                resp.getWriter().write(gson.toJson(user));
+                JsonObject body = gson.toJsonTree(user).getAsJsonObject();
+                body.addProperty("token", tokens.issue(user.getId()));
+                body.addProperty("expiresIn", tokens.getTtlSeconds());
+                resp.getWriter().write(gson.toJson(body));
             } else {
                 resp.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                 resp.getWriter().write(gson.toJson("Invalid credentials"));
             }
+        } catch (RejectedExecutionException e) {
+            busy(resp);
         } catch (Exception e) {
             resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
             resp.getWriter().write(gson.toJson("Error: " + e.getMessage()));
+        } finally {
+            primary.close();
         }
     }
+    private void handleLogout(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        TokenService.Session session = tokens.verify(AuthFilter.bearerToken(req));
+        if (session != null) {
+            tokens.revoke(session);
+        }
+        resp.setStatus(HttpServletResponse.SC_NO_CONTENT);
+    }
+    private static void busy(HttpServletResponse resp) throws IOException {
+        resp.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        resp.setHeader("Retry-After", "1");
+        resp.getWriter().write("{\"error\": \"Server busy, please retry\"}");
+    }
 }
@@ -0,0 +1,53 @@
+package com.campus.lostfound.controller;
+
+import com.campus.lostfound.bootstrap.AppServices;
+import com.campus.lostfound.bootstrap.Readiness;
+
+import com.google.gson.JsonObject;
+
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Load balancer probes:
+ * GET /api/health/live    200 while the process is serving requests
+ * GET /api/health/ready   200 once AppBootstrap has migrated and warmed up, 503 before or on failure
+ *
+ * Both answer from memory and never touch the database.
+ */
+@WebServlet("/api/health/*")
+public class HealthServlet extends HttpServlet {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding("UTF-8");
+        resp.setHeader("Cache-Control", "no-store");
+
+        String path = req.getPathInfo();
+        JsonObject body = new JsonObject();
+        if ("/live".equals(path)) {
+            body.addProperty("status", "up");
+        } else if ("/ready".equals(path)) {
+            Readiness readiness = AppServices.get(getServletContext()).getReadiness();
+            if (!readiness.isReady()) {
+                resp.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            }
+            body.addProperty("status", readiness.getState().name().toLowerCase());
+            body.addProperty("detail", readiness.getDetail());
+            body.addProperty("schemaVersion", readiness.getSchemaVersion());
+            if (readiness.getWarmupMillis() >= 0) {
+                body.addProperty("warmupMs", readiness.getWarmupMillis());
+            }
+        } else {
+            resp.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            body.addProperty("error", "Endpoint not found");
+        }
+        resp.getWriter().write(body.toString());
+    }
+}
@@ -1,87 +1,364 @@
 package com.campus.lostfound.controller;
 
+import com.campus.lostfound.bootstrap.AppServices;
+import com.campus.lostfound.dao.DateRange;
 import com.campus.lostfound.dao.ItemDAO;
-import com.campus.lostfound.dao.ItemDAOPostgresImpl;
+import com.campus.lostfound.dao.ItemPhotoDAO;
+import com.campus.lostfound.dao.ItemQuery;
+import com.campus.lostfound.dao.ItemSink;
+import com.campus.lostfound.dao.PageCursor;
+import com.campus.lostfound.facet.FacetIndex;
+import com.campus.lostfound.filter.AuthFilter;
+import com.campus.lostfound.match.MatchCandidate;
+import com.campus.lostfound.match.MatchEngine;
 
 import com.campus.lostfound.model.Item;
+import com.campus.lostfound.model.ItemPhoto;
+import com.campus.lostfound.photo.PhotoStore;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 
 import javax.servlet.ServletException;
+import javax.servlet.annotation.MultipartConfig;
 import javax.servlet.annotation.WebServlet;
 
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.Part;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.PrintWriter;
-
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
 /**
  * Unified Servlet to handle:
  * POST /api/items/lost
  * POST /api/items/found
+ * POST /api/items/batch    (JSON array of items, each with type LOST or FOUND)
  * GET /api/items
- * GET /api/items/search
+ * GET /api/items/search   (itemName, category, location; q for ranked full-text search)
+ * GET /api/items/{id}/matches   (open items of the opposite type that may be the same object)
+ * GET /api/items/facets   (counts by category, location, type, status and day; takes the search filters plus type)
+ * POST /api/items/{id}/photos   (multipart/form-data, the image in a part named "photo"; owner only)
+ * GET /api/items/{id}/photos    (the item's photos, with URLs served by PhotoServlet)
+ *
+ * The listing, search and facets endpoints take an inclusive date range:
+ * dateFrom/dateTo (yyyy-MM-dd), lastDays=N, or the older date (a day,
+ * yyyy-MM or yyyy).
+ *
+ * GET endpoints are paginated with ?limit=N&after=CURSOR; when more results
+ * exist the cursor for the next page is returned in the X-Next-Cursor header.
+ * Pages are streamed from the DAO straight into the response, so memory use
+ * does not grow with the page size. Handlers run on the DAO executor via
+ * AsyncDispatch so container threads are not held during JDBC calls.
  */
 
-@WebServlet("/api/items/*")
+@WebServlet(value = "/api/items/*", asyncSupported = true)
+// Parts above 64 KB are spooled to disk by the container, never held in memory
+@MultipartConfig(fileSizeThreshold = 64 * 1024, maxFileSize = ItemServlet.MAX_PHOTO_BYTES,
+        maxRequestSize = ItemServlet.MAX_PHOTO_BYTES + 64 * 1024)
 public class ItemServlet extends HttpServlet {
     private static final long serialVersionUID = 1L;
+    static final int DEFAULT_PAGE_SIZE = 50;
+    static final int MAX_PAGE_SIZE = 1000;
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final int MAX_BATCH_SIZE = 1000;
+    static final int DEFAULT_MATCH_LIMIT = 10;
+    static final int DEFAULT_FACET_LIMIT = 20;
+    public static final long MAX_PHOTO_BYTES = 10L * 1024 * 1024;
+
     private ItemDAO itemDAO;
+    private MatchEngine matchEngine;
+    private FacetIndex facetIndex;
+    private ItemPhotoDAO photoDAO;
+    private PhotoStore photoStore;
+    private int maxPhotosPerItem;
     private Gson gson;
 
     @Override
     public void init() throws ServletException {
         super.init();
-        String databaseUrl = System.getenv("DATABASE_URL");
-        if (databaseUrl != null && !databaseUrl.isEmpty()) {
-            try {
-                com.campus.lostfound.util.DatabaseUtil.init(databaseUrl);
-                itemDAO = new ItemDAOPostgresImpl();
-                System.out.println("Using Postgres DAO");
-            } catch (Exception e) {
-                throw new ServletException("Failed to initialize Postgres DAO", e);
-            }
-        } else {
-            throw new ServletException("DATABASE_URL environment variable is required for Neon PostgreSQL. Please configure it.");
+        try {
+            AppServices app = AppServices.get(getServletContext());
+            itemDAO = app.getItemDAO();
+            matchEngine = app.getMatchEngine();
+            facetIndex = app.getFacetIndex();
+            photoDAO = app.getItemPhotoDAO();
+            photoStore = app.getPhotoStore();
+            maxPhotosPerItem = app.getMaxPhotosPerItem();
+        } catch (IllegalStateException e) {
+            throw new ServletException(e.getMessage(), e);
         }
-        gson = new GsonBuilder().setDateFormat("yyyy-MM-dd").create();
+        gson = createGson();
+    }
+
+    /** Gson configured the way every response of this servlet is written. */
+    public static Gson createGson() {
+        return new GsonBuilder().setDateFormat("yyyy-MM-dd").create();
     }
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        AsyncDispatch.dispatch(request, response, this::handleGet);
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        AsyncDispatch.dispatch(request, response, this::handlePost);
+    }
+
+    @Override
+    protected void doDelete(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        AsyncDispatch.dispatch(request, response, this::handleDelete);
+    }
+
+    private void handleGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
 
         String pathInfo = request.getPathInfo();
         PrintWriter out = response.getWriter();
 
-        if (pathInfo == null || pathInfo.equals("/") || pathInfo.isEmpty()) {
-            String type = request.getParameter("type");
-            List<Item> items = (type != null && !type.isEmpty()) ? itemDAO.findByType(type) : itemDAO.findAll();
-            out.print(gson.toJson(items));
-        } else if (pathInfo.equalsIgnoreCase("/search")) {
-            String itemName = request.getParameter("itemName");
-            String category = request.getParameter("category");
-            String location = request.getParameter("location");
-            String date = request.getParameter("date");
-            List<Item> results = itemDAO.search(itemName, category, location, date);
-            out.print(gson.toJson(results));
+        boolean listing = pathInfo == null || pathInfo.equals("/") || pathInfo.isEmpty();
+        boolean search = !listing && pathInfo.equalsIgnoreCase("/search");
+        if (!listing && pathInfo.equalsIgnoreCase("/facets")) {
+            handleFacets(request, response, out);
+            out.flush();
+            return;
+        }
+
+        String[] parts = listing ? new String[0] : pathInfo.split("/");
+        if (parts.length == 3 && "matches".equalsIgnoreCase(parts[2])) {
+            handleMatches(parts[1], request, response, out);
+            out.flush();
+            return;
+        }
+        if (parts.length == 3 && "photos".equalsIgnoreCase(parts[2])) {
+            handleListPhotos(parts[1], response, out);
+            out.flush();
+            return;
+        }
+
+        if (listing || search) {
+            ItemQuery query;
+            int limit;
+            PageCursor after;
+            try {
+                DateRange dates = DateRange.parse(request.getParameter("dateFrom"), request.getParameter("dateTo"),
+                        request.getParameter("lastDays"), request.getParameter("date"), LocalDate.now());
+                if (listing) {
+                    query = new ItemQuery(request.getParameter("type"), null, null, null, dates);
+                } else {
+                    String itemName = request.getParameter("itemName");
+                    String category = request.getParameter("category");
+                    String location = request.getParameter("location");
+                    query = new ItemQuery(null, request.getParameter("q"), itemName, category, location, dates);
+                }
+                limit = parseLimit(request.getParameter("limit"));
+                String afterParam = request.getParameter("after");
+                after = (afterParam != null && !afterParam.isEmpty()) ? PageCursor.decode(afterParam) : null;
+                if (after != null && after.isRanked() != query.isRanked()) {
+                    throw new IllegalArgumentException("Cursor does not belong to this query");
+                }
+            } catch (IllegalArgumentException e) {
+                response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                out.print("{\"error\": \"" + e.getMessage() + "\"}");
+                out.flush();
+                return;
+            }
+            JsonArraySink sink = new JsonArraySink(response, out);
+            try {
+                itemDAO.streamPage(query, after, limit, sink);
+                sink.end();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+                if (response.isCommitted()) {
+                    // Part of the array is already on the wire; all we can do is cut it short.
+                    return;
+                }
+                response.resetBuffer();
+                response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                out.print("{\"error\": \"Failed to load items\"}");
+            }
         } else {
             response.setStatus(HttpServletResponse.SC_NOT_FOUND);
             out.print("{\"error\": \"Endpoint not found\"}");
         }
         out.flush();
     }
-    @Override
-    protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+
+    /**
+     * Writes facet counts for the items matching the search filters (all
+     * items when none are given), answered from the in-memory FacetIndex.
+     */
+    private void handleFacets(HttpServletRequest request, HttpServletResponse response,
+                              PrintWriter out) throws IOException {
+        if (facetIndex == null || !facetIndex.isReady()) {
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader("Retry-After", "5");
+            out.print("{\"error\": \"Facet counts are not available yet\"}");
+            return;
+        }
+        ItemQuery query;
+        int limit;
+        try {
+            DateRange dates = DateRange.parse(request.getParameter("dateFrom"), request.getParameter("dateTo"),
+                    request.getParameter("lastDays"), request.getParameter("date"), LocalDate.now());
+            query = new ItemQuery(request.getParameter("type"), request.getParameter("q"),
+                    request.getParameter("itemName"), request.getParameter("category"),
+                    request.getParameter("location"), dates);
+            String value = request.getParameter("limit");
+            limit = value == null || value.isEmpty() ? DEFAULT_FACET_LIMIT : parseLimit(value);
+        } catch (IllegalArgumentException e) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            out.print("{\"error\": \"" + e.getMessage() + "\"}");
+            return;
+        }
+        gson.toJson(facetIndex.counts(query, limit, LocalDate.now()), out);
+    }
+
+    private void handleListPhotos(String itemId, HttpServletResponse response, PrintWriter out) {
+        if (photoDAO == null) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            out.print("{\"error\": \"Photos are disabled\"}");
+            return;
+        }
+        try {
+            List<ItemPhoto> photos = photoDAO.findByItem(itemId);
+            JsonWriter writer = new JsonWriter(out);
+            writer.beginArray();
+            for (ItemPhoto photo : photos) {
+                writePhoto(writer, photo);
+            }
+            writer.endArray();
+            writer.flush();
+        } catch (RuntimeException | IOException e) {
+            e.printStackTrace();
+            response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            out.print("{\"error\": \"Failed to load photos\"}");
+        }
+    }
+
+    private void writePhoto(JsonWriter writer, ItemPhoto photo) throws IOException {
+        String base = getServletContext().getContextPath() + "/api/photos/";
+        writer.beginObject();
+        writer.name("hash").value(photo.getHash());
+        writer.name("contentType").value(photo.getContentType());
+        writer.name("size").value(photo.getSize());
+        writer.name("url").value(base + photo.getHash() + "." + PhotoStore.extension(photo.getContentType()));
+        writer.name("thumbnailUrl").value(base + "thumbs/" + photo.getHash() + ".jpg");
+        writer.endObject();
+    }
+
+    /**
+     * Writes the ranked candidates for one item as [{"item": ..., "score": ...}].
+     */
+    private void handleMatches(String itemId, HttpServletRequest request, HttpServletResponse response,
+                               PrintWriter out) throws IOException {
+        if (matchEngine == null || !matchEngine.isReady()) {
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader("Retry-After", "5");
+            out.print("{\"error\": \"Matching is not available yet\"}");
+            return;
+        }
+        int limit;
+        try {
+            String value = request.getParameter("limit");
+            limit = value == null || value.isEmpty() ? DEFAULT_MATCH_LIMIT : parseLimit(value);
+        } catch (IllegalArgumentException e) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            out.print("{\"error\": \"" + e.getMessage() + "\"}");
+            return;
+        }
+        if (!matchEngine.isIndexed(itemId)) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            out.print("{\"error\": \"Item not found or no longer open\"}");
+            return;
+        }
+        JsonWriter writer = new JsonWriter(out);
+        writer.beginArray();
+        for (MatchCandidate candidate : matchEngine.matches(itemId, limit)) {
+            writer.beginObject();
+            writer.name("item");
+            gson.toJson(candidate.getItem(), Item.class, writer);
+            writer.name("score").value(Math.round(candidate.getScore() * 1000) / 1000.0);
+            writer.endObject();
+        }
+        writer.endArray();
+        writer.flush();
+    }
+
+    /**
+     * Writes streamed items as a JSON array, one element at a time.
+     */
+    private class JsonArraySink implements ItemSink {
+        private final HttpServletResponse response;
+        private final JsonWriter writer;
+
+        JsonArraySink(HttpServletResponse response, PrintWriter out) {
+            this.response = response;
+            this.writer = new JsonWriter(out);
+        }
+
+        @Override
+        public void begin(PageCursor nextCursor) throws IOException {
+            if (nextCursor != null) {
+                response.setHeader(NEXT_CURSOR_HEADER, nextCursor.encode());
+            }
+            writer.beginArray();
+        }
+
+        @Override
+        public void item(Item item) throws IOException {
+            gson.toJson(item, Item.class, writer);
+        }
+
+        void end() throws IOException {
+            writer.endArray();
+            writer.flush();
+        }
+    }
+
+    private static int parseLimit(String value) {
+        if (value == null || value.isEmpty()) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        int limit;
+        try {
+            limit = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("limit must be a number");
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        return Math.min(limit, MAX_PAGE_SIZE);
+    }
+
+    private void handlePost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
 
         String pathInfo = request.getPathInfo();
+        if ("/batch".equalsIgnoreCase(pathInfo)) {
+            handleBatch(request, response);
+            return;
+        }
+        String[] parts = pathInfo == null ? new String[0] : pathInfo.split("/");
+        if (parts.length == 3 && "photos".equalsIgnoreCase(parts[2])) {
+            handlePhotoUpload(parts[1], request, response);
+            return;
+        }
         StringBuilder sb = new StringBuilder();
         String line;
         try (BufferedReader reader = request.getReader()) {
@@ -94,13 +371,10 @@ public class ItemServlet extends HttpServlet {
             if (item == null) {
                 throw new Exception("Invalid JSON or empty body");
             }
-            // Check Authenticated User
-            String userId = item.getUserId();
-            if (userId == null || userId.isEmpty()) {
-                // Fallback to checking header
-                userId = request.getHeader("X-User-Id");
-                if (userId != null) item.setUserId(userId);
-            } 
+            // Owner is the authenticated user, never a client-supplied id
+            item.setUserId(AuthFilter.userId(request));
+            // Ids are always generated: the partitioned items table cannot enforce their uniqueness
+            item.setId(null);
             if (item.getUserId() == null || item.getUserId().isEmpty()) {
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                 response.getWriter().write("{\"error\": \"Unauthorized. User ID required.\"}");
@@ -123,13 +397,192 @@ public class ItemServlet extends HttpServlet {
             itemDAO.save(item);
             response.setStatus(HttpServletResponse.SC_CREATED);
             response.getWriter().print(gson.toJson(item));
+        } catch (RejectedExecutionException e) {
+            writeBusy(response);
         } catch (Exception e) {
             response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
             response.getWriter().write("{\"error\": \"" + e.getMessage() + "\"}");
         }
     }
-    @Override
-    protected void doDelete(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+
+    /**
+     * Reads the array element by element, validates each item and inserts
+     * the valid ones in a single transaction. Responds with one result per
+     * input element, in order.
+     */
+    private void handleBatch(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String userId = AuthFilter.userId(request);
+        List<BatchResult> results = new ArrayList<>();
+        List<Item> valid = new ArrayList<>();
+        List<BatchResult> pending = new ArrayList<>();
+
+        try (JsonReader reader = new JsonReader(request.getReader())) {
+            if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+                throw new JsonParseException("Expected a JSON array of items");
+            }
+            reader.beginArray();
+            int index = 0;
+            while (reader.hasNext()) {
+                if (index == MAX_BATCH_SIZE) {
+                    response.setStatus(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+                    response.getWriter().write("{\"error\": \"Batch is limited to " + MAX_BATCH_SIZE + " items\"}");
+                    return;
+                }
+                Item item = gson.fromJson(reader, Item.class);
+                BatchResult result = new BatchResult(index++);
+                String error = validateBatchItem(item, userId);
+                if (error != null) {
+                    result.status = "invalid";
+                    result.error = error;
+                } else {
+                    valid.add(item);
+                    pending.add(result);
+                }
+                results.add(result);
+            }
+            reader.endArray();
+        } catch (JsonParseException | IllegalStateException | IOException e) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            response.getWriter().write("{\"error\": \"Invalid JSON: " + String.valueOf(e.getMessage()).replace("\"", "'") + "\"}");
+            return;
+        }
+
+        if (valid.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            response.getWriter().print(gson.toJson(results));
+            return;
+        }
+        try {
+            itemDAO.saveAll(valid);
+        } catch (RejectedExecutionException e) {
+            writeBusy(response);
+            return;
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            response.getWriter().write("{\"error\": \"Batch insert failed, no items were saved\"}");
+            return;
+        }
+        for (int i = 0; i < valid.size(); i++) {
+            pending.get(i).status = "created";
+            pending.get(i).id = valid.get(i).getId();
+        }
+        response.setStatus(HttpServletResponse.SC_CREATED);
+        response.getWriter().print(gson.toJson(results));
+    }
+
+    /**
+     * Streams the "photo" part into the PhotoStore and attaches it to the
+     * item. Uploading a photo the item already has returns it with 200.
+     */
+    private void handlePhotoUpload(String itemId, HttpServletRequest request, HttpServletResponse response)
+            throws IOException, ServletException {
+        if (photoStore == null) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            response.getWriter().write("{\"error\": \"Photos are disabled\"}");
+            return;
+        }
+        String contentType = request.getContentType();
+        if (contentType == null || !contentType.toLowerCase().startsWith("multipart/form-data")) {
+            response.setStatus(HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE);
+            response.getWriter().write("{\"error\": \"Expected multipart/form-data with a photo part\"}");
+            return;
+        }
+        Item item = itemDAO.findById(itemId);
+        if (item == null || !AuthFilter.userId(request).equals(item.getUserId())) {
+            response.setStatus(HttpServletResponse.SC_FORBIDDEN);
+            response.getWriter().write("{\"error\": \"Item not found or you do not have permission to add photos\"}");
+            return;
+        }
+        List<ItemPhoto> existing = photoDAO.findByItem(itemId);
+        if (existing.size() >= maxPhotosPerItem) {
+            response.setStatus(HttpServletResponse.SC_CONFLICT);
+            response.getWriter().write("{\"error\": \"An item can have at most " + maxPhotosPerItem + " photos\"}");
+            return;
+        }
+
+        Part part;
+        try {
+            part = request.getPart("photo");
+        } catch (IllegalStateException e) {
+            // Over maxFileSize or maxRequestSize
+            response.setStatus(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+            response.getWriter().write("{\"error\": \"Photo is larger than " + (MAX_PHOTO_BYTES / (1024 * 1024)) + " MB\"}");
+            return;
+        }
+        if (part == null || part.getSize() == 0) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            response.getWriter().write("{\"error\": \"Missing photo part\"}");
+            return;
+        }
+        PhotoStore.Stored stored;
+        try (InputStream in = part.getInputStream()) {
+            stored = photoStore.store(in);
+        } catch (IllegalArgumentException e) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            response.getWriter().write("{\"error\": \"" + e.getMessage() + "\"}");
+            return;
+        } finally {
+            part.delete();
+        }
+
+        ItemPhoto photo = new ItemPhoto(itemId, stored.getHash(), stored.getContentType(), stored.getSize(), null);
+        boolean added;
+        try {
+            added = photoDAO.add(photo);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            response.getWriter().write("{\"error\": \"Failed to save photo\"}");
+            return;
+        }
+        response.setStatus(added ? HttpServletResponse.SC_CREATED : HttpServletResponse.SC_OK);
+        JsonWriter writer = new JsonWriter(response.getWriter());
+        writePhoto(writer, photo);
+        writer.flush();
+    }
+
+    // The write-behind queue is full; nothing was stored
+    private static void writeBusy(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader("Retry-After", "1");
+        response.getWriter().write("{\"error\": \"Server busy, please retry\"}");
+    }
+
+    /** Normalizes a batch element in place; returns an error message or null if valid. */
+    private static String validateBatchItem(Item item, String userId) {
+        if (item == null) {
+            return "Item must be a JSON object";
+        }
+        item.setUserId(userId);
+        item.setId(null);
+        if (item.getUserId() == null || item.getUserId().isEmpty()) {
+            return "User ID required";
+        }
+        String type = item.getType() != null ? item.getType().trim().toUpperCase() : null;
+        if (!"LOST".equals(type) && !"FOUND".equals(type)) {
+            return "type must be LOST or FOUND";
+        }
+        item.setType(type);
+        item.setStatus(type);
+        if (item.getItemName() == null || item.getItemName().trim().isEmpty()) {
+            return "Item name is required";
+        }
+        return null;
+    }
+
+    private static class BatchResult {
+        final int index;
+        String status;
+        String id;
+        String error;
+
+        BatchResult(int index) {
+            this.index = index;
+        }
+    }
+
+    private void handleDelete(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
 
         resp.setContentType("application/json");
         
@@ -139,19 +592,19 @@ public class ItemServlet extends HttpServlet {
             return;
         }
         String itemId = pathInfo.startsWith("/") ? pathInfo.substring(1) : pathInfo;
-        String userId = req.getHeader("X-User-Id");
+        String userId = AuthFilter.userId(req);
 
         if (userId == null || userId.isEmpty()) {
-            System.out.println("Delete failed: No X-User-Id header");
             resp.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
             resp.getWriter().write("{\"error\": \"Unauthorized\"}");
             return;
         }
-        System.out.println("Processing delete for itemId: " + itemId + " with userId: " + userId);
-
         try {
             boolean deleted = itemDAO.delete(itemId, userId);
             if (deleted) {
+                if (photoDAO != null) {
+                    photoDAO.deleteByItem(itemId);
+                }
                 resp.setStatus(HttpServletResponse.SC_OK);
                 resp.getWriter().write("{\"message\": \"Item deleted\"}");
             } else {
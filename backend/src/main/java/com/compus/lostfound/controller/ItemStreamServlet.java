@@ -0,0 +1,252 @@
+package com.campus.lostfound.controller;
+
+import com.campus.lostfound.events.ItemEvent;
+import com.campus.lostfound.events.ItemEventBus;
+import com.campus.lostfound.metrics.MetricsRegistry;
+import com.campus.lostfound.util.Env;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * GET /api/items/stream - Server-Sent Events feed of item-created and
+ * item-deleted events, so the dashboard no longer has to poll the listing.
+ *
+ * Clients resume with the Last-Event-ID header (sent by EventSource on
+ * reconnect) or ?lastEventId=N. Connections are held with async I/O and
+ * written through WriteListener, so idle clients cost a queue and a socket,
+ * not a thread. A client that falls SSE_MAX_QUEUED_EVENTS behind is
+ * disconnected and resumes from the replay buffer when it reconnects.
+ *
+ * Events are fed into the bus by the ItemEventRelay that AppBootstrap starts.
+ */
+@WebServlet(value = "/api/items/stream", asyncSupported = true)
+public class ItemStreamServlet extends HttpServlet {
+    private static final long serialVersionUID = 1L;
+
+    private static final byte[] HEARTBEAT = ":\n\n".getBytes(StandardCharsets.UTF_8);
+    private static final String RETRY_MS = "3000";
+
+    private final Set<SseClient> clients = ConcurrentHashMap.newKeySet();
+    private ItemEventBus bus;
+    private ScheduledExecutorService heartbeat;
+    private int maxClients;
+    private int maxQueuedEvents;
+
+    @Override
+    public void init() throws ServletException {
+        super.init();
+        bus = ItemEventBus.shared();
+        maxClients = Env.getInt("SSE_MAX_CLIENTS", 5000);
+        maxQueuedEvents = Env.getInt("SSE_MAX_QUEUED_EVENTS", 256);
+
+        int heartbeatSeconds = Env.getInt("SSE_HEARTBEAT_SECONDS", 20);
+        heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "sse-heartbeat");
+            t.setDaemon(true);
+            return t;
+        });
+        // Keeps proxies from timing out idle streams and finds dead sockets
+        heartbeat.scheduleWithFixedDelay(() -> {
+            for (SseClient client : clients) {
+                client.enqueue(HEARTBEAT);
+                client.flush();
+            }
+        }, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+
+        MetricsRegistry.shared().gauge("sse_clients", "Connected item stream clients", clients::size);
+    }
+
+    @Override
+    public void destroy() {
+        heartbeat.shutdownNow();
+        for (SseClient client : clients) {
+            client.close();
+        }
+        super.destroy();
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        long lastEventId;
+        try {
+            lastEventId = parseLastEventId(request);
+        } catch (IllegalArgumentException e) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            response.setContentType("application/json");
+            response.setCharacterEncoding("UTF-8");
+            response.getWriter().write("{\"error\": \"" + e.getMessage() + "\"}");
+            return;
+        }
+        if (!request.isAsyncSupported() || clients.size() >= maxClients) {
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader("Retry-After", "10");
+            response.setContentType("application/json");
+            response.setCharacterEncoding("UTF-8");
+            response.getWriter().write("{\"error\": \"Too many stream clients\"}");
+            return;
+        }
+
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType("text/event-stream");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Cache-Control", "no-cache");
+        // Tell nginx-style proxies not to buffer the stream
+        response.setHeader("X-Accel-Buffering", "no");
+
+        // No-arg startAsync writes to the unwrapped response: a stream has no
+        // use for compression or metrics buffering, and needs WriteListener.
+        AsyncContext ctx = request.startAsync();
+        ctx.setTimeout(0);
+        SseClient client = new SseClient(ctx, ctx.getResponse().getOutputStream());
+        ctx.addListener(client);
+        clients.add(client);
+        client.enqueue(("retry: " + RETRY_MS + "\n\n").getBytes(StandardCharsets.UTF_8));
+        bus.subscribe(client, lastEventId);
+        client.out.setWriteListener(client);
+    }
+
+    private static long parseLastEventId(HttpServletRequest request) {
+        String value = request.getHeader("Last-Event-ID");
+        if (value == null || value.isEmpty()) {
+            value = request.getParameter("lastEventId");
+        }
+        if (value == null || value.trim().isEmpty()) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Last-Event-ID must be a number");
+        }
+    }
+
+    /**
+     * One connected client: a queue of encoded frames drained whenever the
+     * socket can take more, from the publishing thread or the container's
+     * onWritePossible callback, never blocking either.
+     */
+    private class SseClient implements ItemEventBus.Subscriber, WriteListener, AsyncListener {
+        private final AsyncContext ctx;
+        private final ServletOutputStream out;
+        private final Queue<byte[]> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private boolean listening;
+        private boolean needsFlush;
+
+        SseClient(AsyncContext ctx, ServletOutputStream out) {
+            this.ctx = ctx;
+            this.out = out;
+        }
+
+        @Override
+        public boolean offer(ItemEvent event) {
+            return enqueue(event.getFrame());
+        }
+
+        boolean enqueue(byte[] frame) {
+            if (closed.get()) {
+                return false;
+            }
+            if (queued.incrementAndGet() > maxQueuedEvents) {
+                // Too slow to keep up; it reconnects and resumes from the replay buffer
+                close();
+                return false;
+            }
+            queue.add(frame);
+            return true;
+        }
+
+        @Override
+        public synchronized void flush() {
+            // Writes are only legal once the write listener is installed
+            if (!listening || closed.get()) {
+                return;
+            }
+            try {
+                while (out.isReady()) {
+                    byte[] frame = queue.poll();
+                    if (frame == null) {
+                        if (!needsFlush) {
+                            return;
+                        }
+                        needsFlush = false;
+                        out.flush();
+                        continue;
+                    }
+                    queued.decrementAndGet();
+                    out.write(frame);
+                    needsFlush = true;
+                }
+                // Not ready: the container calls onWritePossible when it is
+            } catch (IOException | IllegalStateException e) {
+                close();
+            }
+        }
+
+        @Override
+        public void onWritePossible() {
+            synchronized (this) {
+                listening = true;
+            }
+            flush();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            close();
+        }
+
+        void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            bus.unsubscribe(this);
+            clients.remove(this);
+            queue.clear();
+            try {
+                ctx.complete();
+            } catch (IllegalStateException e) {
+                // Already completed by the container
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            close();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            close();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            close();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {}
+    }
+}
@@ -0,0 +1,86 @@
+package com.campus.lostfound.controller;
+
+import com.campus.lostfound.metrics.MetricsRegistry;
+import com.campus.lostfound.util.AccessLog;
+import com.campus.lostfound.util.ConnectionPool;
+import com.campus.lostfound.util.DaoExecutor;
+import com.campus.lostfound.util.DatabaseUtil;
+
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Prometheus scrape endpoint.
+ *
+ * Serves everything in MetricsRegistry plus connection pool, DAO executor
+ * and access log state sampled at scrape time. Item cache metrics are
+ * registered by AppBootstrap when the cache is enabled.
+ */
+@WebServlet("/api/metrics")
+public class MetricsServlet extends HttpServlet {
+    private static final long serialVersionUID = 1L;
+
+    private MetricsRegistry registry;
+
+    @Override
+    public void init() throws ServletException {
+        super.init();
+        registry = MetricsRegistry.shared();
+
+        pool("db_pool_connections_total", "gauge", "Open connections", ConnectionPool.Stats::getTotal);
+        pool("db_pool_connections_active", "gauge", "Connections handed out", ConnectionPool.Stats::getActive);
+        pool("db_pool_connections_idle", "gauge", "Idle connections", ConnectionPool.Stats::getIdle);
+        pool("db_pool_waiting_threads", "gauge", "Threads waiting for a connection", ConnectionPool.Stats::getWaiting);
+        pool("db_pool_acquired_total", "counter", "Connections acquired", ConnectionPool.Stats::getAcquired);
+        pool("db_pool_timeouts_total", "counter", "Acquire attempts that timed out", ConnectionPool.Stats::getTimeouts);
+        pool("db_pool_wait_seconds_total", "counter", "Total time spent waiting for a connection",
+                s -> s.getTotalWaitNanos() / 1e9);
+        pool("db_pool_statement_cache_hits_total", "counter", "Prepared statement cache hits",
+                ConnectionPool.Stats::getStatementCacheHits);
+        pool("db_pool_statement_cache_misses_total", "counter", "Prepared statement cache misses",
+                ConnectionPool.Stats::getStatementCacheMisses);
+
+        registry.gauge("dao_executor_in_flight", "DAO tasks running or queued",
+                () -> DaoExecutor.shared().getInFlight());
+        registry.gauge("dao_executor_capacity", "DAO tasks accepted before rejecting",
+                () -> DaoExecutor.shared().getCapacity());
+        registry.counterFunction("dao_executor_rejected_total", "DAO tasks rejected because the executor was full",
+                () -> DaoExecutor.shared().getRejectedCount());
+
+        registry.gauge("access_log_queued", "Access log entries waiting to be written",
+                () -> AccessLog.shared().getQueued());
+        registry.counterFunction("access_log_written_total", "Access log lines written",
+                () -> AccessLog.shared().getWrittenCount());
+        registry.counterFunction("access_log_dropped_total", "Access log entries dropped because the buffer was full",
+                () -> AccessLog.shared().getDroppedCount());
+        registry.counterFunction("access_log_sampled_out_total", "Requests skipped by access log sampling",
+                () -> AccessLog.shared().getSampledOutCount());
+        registry.counterFunction("access_log_write_errors_total", "Access log file write failures",
+                () -> AccessLog.shared().getWriteErrorCount());
+    }
+
+    private void pool(String name, String type, String help, ToDoubleFunction<ConnectionPool.Stats> value) {
+        // getPoolStats() throws until DatabaseUtil.init; the registry skips the sample then
+        if ("counter".equals(type)) {
+            registry.counterFunction(name, help, () -> value.applyAsDouble(DatabaseUtil.getPoolStats()));
+        } else {
+            registry.gauge(name, help, () -> value.applyAsDouble(DatabaseUtil.getPoolStats()));
+        }
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        resp.setContentType("text/plain; version=0.0.4");
+        resp.setCharacterEncoding("UTF-8");
+        resp.setHeader("Cache-Control", "no-store");
+        PrintWriter out = resp.getWriter();
+        registry.write(out);
+        out.flush();
+    }
+}
@@ -0,0 +1,196 @@
+package com.campus.lostfound.controller;
+
+import com.campus.lostfound.bootstrap.AppServices;
+import com.campus.lostfound.photo.PhotoStore;
+
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Serves stored photos:
+ * GET /api/photos/{hash}.{jpg|png|gif|webp}   the original
+ * GET /api/photos/thumbs/{hash}.jpg           its thumbnail
+ *
+ * Files are named by their SHA-256, so a URL always means the same bytes:
+ * responses carry the hash as ETag and may be cached for a year. A single
+ * "Range: bytes=" range is answered with 206; several ranges get the whole
+ * file. The body is copied with FileChannel.transferTo in bounded chunks,
+ * so memory use does not depend on the file size.
+ *
+ * Until a thumbnail has been made the original is served in its place,
+ * with a short max-age, and the thumbnail is queued.
+ */
+@WebServlet("/api/photos/*")
+public class PhotoServlet extends HttpServlet {
+    private static final long serialVersionUID = 1L;
+
+    private static final Pattern PATH = Pattern.compile("/(thumbs/)?([0-9a-f]{64})\\.(jpg|png|gif|webp)");
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d*)-(\\d*)");
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    private static final String PLACEHOLDER = "public, max-age=60";
+
+    private PhotoStore photos;
+
+    @Override
+    public void init() throws ServletException {
+        super.init();
+        try {
+            photos = AppServices.get(getServletContext()).getPhotoStore();
+        } catch (IllegalStateException e) {
+            throw new ServletException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        serve(req, resp, true);
+    }
+
+    @Override
+    protected void doHead(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+        serve(req, resp, false);
+    }
+
+    private void serve(HttpServletRequest req, HttpServletResponse resp, boolean body) throws IOException {
+        Matcher m = photos == null || req.getPathInfo() == null ? null : PATH.matcher(req.getPathInfo());
+        if (m == null || !m.matches()) {
+            notFound(resp);
+            return;
+        }
+        boolean thumb = m.group(1) != null;
+        String hash = m.group(2);
+        String extension = m.group(3);
+
+        Path file;
+        String contentType;
+        String etag;
+        String cacheControl = IMMUTABLE;
+        if (thumb) {
+            if (!"jpg".equals(extension)) {
+                notFound(resp);
+                return;
+            }
+            file = photos.thumbnail(hash);
+            contentType = "image/jpeg";
+            etag = "\"" + hash + "-t\"";
+            if (!file.toFile().isFile()) {
+                String original = photos.findExtension(hash);
+                if (original == null) {
+                    notFound(resp);
+                    return;
+                }
+                photos.requestThumbnail(hash, original);
+                file = photos.original(hash, original);
+                contentType = PhotoStore.contentTypeFor(original);
+                etag = null;
+                cacheControl = PLACEHOLDER;
+            }
+        } else {
+            file = photos.original(hash, extension);
+            contentType = PhotoStore.contentTypeFor(extension);
+            etag = "\"" + hash + "\"";
+        }
+
+        if (etag != null && etag.equals(req.getHeader("If-None-Match"))) {
+            resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            resp.setHeader("ETag", etag);
+            resp.setHeader("Cache-Control", cacheControl);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            long start = 0;
+            long end = length - 1;
+            String range = req.getHeader("Range");
+            String ifRange = req.getHeader("If-Range");
+            // Several ranges, a malformed header or a stale If-Range get the whole file
+            boolean partial = range != null && RANGE.matcher(range.trim()).matches()
+                    && (ifRange == null || ifRange.equals(etag));
+            if (partial) {
+                long[] bounds = parseRange(range, length);
+                if (bounds == null) {
+                    resp.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    resp.setHeader("Content-Range", "bytes */" + length);
+                    return;
+                }
+                start = bounds[0];
+                end = bounds[1];
+                resp.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                resp.setHeader("Content-Range", "bytes " + start + "-" + end + "/" + length);
+            }
+            resp.setContentType(contentType);
+            resp.setHeader("Accept-Ranges", "bytes");
+            resp.setHeader("Cache-Control", cacheControl);
+            if (etag != null) {
+                resp.setHeader("ETag", etag);
+            }
+            long count = end - start + 1;
+            resp.setContentLengthLong(count);
+            if (!body || count == 0) {
+                return;
+            }
+            WritableByteChannel out = Channels.newChannel(resp.getOutputStream());
+            long position = start;
+            while (count > 0) {
+                long sent = channel.transferTo(position, count, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                count -= sent;
+            }
+        } catch (NoSuchFileException e) {
+            notFound(resp);
+        }
+    }
+
+    /**
+     * Inclusive [start, end] of a single byte range matching RANGE, or null
+     * if it cannot be satisfied.
+     */
+    static long[] parseRange(String header, long length) {
+        Matcher m = RANGE.matcher(header.trim());
+        if (!m.matches() || (m.group(1).isEmpty() && m.group(2).isEmpty())) {
+            return null;
+        }
+        try {
+            if (m.group(1).isEmpty()) {
+                // Suffix range: the last n bytes
+                long n = Long.parseLong(m.group(2));
+                if (n == 0 || length == 0) {
+                    return null;
+                }
+                return new long[] {Math.max(0, length - n), length - 1};
+            }
+            long start = Long.parseLong(m.group(1));
+            long end = m.group(2).isEmpty() ? length - 1 : Math.min(Long.parseLong(m.group(2)), length - 1);
+            if (start >= length || end < start) {
+                return null;
+            }
+            return new long[] {start, end};
+        } catch (NumberFormatException e) {
+            // More digits than a long holds
+            return null;
+        }
+    }
+
+    private static void notFound(HttpServletResponse resp) throws IOException {
+        resp.setStatus(HttpServletResponse.SC_NOT_FOUND);
+        resp.setContentType("application/json");
+        resp.setCharacterEncoding("UTF-8");
+        resp.getWriter().write("{\"error\": \"Photo not found\"}");
+    }
+}
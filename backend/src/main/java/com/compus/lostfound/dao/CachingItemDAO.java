@@ -0,0 +1,369 @@
+package com.campus.lostfound.dao;
+
+import com.campus.lostfound.model.Item;
+import com.campus.lostfound.util.DatabaseUtil;
+import com.campus.lostfound.util.ReplicaRouter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache in front of another ItemDAO.
+ *
+ * findAll, findByType, search and page reads are cached per normalized query
+ * (plus cursor and limit for pages). Entries expire after a TTL and the cache
+ * holds at most maxEntries, evicting oldest first. Concurrent misses for the
+ * same key share one load. save/delete drop exactly the entries the change
+ * can affect: queries the item matches, and every page of a query that
+ * contained a deleted item. Ranked (q=) queries are the exception: the
+ * Postgres DAO matches them with English stemming, which ItemQuery.matches
+ * does not reproduce, so any save drops all of them.
+ *
+ * With read replicas the cache keeps read-your-writes: a thread pinned to
+ * the primary (a user who wrote recently, see AsyncDispatch) bypasses it,
+ * and for the replicas' sticky window after a write through this cache
+ * nothing is cached, since a load in that window may come from a replica
+ * that has not replayed the write and would be served to the writer too.
+ *
+ * The cache keeps its own copies of the items it stores and every caller
+ * gets fresh copies, so a caller changing an Item or a list cannot alter
+ * what later readers are served.
+ */
+public class CachingItemDAO implements ItemDAO {
+
+    /**
+     * Point-in-time snapshot of cache counters.
+     */
+    public static class Stats {
+        private final int size;
+        private final long hits;
+        private final long misses;
+        private final long coalesced;
+        private final long evictions;
+        private final long invalidations;
+
+        Stats(int size, long hits, long misses, long coalesced, long evictions, long invalidations) {
+            this.size = size;
+            this.hits = hits;
+            this.misses = misses;
+            this.coalesced = coalesced;
+            this.evictions = evictions;
+            this.invalidations = invalidations;
+        }
+
+        public int getSize() { return size; }
+        public long getHits() { return hits; }
+        public long getMisses() { return misses; }
+        public long getCoalesced() { return coalesced; }
+        public long getEvictions() { return evictions; }
+        public long getInvalidations() { return invalidations; }
+
+        @Override
+        public String toString() {
+            return "CacheStats{" +
+                    "size=" + size +
+                    ", hits=" + hits +
+                    ", misses=" + misses +
+                    ", coalesced=" + coalesced +
+                    ", evictions=" + evictions +
+                    ", invalidations=" + invalidations +
+                    '}';
+        }
+    }
+
+    private final ItemDAO delegate;
+    private final int maxEntries;
+    private final long ttlNanos;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> loading = new ConcurrentHashMap<>();
+    // Insertion order for size-bounded eviction; may hold entries already invalidated
+    private final ConcurrentLinkedQueue<Entry> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    // Bumped before and after every write so a load that overlapped a write is not cached
+    private final AtomicLong writeEpoch = new AtomicLong();
+    // System.nanoTime() of the last write through this cache, once there has been one
+    private volatile long lastWriteNanos;
+    private volatile boolean written;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public CachingItemDAO(ItemDAO delegate, int maxEntries, long ttl, TimeUnit unit) {
+        this.delegate = delegate;
+        this.maxEntries = maxEntries;
+        this.ttlNanos = unit.toNanos(ttl);
+    }
+
+    @Override
+    public void save(Item item) {
+        writeEpoch.incrementAndGet();
+        try {
+            delegate.save(item);
+        } finally {
+            wrote();
+            writeEpoch.incrementAndGet();
+        }
+        invalidateFor(item);
+    }
+
+    @Override
+    public void saveAll(List<Item> items) {
+        writeEpoch.incrementAndGet();
+        try {
+            delegate.saveAll(items);
+        } finally {
+            wrote();
+            writeEpoch.incrementAndGet();
+        }
+        for (Item item : items) {
+            invalidateFor(item);
+        }
+    }
+
+    @Override
+    public boolean delete(String itemId, String userId) {
+        writeEpoch.incrementAndGet();
+        boolean deleted;
+        try {
+            deleted = delegate.delete(itemId, userId);
+        } finally {
+            wrote();
+            writeEpoch.incrementAndGet();
+        }
+        if (deleted) {
+            invalidateContaining(itemId);
+        }
+        return deleted;
+    }
+
+    @Override
+    public List<Item> findAll() {
+        ItemQuery query = ItemQuery.all();
+        return get("list\0" + query.key(), query, delegate::findAll);
+    }
+
+    /** Not cached: single-item reads are cheap and must see the latest write. */
+    @Override
+    public Item findById(String itemId) {
+        return delegate.findById(itemId);
+    }
+
+    @Override
+    public List<Item> findByType(String type) {
+        ItemQuery query = ItemQuery.byType(type);
+        return get("type\0" + query.key(), query, () -> delegate.findByType(type));
+    }
+
+    @Override
+    public List<Item> search(String itemName, String category, String location, DateRange dates) {
+        ItemQuery query = ItemQuery.search(itemName, category, location, dates);
+        return get("list\0" + query.key(), query, () -> delegate.search(itemName, category, location, dates));
+    }
+
+    @Override
+    public ItemPage findPage(ItemQuery query, PageCursor after, int limit) {
+        String key = "page\0" + query.key() + "\0" + (after != null ? after.encode() : "") + "\0" + limit;
+        return get(key, query, () -> delegate.findPage(query, after, limit));
+    }
+
+    /**
+     * Served from the cached page; a miss loads the page with findPage, so
+     * cached reads trade the delegate's row streaming for not querying at all.
+     */
+    @Override
+    public void streamPage(ItemQuery query, PageCursor after, int limit, ItemSink sink) throws IOException {
+        ItemPage page = findPage(query, after, limit);
+        sink.begin(page.getNextCursor());
+        for (Item item : page.getItems()) {
+            sink.item(item);
+        }
+    }
+
+    public Stats getStats() {
+        return new Stats(entries.size(), hits.sum(), misses.sum(), coalesced.sum(), evictions.sum(), invalidations.sum());
+    }
+
+    public void clear() {
+        writeEpoch.incrementAndGet();
+        entries.clear();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T get(String key, ItemQuery query, Supplier<T> loader) {
+        if (DatabaseUtil.primaryReadsPinned()) {
+            // Entries and in-flight loads may come from a replica that lacks this reader's write
+            misses.increment();
+            return loader.get();
+        }
+        Entry cached = entries.get(key);
+        if (cached != null) {
+            if (!cached.isExpired()) {
+                hits.increment();
+                return (T) copy(cached.value);
+            }
+            if (entries.remove(key, cached)) {
+                evictions.increment();
+            }
+        }
+
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = loading.putIfAbsent(key, mine);
+        if (inFlight != null) {
+            coalesced.increment();
+            try {
+                return (T) copy(inFlight.join());
+            } catch (CompletionException e) {
+                throw unwrap(e);
+            }
+        }
+
+        misses.increment();
+        try {
+            long epoch = writeEpoch.get();
+            T value = loader.get();
+            if (writeEpoch.get() == epoch && !replicasMayLag()) {
+                Entry entry = new Entry(key, query, copy(value));
+                put(entry);
+                if (writeEpoch.get() != epoch) {
+                    // A write started after the check and may have scanned before the put
+                    entries.remove(key, entry);
+                }
+            }
+            // Waiters copy it; this caller keeps the loaded instance
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, mine);
+        }
+    }
+
+    private void wrote() {
+        lastWriteNanos = System.nanoTime();
+        written = true;
+    }
+
+    /** True within the replicas' sticky window after the last write through this cache. */
+    private boolean replicasMayLag() {
+        ReplicaRouter replicas = DatabaseUtil.getReplicaRouter();
+        return replicas != null && written && System.nanoTime() - lastWriteNanos < replicas.getStickyNanos();
+    }
+
+    /** Deep copy of a cached value: an ItemPage or a List of Items. */
+    @SuppressWarnings("unchecked")
+    private static Object copy(Object value) {
+        if (value instanceof ItemPage) {
+            ItemPage page = (ItemPage) value;
+            return new ItemPage(copyItems(page.getItems()), page.getNextCursor());
+        }
+        return copyItems((List<Item>) value);
+    }
+
+    private static List<Item> copyItems(List<Item> items) {
+        List<Item> copy = new ArrayList<>(items.size());
+        for (Item item : items) {
+            copy.add(new Item(item));
+        }
+        return copy;
+    }
+
+    private static RuntimeException unwrap(CompletionException e) {
+        Throwable cause = e.getCause();
+        return cause instanceof RuntimeException ? (RuntimeException) cause : e;
+    }
+
+    private void put(Entry entry) {
+        entries.put(entry.key, entry);
+        insertionOrder.add(entry);
+        queued.incrementAndGet();
+        while (entries.size() > maxEntries || queued.get() > 2 * maxEntries) {
+            Entry eldest = insertionOrder.poll();
+            if (eldest == null) {
+                break;
+            }
+            queued.decrementAndGet();
+            if (entries.remove(eldest.key, eldest)) {
+                evictions.increment();
+            }
+        }
+    }
+
+    private void invalidateFor(Item item) {
+        for (Entry e : entries.values()) {
+            // Ranked matching stems words (websearch_to_tsquery) and matches() cannot tell
+            if (e.query.isRanked() || e.query.matches(item) || e.ids.contains(item.getId())) {
+                remove(e);
+            }
+        }
+    }
+
+    private void invalidateContaining(String itemId) {
+        // Removing an item shifts every later page of the same query, so drop them all
+        Set<String> affectedQueries = new HashSet<>();
+        for (Entry e : entries.values()) {
+            if (e.ids.contains(itemId)) {
+                affectedQueries.add(e.query.key());
+            }
+        }
+        if (affectedQueries.isEmpty()) {
+            return;
+        }
+        for (Entry e : entries.values()) {
+            if (affectedQueries.contains(e.query.key())) {
+                remove(e);
+            }
+        }
+    }
+
+    private void remove(Entry e) {
+        if (entries.remove(e.key, e)) {
+            invalidations.increment();
+        }
+    }
+
+    private final class Entry {
+        final String key;
+        final ItemQuery query;
+        final Object value;
+        final Set<String> ids = new HashSet<>();
+        final long expiresAt;
+
+        Entry(String key, ItemQuery query, Object value) {
+            this.key = key;
+            this.query = query;
+            this.value = value;
+            this.expiresAt = System.nanoTime() + ttlNanos;
+            List<Item> items = value instanceof ItemPage ? ((ItemPage) value).getItems() : castList(value);
+            for (Item item : items) {
+                ids.add(item.getId());
+            }
+        }
+
+        boolean isExpired() {
+            return System.nanoTime() - expiresAt > 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        private List<Item> castList(Object value) {
+            return (List<Item>) value;
+        }
+    }
+}
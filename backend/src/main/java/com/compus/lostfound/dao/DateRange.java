@@ -0,0 +1,139 @@
+package com.campus.lostfound.dao;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.Objects;
+
+/**
+ * Inclusive range of item dates; either end may be open.
+ *
+ * Parsed once from request parameters so the DAOs compare typed dates:
+ * Postgres as "date >= ? AND date <= ?" on the (date, id) and
+ * (type, date, id) indexes, the in-memory DAO by seeking its date-ordered
+ * indexes. Items without a date never match a bounded range.
+ */
+public final class DateRange {
+
+    public static final DateRange ANY = new DateRange(null, null);
+
+    static final int MAX_LAST_DAYS = 3650;
+
+    private final LocalDate from;
+    private final LocalDate to;
+
+    private DateRange(LocalDate from, LocalDate to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    public static DateRange of(LocalDate from, LocalDate to) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("dateFrom must not be after dateTo");
+        }
+        return from == null && to == null ? ANY : new DateRange(from, to);
+    }
+
+    /** The last n calendar days, today included. */
+    public static DateRange lastDays(int n, LocalDate today) {
+        if (n < 1 || n > MAX_LAST_DAYS) {
+            throw new IllegalArgumentException("lastDays must be between 1 and " + MAX_LAST_DAYS);
+        }
+        return new DateRange(today.minusDays(n - 1), today);
+    }
+
+    /**
+     * Range from request parameters. dateFrom/dateTo are ISO dates
+     * (yyyy-MM-dd); lastDays cannot be combined with them. The older date
+     * parameter is still accepted as a whole day, month (yyyy-MM) or year.
+     *
+     * @throws IllegalArgumentException for malformed or conflicting values
+     */
+    public static DateRange parse(String dateFrom, String dateTo, String lastDays, String date, LocalDate today) {
+        dateFrom = blankToNull(dateFrom);
+        dateTo = blankToNull(dateTo);
+        lastDays = blankToNull(lastDays);
+        date = blankToNull(date);
+
+        int given = (dateFrom != null || dateTo != null ? 1 : 0) + (lastDays != null ? 1 : 0) + (date != null ? 1 : 0);
+        if (given > 1) {
+            throw new IllegalArgumentException("Use only one of dateFrom/dateTo, lastDays or date");
+        }
+        if (lastDays != null) {
+            try {
+                return lastDays(Integer.parseInt(lastDays), today);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("lastDays must be a number");
+            }
+        }
+        if (date != null) {
+            return legacy(date);
+        }
+        return of(parseDate("dateFrom", dateFrom), parseDate("dateTo", dateTo));
+    }
+
+    private static DateRange legacy(String date) {
+        try {
+            switch (date.length()) {
+                case 4:
+                    int year = Integer.parseInt(date);
+                    return new DateRange(LocalDate.of(year, 1, 1), LocalDate.of(year, 12, 31));
+                case 7:
+                    YearMonth month = YearMonth.parse(date);
+                    return new DateRange(month.atDay(1), month.atEndOfMonth());
+                default:
+                    LocalDate day = LocalDate.parse(date);
+                    return new DateRange(day, day);
+            }
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("date must be yyyy-MM-dd, yyyy-MM or yyyy");
+        }
+    }
+
+    private static LocalDate parseDate(String name, String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(name + " must be yyyy-MM-dd");
+        }
+    }
+
+    private static String blankToNull(String value) {
+        if (value == null) return null;
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    public LocalDate getFrom() { return from; }
+    public LocalDate getTo() { return to; }
+    public boolean isBounded() { return from != null || to != null; }
+
+    public boolean contains(LocalDate date) {
+        if (!isBounded()) {
+            return true;
+        }
+        return date != null
+                && (from == null || !date.isBefore(from))
+                && (to == null || !date.isAfter(to));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof DateRange)) return false;
+        DateRange other = (DateRange) o;
+        return Objects.equals(from, other.from) && Objects.equals(to, other.to);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(from, to);
+    }
+
+    @Override
+    public String toString() {
+        return (from != null ? from.toString() : "") + ".." + (to != null ? to.toString() : "");
+    }
+}
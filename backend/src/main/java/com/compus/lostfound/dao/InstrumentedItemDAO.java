@@ -0,0 +1,188 @@
+package com.campus.lostfound.dao;
+
+import com.campus.lostfound.metrics.DaoCallMetrics;
+import com.campus.lostfound.metrics.MetricsRegistry;
+import com.campus.lostfound.model.Item;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * ItemDAO decorator that records call latency, errors and rows returned
+ * per method. Wrapped directly around a storage DAO, the latency is the
+ * database time; for streamPage the time the sink spends writing to the
+ * client is subtracted.
+ */
+public class InstrumentedItemDAO implements ItemDAO {
+
+    private final ItemDAO delegate;
+    private final DaoCallMetrics save;
+    private final DaoCallMetrics saveAll;
+    private final DaoCallMetrics findAll;
+    private final DaoCallMetrics findById;
+    private final DaoCallMetrics findByType;
+    private final DaoCallMetrics search;
+    private final DaoCallMetrics findPage;
+    private final DaoCallMetrics streamPage;
+    private final DaoCallMetrics delete;
+
+    public InstrumentedItemDAO(ItemDAO delegate, String name, MetricsRegistry registry) {
+        this.delegate = delegate;
+        this.save = new DaoCallMetrics(registry, name, "save");
+        this.saveAll = new DaoCallMetrics(registry, name, "saveAll");
+        this.findAll = new DaoCallMetrics(registry, name, "findAll");
+        this.findById = new DaoCallMetrics(registry, name, "findById");
+        this.findByType = new DaoCallMetrics(registry, name, "findByType");
+        this.search = new DaoCallMetrics(registry, name, "search");
+        this.findPage = new DaoCallMetrics(registry, name, "findPage");
+        this.streamPage = new DaoCallMetrics(registry, name, "streamPage");
+        this.delete = new DaoCallMetrics(registry, name, "delete");
+    }
+
+    @Override
+    public void save(Item item) {
+        long start = System.nanoTime();
+        try {
+            delegate.save(item);
+        } catch (RuntimeException e) {
+            save.failure(start);
+            throw e;
+        }
+        save.success(start, -1);
+    }
+
+    @Override
+    public void saveAll(List<Item> items) {
+        long start = System.nanoTime();
+        try {
+            delegate.saveAll(items);
+        } catch (RuntimeException e) {
+            saveAll.failure(start);
+            throw e;
+        }
+        saveAll.success(start, -1);
+    }
+
+    @Override
+    public List<Item> findAll() {
+        long start = System.nanoTime();
+        try {
+            List<Item> items = delegate.findAll();
+            findAll.success(start, items.size());
+            return items;
+        } catch (RuntimeException e) {
+            findAll.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Item findById(String itemId) {
+        long start = System.nanoTime();
+        try {
+            Item item = delegate.findById(itemId);
+            findById.success(start, item != null ? 1 : 0);
+            return item;
+        } catch (RuntimeException e) {
+            findById.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Item> findByType(String type) {
+        long start = System.nanoTime();
+        try {
+            List<Item> items = delegate.findByType(type);
+            findByType.success(start, items.size());
+            return items;
+        } catch (RuntimeException e) {
+            findByType.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Item> search(String itemName, String category, String location, DateRange dates) {
+        long start = System.nanoTime();
+        try {
+            List<Item> items = delegate.search(itemName, category, location, dates);
+            search.success(start, items.size());
+            return items;
+        } catch (RuntimeException e) {
+            search.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public ItemPage findPage(ItemQuery query, PageCursor after, int limit) {
+        long start = System.nanoTime();
+        try {
+            ItemPage page = delegate.findPage(query, after, limit);
+            findPage.success(start, page.getItems().size());
+            return page;
+        } catch (RuntimeException e) {
+            findPage.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public void streamPage(ItemQuery query, PageCursor after, int limit, ItemSink sink) throws IOException {
+        long start = System.nanoTime();
+        TimedSink timed = new TimedSink(sink);
+        try {
+            delegate.streamPage(query, after, limit, timed);
+        } catch (IOException | RuntimeException e) {
+            streamPage.failure(start);
+            throw e;
+        }
+        streamPage.successExcluding(start, timed.sinkNanos, timed.rows);
+    }
+
+    @Override
+    public boolean delete(String itemId, String userId) {
+        long start = System.nanoTime();
+        try {
+            boolean deleted = delegate.delete(itemId, userId);
+            delete.success(start, deleted ? 1 : 0);
+            return deleted;
+        } catch (RuntimeException e) {
+            delete.failure(start);
+            throw e;
+        }
+    }
+
+    /** Counts rows and the time spent downstream of the DAO. */
+    private static final class TimedSink implements ItemSink {
+        private final ItemSink delegate;
+        long sinkNanos;
+        int rows;
+
+        TimedSink(ItemSink delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void begin(PageCursor nextCursor) throws IOException {
+            long start = System.nanoTime();
+            try {
+                delegate.begin(nextCursor);
+            } finally {
+                sinkNanos += System.nanoTime() - start;
+            }
+        }
+
+        @Override
+        public void item(Item item) throws IOException {
+            long start = System.nanoTime();
+            try {
+                delegate.item(item);
+            } finally {
+                sinkNanos += System.nanoTime() - start;
+                rows++;
+            }
+        }
+    }
+}
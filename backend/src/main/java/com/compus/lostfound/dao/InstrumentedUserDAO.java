@@ -0,0 +1,112 @@
+package com.campus.lostfound.dao;
+
+import com.campus.lostfound.metrics.DaoCallMetrics;
+import com.campus.lostfound.metrics.MetricsRegistry;
+import com.campus.lostfound.model.User;
+
+import java.util.function.BiConsumer;
+
+/**
+ * UserDAO decorator that records call latency, errors and rows returned
+ * per method.
+ */
+public class InstrumentedUserDAO implements UserDAO {
+
+    private final UserDAO delegate;
+    private final DaoCallMetrics createUser;
+    private final DaoCallMetrics register;
+    private final DaoCallMetrics findByUsername;
+    private final DaoCallMetrics findByEmail;
+    private final DaoCallMetrics updatePassword;
+    private final DaoCallMetrics forEachIdentity;
+
+    public InstrumentedUserDAO(UserDAO delegate, String name, MetricsRegistry registry) {
+        this.delegate = delegate;
+        this.createUser = new DaoCallMetrics(registry, name, "createUser");
+        this.register = new DaoCallMetrics(registry, name, "register");
+        this.findByUsername = new DaoCallMetrics(registry, name, "findByUsername");
+        this.findByEmail = new DaoCallMetrics(registry, name, "findByEmail");
+        this.updatePassword = new DaoCallMetrics(registry, name, "updatePassword");
+        this.forEachIdentity = new DaoCallMetrics(registry, name, "forEachIdentity");
+    }
+
+    @Override
+    public void createUser(User user) {
+        long start = System.nanoTime();
+        try {
+            delegate.createUser(user);
+        } catch (RuntimeException e) {
+            createUser.failure(start);
+            throw e;
+        }
+        createUser.success(start, -1);
+    }
+
+    @Override
+    public RegistrationResult register(User user) {
+        long start = System.nanoTime();
+        try {
+            RegistrationResult result = delegate.register(user);
+            register.success(start, -1);
+            return result;
+        } catch (RuntimeException e) {
+            register.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public User findByUsername(String username) {
+        long start = System.nanoTime();
+        try {
+            User user = delegate.findByUsername(username);
+            findByUsername.success(start, user != null ? 1 : 0);
+            return user;
+        } catch (RuntimeException e) {
+            findByUsername.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public User findByEmail(String email) {
+        long start = System.nanoTime();
+        try {
+            User user = delegate.findByEmail(email);
+            findByEmail.success(start, user != null ? 1 : 0);
+            return user;
+        } catch (RuntimeException e) {
+            findByEmail.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean updatePassword(String userId, String passwordHash) {
+        long start = System.nanoTime();
+        try {
+            boolean updated = delegate.updatePassword(userId, passwordHash);
+            updatePassword.success(start, updated ? 1 : 0);
+            return updated;
+        } catch (RuntimeException e) {
+            updatePassword.failure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public void forEachIdentity(BiConsumer<String, String> consumer) {
+        long start = System.nanoTime();
+        int[] rows = {0};
+        try {
+            delegate.forEachIdentity((username, email) -> {
+                rows[0]++;
+                consumer.accept(username, email);
+            });
+        } catch (RuntimeException e) {
+            forEachIdentity.failure(start);
+            throw e;
+        }
+        forEachIdentity.success(start, rows[0]);
+    }
+}
@@ -0,0 +1,128 @@
+package com.campus.lostfound.dao;
+
+import com.campus.lostfound.model.Item;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonic version of the item collection, bumped by every successful
+ * ItemDAO save or delete in this process. Lets the HTTP layer answer
+ * conditional GETs without touching the database.
+ *
+ * The counter is seeded from the clock so versions from before a restart
+ * are never reused. Writes made by other processes are only observed through
+ * a change feed: while ItemEventRelay's LISTEN session is connected it bumps
+ * the version for every write it hears of (see seesRemoteWrites).
+ *
+ * Listeners are told about each saved or deleted item after the write,
+ * on the writing thread; a failing listener does not fail the write.
+ */
+public final class ItemChangeTracker {
+
+    /**
+     * Receives item changes; implementations must be thread-safe and quick.
+     */
+    public interface Listener {
+        void itemSaved(Item item);
+
+        void itemDeleted(String itemId);
+
+        /**
+         * Items that left the live set together (ItemPartitionMaintainer's
+         * archiving). Defaults to itemDeleted for each; listeners that fan
+         * out to clients or other processes report them once instead.
+         */
+        default void itemsArchived(List<String> itemIds) {
+            for (String itemId : itemIds) {
+                itemDeleted(itemId);
+            }
+        }
+    }
+
+    private static final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+    private static final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private static volatile boolean remoteFeed;
+
+    private ItemChangeTracker() {}
+
+    public static long currentVersion() {
+        return version.get();
+    }
+
+    public static void changed() {
+        version.incrementAndGet();
+    }
+
+    /**
+     * Set by the change feed when it connects or drops. Either way the version
+     * is bumped, since writes may have been missed while it was down.
+     */
+    public static void remoteFeedConnected(boolean connected) {
+        remoteFeed = connected;
+        changed();
+    }
+
+    /** True while writes made by other processes also move the version. */
+    public static boolean seesRemoteWrites() {
+        return remoteFeed;
+    }
+
+    public static void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public static void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    public static void saved(Item item) {
+        changed();
+        notifySaved(item);
+    }
+
+    /** One version bump for a batch, then one notification per item. */
+    public static void savedAll(List<Item> items) {
+        changed();
+        for (Item item : items) {
+            notifySaved(item);
+        }
+    }
+
+    public static void deleted(String itemId) {
+        changed();
+        for (Listener l : listeners) {
+            try {
+                l.itemDeleted(itemId);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /** One version bump and one notification per listener for the whole batch. */
+    public static void archived(List<String> itemIds) {
+        if (itemIds.isEmpty()) {
+            return;
+        }
+        changed();
+        for (Listener l : listeners) {
+            try {
+                l.itemsArchived(itemIds);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private static void notifySaved(Item item) {
+        for (Listener l : listeners) {
+            try {
+                l.itemSaved(item);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.campus.lostfound.dao;
 
 import com.campus.lostfound.model.Item;
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -8,9 +9,21 @@ import java.util.List;
  */
 public interface ItemDAO {
     void save(Item item);
+
+    // Insert all items in one transaction: either every item is stored or none is
+    void saveAll(List<Item> items);
     List<Item> findAll();
+
+    // The item with this id, archived or not; null if there is none
+    Item findById(String itemId);
     List<Item> findByType(String type);
-    List<Item> search(String itemName, String category, String location, String date);
+    List<Item> search(String itemName, String category, String location, DateRange dates);
+
+    // Keyset pagination ordered by (date DESC, id DESC); after is null for the first page
+    ItemPage findPage(ItemQuery query, PageCursor after, int limit);
+
+    // Same page as findPage, pushed to the sink row by row instead of being collected
+    void streamPage(ItemQuery query, PageCursor after, int limit, ItemSink sink) throws IOException;
     
     // Delete item if it belongs to userId
     boolean delete(String itemId, String userId);
@@ -0,0 +1,652 @@
+package com.campus.lostfound.dao;
+
+import com.campus.lostfound.model.Item;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+
+/**
+ * Durable ItemDAO for single-node deployments: an append-only log on local
+ * disk, with an ItemDAOMemoryImpl holding the current state for reads.
+ *
+ * Every save, batch and delete is appended to items-N.log as one
+ * length-prefixed, CRC-checked record and then applied to the index.
+ * Writers return once an fsync covers their record. Fsyncs are grouped:
+ * whichever writer syncs first covers every record appended before it, so
+ * concurrent writers share one fsync instead of queueing for their own.
+ * Readers may see a write slightly before its fsync completes.
+ *
+ * When the log passes compactBytes a background compaction starts log N+1
+ * and writes snapshot-(N+1).dat with the state at that point, via a temp
+ * file and an atomic rename. Older files are then deleted. At startup the
+ * newest valid snapshot is memory-mapped and loaded, then the logs from its
+ * generation on are replayed. A torn record at the end of the newest log
+ * (a crash mid-append) is truncated away, and a newest log that crashed
+ * before its header was written gets the header again; damage anywhere
+ * else fails startup.
+ *
+ * Only one process may open a directory; writes from other processes are
+ * neither prevented nor seen. Snapshots are mapped whole, so one must stay
+ * under 2 GB.
+ */
+public class ItemDAOLogImpl implements ItemDAO, AutoCloseable {
+
+    private static final byte[] LOG_MAGIC = "LFLOG001".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SNAPSHOT_MAGIC = "LFSNAP01".getBytes(StandardCharsets.US_ASCII);
+    private static final byte OP_SAVE = 1;
+    private static final byte OP_DELETE = 2;
+    private static final byte OP_BATCH = 3;
+    // Record header: payload length, CRC32 of the payload
+    private static final int RECORD_HEADER = 8;
+    private static final int MAX_RECORD_BYTES = 64 * 1024 * 1024;
+    private static final int SNAPSHOT_CHUNK = 1024 * 1024;
+
+    private final Path dir;
+    private final long compactBytes;
+    private final ItemDAOMemoryImpl index = new ItemDAOMemoryImpl(false);
+
+    // Lock order: syncLock, then writeLock
+    private final Object writeLock = new Object();
+    private final Object syncLock = new Object();
+    private FileChannel log;
+    private long generation;
+    // Bytes appended over the life of this instance, across log generations
+    private long written;
+    private long generationStart;
+    private volatile long synced;
+    private volatile boolean failed;
+    private volatile boolean closed;
+
+    private final AtomicBoolean compacting = new AtomicBoolean();
+    private final ExecutorService compactor;
+    private final LongAdder syncs = new LongAdder();
+    private final LongAdder records = new LongAdder();
+
+    private ItemDAOLogImpl(Path dir, long compactBytes) {
+        this.dir = dir;
+        this.compactBytes = compactBytes;
+        this.compactor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "item-log-compactor");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Opens (or creates) the store in dir and rebuilds the index from disk.
+     *
+     * @param compactBytes log size that triggers a snapshot and a new log
+     */
+    public static ItemDAOLogImpl open(Path dir, long compactBytes) throws IOException {
+        Files.createDirectories(dir);
+        ItemDAOLogImpl dao = new ItemDAOLogImpl(dir, compactBytes);
+        try {
+            dao.recover();
+        } catch (IOException | RuntimeException e) {
+            dao.compactor.shutdownNow();
+            throw e;
+        }
+        return dao;
+    }
+
+    // ---- writes ----
+
+    @Override
+    public void save(Item item) {
+        if (item.getId() == null || item.getId().isEmpty()) {
+            item.setId(UUID.randomUUID().toString());
+        }
+        ItemLogCodec.Output rec = newRecord(OP_SAVE);
+        rec.writeItem(item);
+        append(rec, () -> index.save(item), "Error saving item");
+        ItemChangeTracker.saved(item);
+        maybeCompact();
+    }
+
+    @Override
+    public void saveAll(List<Item> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        // One record, so the batch is replayed whole or not at all
+        ItemLogCodec.Output rec = newRecord(OP_BATCH);
+        rec.writeInt(items.size());
+        for (Item item : items) {
+            if (item.getId() == null || item.getId().isEmpty()) {
+                item.setId(UUID.randomUUID().toString());
+            }
+            rec.writeItem(item);
+        }
+        append(rec, () -> {
+            for (Item item : items) {
+                index.save(item);
+            }
+        }, "Error saving items");
+        ItemChangeTracker.savedAll(items);
+        maybeCompact();
+    }
+
+    @Override
+    public boolean delete(String itemId, String userId) {
+        if (itemId == null || userId == null) {
+            return false;
+        }
+        ItemLogCodec.Output rec = newRecord(OP_DELETE);
+        rec.writeString(itemId);
+        long end;
+        synchronized (writeLock) {
+            // Checked under the write lock so no save of the same id can slip in between
+            Item current = index.findById(itemId);
+            if (current == null || !userId.equals(current.getUserId())) {
+                return false;
+            }
+            end = appendLocked(rec, "Error deleting item");
+            index.remove(itemId);
+        }
+        sync(end, "Error deleting item");
+        ItemChangeTracker.deleted(itemId);
+        maybeCompact();
+        return true;
+    }
+
+    private static ItemLogCodec.Output newRecord(byte op) {
+        ItemLogCodec.Output rec = new ItemLogCodec.Output();
+        rec.writeInt(0);
+        rec.writeInt(0);
+        rec.writeByte(op);
+        return rec;
+    }
+
+    private void append(ItemLogCodec.Output rec, Runnable apply, String error) {
+        long end;
+        synchronized (writeLock) {
+            end = appendLocked(rec, error);
+            // Applied in log order, so the index always matches what a replay would build
+            apply.run();
+        }
+        sync(end, error);
+    }
+
+    /** Writes the record and returns the logical offset just past it. */
+    private long appendLocked(ItemLogCodec.Output rec, String error) {
+        if (closed) {
+            throw new RuntimeException(error + ": item log is closed");
+        }
+        if (failed) {
+            throw new RuntimeException(error + ": item log is unavailable after an earlier write failure");
+        }
+        int payload = rec.size() - RECORD_HEADER;
+        if (payload > MAX_RECORD_BYTES) {
+            throw new RuntimeException(error + ": record of " + payload + " bytes is too large");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(rec.array(), RECORD_HEADER, payload);
+        rec.setInt(0, payload);
+        rec.setInt(4, (int) crc.getValue());
+
+        long position = -1;
+        try {
+            position = log.position();
+            ByteBuffer buf = ByteBuffer.wrap(rec.array(), 0, rec.size());
+            while (buf.hasRemaining()) {
+                log.write(buf);
+            }
+        } catch (IOException e) {
+            // Cut off the partial record so later appends do not land behind garbage
+            try {
+                if (position < 0) {
+                    throw e;
+                }
+                log.truncate(position);
+                log.position(position);
+            } catch (IOException truncateFailed) {
+                failed = true;
+            }
+            throw new RuntimeException(error + ": " + e.getMessage(), e);
+        }
+        written += rec.size();
+        records.increment();
+        return written;
+    }
+
+    /**
+     * Returns once everything up to end is on disk. The first caller in
+     * forces the file for all records appended so far; callers queued behind
+     * it usually find their record already covered.
+     */
+    private void sync(long end, String error) {
+        if (synced >= end) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (synced >= end) {
+                return;
+            }
+            long target;
+            FileChannel channel;
+            synchronized (writeLock) {
+                target = written;
+                channel = log;
+            }
+            try {
+                channel.force(false);
+            } catch (IOException e) {
+                // After a failed fsync the page cache state is unknown; stop accepting writes
+                failed = true;
+                throw new RuntimeException(error + ": fsync failed: " + e.getMessage(), e);
+            }
+            syncs.increment();
+            synced = target;
+        }
+    }
+
+    // ---- reads (served from the index) ----
+
+    @Override
+    public List<Item> findAll() {
+        return index.findAll();
+    }
+
+    @Override
+    public Item findById(String itemId) {
+        return index.findById(itemId);
+    }
+
+    @Override
+    public List<Item> findByType(String type) {
+        return index.findByType(type);
+    }
+
+    @Override
+    public List<Item> search(String itemName, String category, String location, DateRange dates) {
+        return index.search(itemName, category, location, dates);
+    }
+
+    @Override
+    public ItemPage findPage(ItemQuery query, PageCursor after, int limit) {
+        return index.findPage(query, after, limit);
+    }
+
+    @Override
+    public void streamPage(ItemQuery query, PageCursor after, int limit, ItemSink sink) throws IOException {
+        index.streamPage(query, after, limit, sink);
+    }
+
+    // ---- compaction ----
+
+    private void maybeCompact() {
+        long logBytes;
+        synchronized (writeLock) {
+            logBytes = written - generationStart;
+        }
+        if (logBytes > compactBytes && compacting.compareAndSet(false, true)) {
+            try {
+                compactor.execute(() -> {
+                    try {
+                        compact();
+                    } catch (IOException | RuntimeException e) {
+                        System.err.println("Item log compaction failed: " + e.getMessage());
+                        e.printStackTrace();
+                    } finally {
+                        compacting.set(false);
+                    }
+                });
+            } catch (RuntimeException e) {
+                // Closed; compaction will happen on a later run
+                compacting.set(false);
+            }
+        }
+    }
+
+    /**
+     * Starts a new log generation and writes the state as of that instant as
+     * its snapshot. Writers wait only while the log is switched and the item
+     * list is copied, not while the snapshot is written.
+     */
+    void compact() throws IOException {
+        List<Item> items;
+        long gen;
+        synchronized (syncLock) {
+            synchronized (writeLock) {
+                if (failed || closed) {
+                    return;
+                }
+                gen = generation + 1;
+                FileChannel next = openLog(gen, true);
+                log.force(false);
+                log.close();
+                log = next;
+                generation = gen;
+                synced = written;
+                generationStart = written;
+                written += LOG_MAGIC.length;
+                items = index.findAll();
+            }
+        }
+        long start = System.currentTimeMillis();
+        writeSnapshot(gen, items);
+        deleteOlderThan(gen);
+        System.out.println("Item log compacted to generation " + gen + " (" + items.size() + " items) in "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    private void writeSnapshot(long gen, List<Item> items) throws IOException {
+        Path target = snapshotPath(gen);
+        Path tmp = dir.resolve(target.getFileName() + ".tmp");
+        CRC32 crc = new CRC32();
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ItemLogCodec.Output out = new ItemLogCodec.Output();
+            for (byte b : SNAPSHOT_MAGIC) {
+                out.writeByte(b);
+            }
+            out.writeLong(items.size());
+            for (Item item : items) {
+                out.writeItem(item);
+                if (out.size() >= SNAPSHOT_CHUNK) {
+                    writeChunk(ch, out, crc);
+                }
+            }
+            writeChunk(ch, out, crc);
+            out.writeInt((int) crc.getValue());
+            writeChunk(ch, out, null);
+            ch.force(true);
+        }
+        try {
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        syncDirectory();
+    }
+
+    private static void writeChunk(FileChannel ch, ItemLogCodec.Output out, CRC32 crc) throws IOException {
+        if (crc != null) {
+            crc.update(out.array(), 0, out.size());
+        }
+        ByteBuffer buf = ByteBuffer.wrap(out.array(), 0, out.size());
+        while (buf.hasRemaining()) {
+            ch.write(buf);
+        }
+        out.reset();
+    }
+
+    // ---- recovery ----
+
+    private void recover() throws IOException {
+        long start = System.currentTimeMillis();
+        NavigableSet<Long> snapshots = generations("snapshot-", ".dat");
+        NavigableSet<Long> logs = generations("items-", ".log");
+
+        long base = 0;
+        for (Long gen : snapshots.descendingSet()) {
+            if (loadSnapshot(gen)) {
+                base = gen;
+                break;
+            }
+            System.err.println("Ignoring damaged item snapshot " + snapshotPath(gen));
+        }
+        if (base == 0 && !snapshots.isEmpty() && (logs.isEmpty() || logs.first() > 1)) {
+            // Without a usable snapshot the logs it replaced are needed too
+            throw new IOException("No readable snapshot in " + dir + " and the early logs are gone");
+        }
+
+        NavigableSet<Long> replay = logs.tailSet(base, true);
+        long current = replay.isEmpty() ? Math.max(base, 1) : replay.last();
+        long validEnd = LOG_MAGIC.length;
+        for (Long gen : replay) {
+            long end = replayLog(gen, gen == current);
+            if (gen == current) {
+                validEnd = end;
+            }
+        }
+
+        log = openLog(current, !replay.contains(current));
+        if (log.size() > validEnd) {
+            System.err.println("Truncating torn tail of " + logPath(current) + " at " + validEnd
+                    + " (was " + log.size() + " bytes)");
+            // Never into the header, or every later record would land in a file that is not a log
+            log.truncate(Math.max(validEnd, LOG_MAGIC.length));
+            log.force(false);
+        }
+        log.position(log.size());
+        generation = current;
+        written = log.size();
+        generationStart = 0;
+        synced = written;
+        deleteOlderThan(base);
+        System.out.println("Item log opened at generation " + current + " with " + index.size()
+                + " items in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    /**
+     * Maps the snapshot and loads it into the index; false if it fails its
+     * checksum, in which case the index is left untouched.
+     */
+    private boolean loadSnapshot(long gen) throws IOException {
+        Path path = snapshotPath(gen);
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot " + path + " is too large to map");
+            }
+            if (size < SNAPSHOT_MAGIC.length + 8 + 4) {
+                return false;
+            }
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            ByteBuffer body = buf.duplicate();
+            body.limit((int) size - 4);
+            CRC32 crc = new CRC32();
+            crc.update(body);
+            if ((int) crc.getValue() != buf.getInt((int) size - 4)) {
+                return false;
+            }
+            byte[] magic = new byte[SNAPSHOT_MAGIC.length];
+            buf.get(magic);
+            if (!Arrays.equals(magic, SNAPSHOT_MAGIC)) {
+                return false;
+            }
+            long count = buf.getLong();
+            List<Item> items = new ArrayList<>((int) Math.min(count, Integer.MAX_VALUE));
+            for (long i = 0; i < count; i++) {
+                items.add(ItemLogCodec.readItem(buf));
+            }
+            // Ids in a snapshot are unique, so the index can be filled in parallel
+            items.parallelStream().forEach(index::save);
+            return true;
+        } catch (BufferUnderflowException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Applies every intact record of the log and returns the offset after
+     * the last one. Only the newest log may end in a torn record.
+     */
+    private long replayLog(long gen, boolean newest) throws IOException {
+        Path path = logPath(gen);
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size < LOG_MAGIC.length) {
+                if (newest) {
+                    // Crashed before its header was complete; openLog rewrites the header
+                    return LOG_MAGIC.length;
+                }
+                throw new IOException("Item log " + path + " is truncated");
+            }
+            ByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            byte[] magic = new byte[LOG_MAGIC.length];
+            buf.get(magic);
+            if (!Arrays.equals(magic, LOG_MAGIC)) {
+                throw new IOException("Not an item log: " + path);
+            }
+            long validEnd = buf.position();
+            CRC32 crc = new CRC32();
+            while (buf.remaining() >= RECORD_HEADER) {
+                int length = buf.getInt();
+                int expected = buf.getInt();
+                if (length <= 0 || length > MAX_RECORD_BYTES || length > buf.remaining()) {
+                    break;
+                }
+                ByteBuffer payload = buf.slice();
+                payload.limit(length);
+                crc.reset();
+                crc.update(payload.duplicate());
+                if ((int) crc.getValue() != expected) {
+                    break;
+                }
+                applyRecord(payload);
+                buf.position(buf.position() + length);
+                validEnd = buf.position();
+            }
+            if (validEnd != size && !newest) {
+                throw new IOException("Item log " + path + " is damaged at offset " + validEnd);
+            }
+            return validEnd;
+        }
+    }
+
+    private void applyRecord(ByteBuffer payload) throws IOException {
+        byte op = payload.get();
+        switch (op) {
+            case OP_SAVE:
+                index.save(ItemLogCodec.readItem(payload));
+                break;
+            case OP_DELETE:
+                index.remove(ItemLogCodec.readString(payload));
+                break;
+            case OP_BATCH:
+                int count = payload.getInt();
+                for (int i = 0; i < count; i++) {
+                    index.save(ItemLogCodec.readItem(payload));
+                }
+                break;
+            default:
+                throw new IOException("Unknown item log record type " + op);
+        }
+    }
+
+    // ---- files ----
+
+    private FileChannel openLog(long gen, boolean create) throws IOException {
+        Path path = logPath(gen);
+        FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        if (ch.size() < LOG_MAGIC.length) {
+            // New, or left by a crash before the header was complete
+            ch.truncate(0);
+            ch.position(0);
+            ByteBuffer magic = ByteBuffer.wrap(LOG_MAGIC);
+            while (magic.hasRemaining()) {
+                ch.write(magic);
+            }
+            ch.force(true);
+            if (create) {
+                syncDirectory();
+            }
+        }
+        return ch;
+    }
+
+    private NavigableSet<Long> generations(String prefix, String suffix) throws IOException {
+        NavigableSet<Long> gens = new TreeSet<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, prefix + "*" + suffix)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    gens.add(Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())));
+                } catch (NumberFormatException ignored) {
+                    // Not one of ours
+                }
+            }
+        }
+        return gens;
+    }
+
+    private void deleteOlderThan(long gen) throws IOException {
+        for (Long g : generations("items-", ".log").headSet(gen, false)) {
+            Files.deleteIfExists(logPath(g));
+        }
+        for (Long g : generations("snapshot-", ".dat").headSet(gen, false)) {
+            Files.deleteIfExists(snapshotPath(g));
+        }
+    }
+
+    /** Makes a create or rename in dir durable; not supported on every platform. */
+    private void syncDirectory() {
+        try (FileChannel d = FileChannel.open(dir, StandardOpenOption.READ)) {
+            d.force(true);
+        } catch (IOException e) {
+            // Best effort
+        }
+    }
+
+    private Path logPath(long gen) {
+        return dir.resolve(String.format("items-%06d.log", gen));
+    }
+
+    private Path snapshotPath(long gen) {
+        return dir.resolve(String.format("snapshot-%06d.dat", gen));
+    }
+
+    // ---- stats and lifecycle ----
+
+    public long getLogBytes() {
+        synchronized (writeLock) {
+            return written - generationStart;
+        }
+    }
+
+    public long getGeneration() {
+        synchronized (writeLock) {
+            return generation;
+        }
+    }
+
+    public long getSyncCount() {
+        return syncs.sum();
+    }
+
+    public long getRecordCount() {
+        return records.sum();
+    }
+
+    public int getItemCount() {
+        return index.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        compactor.shutdown();
+        synchronized (syncLock) {
+            synchronized (writeLock) {
+                if (log.isOpen()) {
+                    log.force(false);
+                    log.close();
+                }
+                closed = true;
+            }
+        }
+    }
+}
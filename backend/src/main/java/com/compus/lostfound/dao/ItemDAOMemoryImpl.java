@@ -1,46 +1,195 @@
 package com.campus.lostfound.dao;
 
 import com.campus.lostfound.model.Item;
+
+import java.io.IOException;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.NavigableSet;
+import java.util.Set;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Predicate;
 
 /**
- * In-memory implementation of ItemDAO. Data is stored in a static list.
+ * Thread-safe in-memory implementation of ItemDAO.
+ *
+ * Items live in an id-keyed map; secondary indexes by type, category and
+ * full-text term point at the same entries and are kept in page order
+ * (date DESC, id DESC) so keyset pages are read by seeking, not scanning.
+ * Lower-cased fields are computed once on save.
+ *
+ * Writes to one id are serialized through ConcurrentHashMap.compute; index
+ * updates for different ids run concurrently. Readers skip index entries
+ * whose item has since been replaced or deleted.
  */
 public class ItemDAOMemoryImpl implements ItemDAO {
-    private static final List<Item> items = new ArrayList<>();
+
+    private static final Comparator<Entry> ENTRY_ORDER = (a, b) -> {
+        if (a.date == null || b.date == null) {
+            if (a.date != b.date) return a.date == null ? -1 : 1;
+        } else {
+            int c = b.date.compareTo(a.date);
+            if (c != 0) return c;
+        }
+        return b.id.compareTo(a.id);
+    };
+
+    private final ConcurrentHashMap<String, Entry> byId = new ConcurrentHashMap<>();
+    // All live items in page order; also serves as the date index
+    private final ConcurrentSkipListSet<Entry> byDate = new ConcurrentSkipListSet<>(ENTRY_ORDER);
+    private final ConcurrentHashMap<String, NavigableSet<Entry>> byType = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, NavigableSet<Entry>> byCategory = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<Entry>> byTerm = new ConcurrentHashMap<>();
+    private final boolean trackChanges;
+
+    public ItemDAOMemoryImpl() {
+        this(true);
+    }
+
+    /**
+     * With trackChanges false, writes are not reported to ItemChangeTracker;
+     * used as the index of a store that reports its own writes once durable.
+     */
+    ItemDAOMemoryImpl(boolean trackChanges) {
+        this.trackChanges = trackChanges;
+    }
 
     @Override
     public void save(Item item) {
         if (item.getId() == null || item.getId().isEmpty()) {
             item.setId(UUID.randomUUID().toString());
         }
-        items.add(item);
+        Entry entry = new Entry(item);
+        byId.compute(entry.id, (id, previous) -> {
+            if (previous != null) {
+                unindex(previous);
+            }
+            index(entry);
+            return entry;
+        });
+        if (trackChanges) {
+            ItemChangeTracker.saved(item);
+        }
+    }
+
+    @Override
+    public void saveAll(List<Item> items) {
+        for (Item item : items) {
+            save(item);
+        }
+    }
+
+    @Override
+    public Item findById(String itemId) {
+        Entry entry = itemId == null ? null : byId.get(itemId);
+        return entry == null ? null : entry.item;
+    }
+
+    int size() {
+        return byId.size();
     }
 
     @Override
     public List<Item> findAll() {
-        return new ArrayList<>(items);
+        return collect(byDate, e -> true);
     }
 
     @Override
     public List<Item> findByType(String type) {
         if (type == null) return new ArrayList<>();
-        return items.stream()
-                .filter(item -> item.getType() != null && item.getType().equalsIgnoreCase(type))
-                .collect(Collectors.toList());
+        NavigableSet<Entry> set = byType.get(type.trim().toUpperCase());
+        return set != null ? collect(set, e -> true) : new ArrayList<>();
     }
 
     @Override
-    public List<Item> search(String itemName, String category, String location, String date) {
-        return items.stream()
-                .filter(item -> (itemName == null || itemName.isEmpty() || (item.getItemName() != null && item.getItemName().toLowerCase().contains(itemName.toLowerCase()))))
-                .filter(item -> (category == null || category.isEmpty() || (item.getCategory() != null && item.getCategory().equalsIgnoreCase(category))))
-                .filter(item -> (location == null || location.isEmpty() || (item.getLocation() != null && item.getLocation().toLowerCase().contains(location.toLowerCase()))))
-                .filter(item -> (date == null || date.isEmpty() || (item.getDate() != null && item.getDate().toString().contains(date))))
-                .collect(Collectors.toList());
+    public List<Item> search(String itemName, String category, String location, DateRange dates) {
+        ItemQuery query = ItemQuery.search(itemName, category, location, dates);
+        Filter filter = new Filter(query);
+        List<Item> list = new ArrayList<>();
+        for (Entry e : seek(candidates(query), dates, null)) {
+            if (pastRange(e, dates)) {
+                break;
+            }
+            if (isLive(e) && filter.test(e)) {
+                list.add(e.item);
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public ItemPage findPage(ItemQuery query, PageCursor after, int limit) {
+        if (query.isRanked()) {
+            return findRankedPage(query, after, limit);
+        }
+        Filter filter = new Filter(query);
+        DateRange dates = query.getDates();
+
+        List<Item> rows = new ArrayList<>();
+        for (Entry e : seek(candidates(query), dates, after)) {
+            if (pastRange(e, dates)) {
+                break;
+            }
+            if (isLive(e) && filter.test(e)) {
+                rows.add(e.item);
+                if (rows.size() > limit) {
+                    break;
+                }
+            }
+        }
+        return ItemPage.fromRows(rows, limit);
+    }
+
+    private ItemPage findRankedPage(ItemQuery query, PageCursor after, int limit) {
+        Filter filter = new Filter(query);
+        List<Ranked> rows = new ArrayList<>();
+        for (Entry e : termCandidates(query.getTerms())) {
+            if (!isLive(e) || !filter.test(e)) {
+                continue;
+            }
+            float rank = SearchText.rank(query.getTerms(), e.nameTerms, e.descriptionTerms, e.locationTerms);
+            if (rank > 0f && (after == null || after.isBefore(rank, e.id))) {
+                rows.add(new Ranked(e.item, rank));
+            }
+        }
+        rows.sort((a, b) -> a.rank != b.rank ? Float.compare(b.rank, a.rank) : b.item.getId().compareTo(a.item.getId()));
+
+        List<Item> page = new ArrayList<>();
+        for (int i = 0; i < rows.size() && i < limit; i++) {
+            page.add(rows.get(i).item);
+        }
+        PageCursor next = null;
+        if (rows.size() > limit) {
+            Ranked last = rows.get(limit - 1);
+            next = PageCursor.ranked(last.rank, last.item.getId());
+        }
+        return new ItemPage(page, next);
+    }
+
+    private static class Ranked {
+        final Item item;
+        final float rank;
+
+        Ranked(Item item, float rank) {
+            this.item = item;
+            this.rank = rank;
+        }
+    }
+
+    @Override
+    public void streamPage(ItemQuery query, PageCursor after, int limit, ItemSink sink) throws IOException {
+        ItemPage page = findPage(query, after, limit);
+        sink.begin(page.getNextCursor());
+        for (Item item : page.getItems()) {
+            sink.item(item);
+        }
     }
 
     @Override
@@ -48,9 +197,231 @@ public class ItemDAOMemoryImpl implements ItemDAO {
         if (itemId == null || userId == null) {
             return false;
         }
-        return items.removeIf(item ->
-                itemId.equals(item.getId()) &&
-                userId.equals(item.getUserId())
-        );
+        return removeIf(itemId, item -> userId.equals(item.getUserId()));
+    }
+
+    /** Deletes the item whatever its owner; for stores that checked ownership already. */
+    boolean remove(String itemId) {
+        return itemId != null && removeIf(itemId, item -> true);
+    }
+
+    private boolean removeIf(String itemId, Predicate<Item> allowed) {
+        boolean[] removed = {false};
+        byId.computeIfPresent(itemId, (id, entry) -> {
+            if (!allowed.test(entry.item)) {
+                return entry;
+            }
+            unindex(entry);
+            removed[0] = true;
+            return null;
+        });
+        if (removed[0] && trackChanges) {
+            ItemChangeTracker.deleted(itemId);
+        }
+        return removed[0];
+    }
+
+    /**
+     * Most selective ordered index for the query's equality filters.
+     */
+    private NavigableSet<Entry> candidates(ItemQuery query) {
+        if (query.getCategory() != null) {
+            NavigableSet<Entry> set = byCategory.get(query.getCategory().toLowerCase());
+            return set != null ? set : Collections.emptyNavigableSet();
+        }
+        if (query.getType() != null) {
+            NavigableSet<Entry> set = byType.get(query.getType());
+            return set != null ? set : Collections.emptyNavigableSet();
+        }
+        return byDate;
+    }
+
+    /**
+     * Start of the scan in a page-ordered index: just past the cursor, or at
+     * the newest date the range allows, whichever comes later.
+     */
+    private static NavigableSet<Entry> seek(NavigableSet<Entry> index, DateRange dates, PageCursor after) {
+        Entry rangeStart = dates.getTo() != null ? Entry.probe(dates.getTo(), Entry.MAX_ID) : null;
+        Entry cursor = after != null ? Entry.probe(after) : null;
+        if (cursor != null && (rangeStart == null || ENTRY_ORDER.compare(cursor, rangeStart) >= 0)) {
+            return index.tailSet(cursor, false);
+        }
+        return rangeStart != null ? index.tailSet(rangeStart, true) : index;
+    }
+
+    /** Entries are date-descending, so the first one older than the range ends the scan. */
+    private static boolean pastRange(Entry e, DateRange dates) {
+        return dates.getFrom() != null && e.date != null && e.date.isBefore(dates.getFrom());
+    }
+
+    /** Posting list of the rarest query term; every match must contain all terms. */
+    private Set<Entry> termCandidates(List<String> terms) {
+        Set<Entry> smallest = null;
+        for (String term : terms) {
+            Set<Entry> postings = byTerm.get(term);
+            if (postings == null) {
+                return Collections.emptySet();
+            }
+            if (smallest == null || postings.size() < smallest.size()) {
+                smallest = postings;
+            }
+        }
+        return smallest != null ? smallest : Collections.<Entry>emptySet();
+    }
+
+    private boolean isLive(Entry e) {
+        return byId.get(e.id) == e;
+    }
+
+    private List<Item> collect(Iterable<Entry> entries, Predicate<Entry> filter) {
+        List<Item> list = new ArrayList<>();
+        for (Entry e : entries) {
+            if (isLive(e) && filter.test(e)) {
+                list.add(e.item);
+            }
+        }
+        return list;
+    }
+
+    // Called inside byId.compute for the entry's id
+    private void index(Entry e) {
+        byDate.add(e);
+        if (e.type != null) {
+            addTo(byType, e.type, e, true);
+        }
+        if (e.category != null) {
+            addTo(byCategory, e.category, e, true);
+        }
+        for (String term : e.allTerms()) {
+            addTo(byTerm, term, e, false);
+        }
+    }
+
+    private void unindex(Entry e) {
+        byDate.remove(e);
+        if (e.type != null) {
+            removeFrom(byType, e.type, e);
+        }
+        if (e.category != null) {
+            removeFrom(byCategory, e.category, e);
+        }
+        for (String term : e.allTerms()) {
+            removeFrom(byTerm, term, e);
+        }
+    }
+
+    // Adds and removals go through compute so an emptied set is never dropped
+    // while another writer is adding to it.
+    @SuppressWarnings("unchecked")
+    private static <S extends Set<Entry>> void addTo(ConcurrentMap<String, S> index, String key, Entry e, boolean ordered) {
+        index.compute(key, (k, set) -> {
+            if (set == null) {
+                set = (S) (ordered ? new ConcurrentSkipListSet<>(ENTRY_ORDER) : ConcurrentHashMap.<Entry>newKeySet());
+            }
+            set.add(e);
+            return set;
+        });
+    }
+
+    private static <S extends Set<Entry>> void removeFrom(ConcurrentMap<String, S> index, String key, Entry e) {
+        index.computeIfPresent(key, (k, set) -> {
+            set.remove(e);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    /**
+     * Stored item plus the normalized values used for filtering and ordering.
+     */
+    private static final class Entry {
+        final Item item;
+        final String id;
+        final LocalDate date;
+        final String type;
+        final String category;
+        final String nameLower;
+        final String locationLower;
+        final Set<String> nameTerms;
+        final Set<String> descriptionTerms;
+        final Set<String> locationTerms;
+
+        Entry(Item item) {
+            this.item = item;
+            this.id = item.getId();
+            this.date = PageCursor.toLocalDate(item.getDate());
+            this.type = item.getType() != null ? item.getType().toUpperCase() : null;
+            this.category = item.getCategory() != null ? item.getCategory().toLowerCase() : null;
+            this.nameLower = item.getItemName() != null ? item.getItemName().toLowerCase() : null;
+            this.locationLower = item.getLocation() != null ? item.getLocation().toLowerCase() : null;
+            this.nameTerms = SearchText.termSet(item.getItemName());
+            this.descriptionTerms = SearchText.termSet(item.getDescription());
+            this.locationTerms = SearchText.termSet(item.getLocation());
+        }
+
+        private Entry(LocalDate date, String id) {
+            this.item = null;
+            this.id = id;
+            this.date = date;
+            this.type = null;
+            this.category = null;
+            this.nameLower = null;
+            this.locationLower = null;
+            this.nameTerms = Collections.emptySet();
+            this.descriptionTerms = Collections.emptySet();
+            this.locationTerms = Collections.emptySet();
+        }
+
+        // Sorts ahead of every real id on the same date (ids are ordered descending)
+        static final String MAX_ID = "\uffff";
+
+        /** Search key positioned at a page cursor, for tailSet seeks. */
+        static Entry probe(PageCursor cursor) {
+            return new Entry(cursor.getDate(), cursor.getId());
+        }
+
+        static Entry probe(LocalDate date, String id) {
+            return new Entry(date, id);
+        }
+
+        Set<String> allTerms() {
+            Set<String> all = new HashSet<>(nameTerms);
+            all.addAll(descriptionTerms);
+            all.addAll(locationTerms);
+            return all;
+        }
+    }
+
+    /**
+     * ItemQuery with its needles lower-cased once per request.
+     */
+    private static final class Filter {
+        final ItemQuery query;
+        final String name;
+        final String location;
+
+        Filter(ItemQuery query) {
+            this.query = query;
+            this.name = query.getItemName() != null ? query.getItemName().toLowerCase() : null;
+            this.location = query.getLocation() != null ? query.getLocation().toLowerCase() : null;
+        }
+
+        boolean test(Entry e) {
+            if (query.getType() != null && !query.getType().equals(e.type)) {
+                return false;
+            }
+            if (query.getCategory() != null && !query.getCategory().equalsIgnoreCase(e.category)) {
+                return false;
+            }
+            if (name != null && (e.nameLower == null || !e.nameLower.contains(name))) {
+                return false;
+            }
+            if (location != null && (e.locationLower == null || !e.locationLower.contains(location))) {
+                return false;
+            }
+            if (!query.getDates().contains(e.date)) {
+                return false;
+            }
+            return true;
+        }
     }
 }
@@ -3,81 +3,120 @@ package com.campus.lostfound.dao;
 import com.campus.lostfound.model.Item;
 import com.campus.lostfound.util.DatabaseUtil;
 
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
 /**
  * PostgreSQL implementation of ItemDAO using the shared DatabaseUtil.
+ * The items table and its indexes are created by SchemaMigrations at startup.
+ * Every query is limited to live items with a literal "archived = false", so
+ * the planner prunes the archive partition; date ranges prune the monthly
+ * partitions as well. Delete still finds archived items.
+ * Queries use read connections, so they may be served by a replica; saves
+ * and deletes always go to the primary.
  */
 public class ItemDAOPostgresImpl implements ItemDAO {
 
-    public ItemDAOPostgresImpl() {
-        try (Connection conn = DatabaseUtil.getConnection()) {
-            ensureTable(conn);
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-    }
+    // Rows pulled per round trip when streaming through a server-side cursor
+    private static final int STREAM_FETCH_SIZE = 100;
 
-    private void ensureTable(Connection conn) throws SQLException {
-        String sql = "CREATE TABLE IF NOT EXISTS items (" +
-                "id VARCHAR(64) PRIMARY KEY," +
-                "item_name VARCHAR(255) NOT NULL," +
-                "category VARCHAR(100)," +
-                "description TEXT," +
-                "location VARCHAR(255)," +
-                "date DATE," +
-                "status VARCHAR(50)," +
-                "contact_info VARCHAR(255)," +
-                "type VARCHAR(20)," +
-                "user_id VARCHAR(64)" +
-                ")";
-        try (Statement st = conn.createStatement()) {
-            st.execute(sql);
-        }
-    }
+    // Explicit list so the generated search_vector column is never shipped to the client
+    private static final String ITEM_COLUMNS =
+            "id, item_name, category, description, location, date, status, contact_info, type, user_id";
+
+    private static final String TS_QUERY = "websearch_to_tsquery('english', ?)";
+
+    // A constant, not a bind value, so pruning happens at plan time
+    private static final String LIVE = "archived = false";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO items (id, item_name, category, description, location, date, status, contact_info, type, user_id) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Rows sent per executeBatch round trip in saveAll
+    private static final int INSERT_BATCH_SIZE = 500;
 
     @Override
     public void save(Item item) {
         if (item.getId() == null || item.getId().isEmpty()) {
             item.setId(UUID.randomUUID().toString());
         }
-        String sql = "INSERT INTO items (id, item_name, category, description, location, date, status, contact_info, type, user_id) " +
-                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
         try (Connection conn = DatabaseUtil.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, item.getId());
-            ps.setString(2, item.getItemName());
-            ps.setString(3, item.getCategory());
-            ps.setString(4, item.getDescription());
-            ps.setString(5, item.getLocation());
-            if (item.getDate() != null) {
-                ps.setDate(6, new Date(item.getDate().getTime()));
-            } else {
-                ps.setDate(6, null);
-            }
-            ps.setString(7, item.getStatus());
-            ps.setString(8, item.getContactInfo());
-            ps.setString(9, item.getType());
-            ps.setString(10, item.getUserId());
+             PreparedStatement ps = conn.prepareStatement(INSERT_SQL)) {
+            bindItem(ps, item);
             ps.executeUpdate();
         } catch (SQLException e) {
             throw new RuntimeException("Error saving item: " + e.getMessage(), e);
         }
+        ItemChangeTracker.saved(item);
+    }
+
+    @Override
+    public void saveAll(List<Item> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        for (Item item : items) {
+            if (item.getId() == null || item.getId().isEmpty()) {
+                item.setId(UUID.randomUUID().toString());
+            }
+        }
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(INSERT_SQL)) {
+                int pending = 0;
+                for (Item item : items) {
+                    bindItem(ps, item);
+                    ps.addBatch();
+                    if (++pending == INSERT_BATCH_SIZE) {
+                        ps.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    ps.executeBatch();
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            SQLException cause = e.getNextException() != null ? e.getNextException() : e;
+            throw new RuntimeException("Error saving items: " + cause.getMessage(), e);
+        }
+        ItemChangeTracker.savedAll(items);
+    }
+
+    private static void bindItem(PreparedStatement ps, Item item) throws SQLException {
+        ps.setString(1, item.getId());
+        ps.setString(2, item.getItemName());
+        ps.setString(3, item.getCategory());
+        ps.setString(4, item.getDescription());
+        ps.setString(5, item.getLocation());
+        if (item.getDate() != null) {
+            ps.setDate(6, new Date(item.getDate().getTime()));
+        } else {
+            ps.setDate(6, null);
+        }
+        ps.setString(7, item.getStatus());
+        ps.setString(8, item.getContactInfo());
+        ps.setString(9, item.getType());
+        ps.setString(10, item.getUserId());
     }
 
     @Override
     public List<Item> findAll() {
-        String sql = "SELECT * FROM items";
+        String sql = "SELECT " + ITEM_COLUMNS + " FROM items WHERE " + LIVE;
         List<Item> list = new ArrayList<>();
-        try (Connection conn = DatabaseUtil.getConnection();
+        try (Connection conn = DatabaseUtil.getReadConnection();
              PreparedStatement ps = conn.prepareStatement(sql);
              ResultSet rs = ps.executeQuery()) {
             while (rs.next()) {
@@ -89,11 +128,26 @@ public class ItemDAOPostgresImpl implements ItemDAO {
         return list;
     }
 
+    @Override
+    public Item findById(String itemId) {
+        // Not limited to live items: archived items still own their photos
+        String sql = "SELECT " + ITEM_COLUMNS + " FROM items WHERE id = ? LIMIT 1";
+        try (Connection conn = DatabaseUtil.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, itemId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? mapRow(rs) : null;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error loading item: " + e.getMessage(), e);
+        }
+    }
+
     @Override
     public List<Item> findByType(String type) {
-        String sql = "SELECT * FROM items WHERE LOWER(type) = LOWER(?)";
+        String sql = "SELECT " + ITEM_COLUMNS + " FROM items WHERE " + LIVE + " AND LOWER(type) = LOWER(?)";
         List<Item> list = new ArrayList<>();
-        try (Connection conn = DatabaseUtil.getConnection();
+        try (Connection conn = DatabaseUtil.getReadConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, type);
             try (ResultSet rs = ps.executeQuery()) {
@@ -108,33 +162,16 @@ public class ItemDAOPostgresImpl implements ItemDAO {
     }
 
     @Override
-    public List<Item> search(String itemName, String category, String location, String date) {
-        StringBuilder sb = new StringBuilder("SELECT * FROM items WHERE 1=1");
+    public List<Item> search(String itemName, String category, String location, DateRange dates) {
+        StringBuilder sb = new StringBuilder("SELECT " + ITEM_COLUMNS + " FROM items WHERE " + LIVE);
         List<Object> params = new ArrayList<>();
-
-        if (itemName != null && !itemName.isEmpty()) {
-            sb.append(" AND LOWER(item_name) LIKE ?");
-            params.add("%" + itemName.toLowerCase() + "%");
-        }
-        if (category != null && !category.isEmpty()) {
-            sb.append(" AND LOWER(category) = LOWER(?)");
-            params.add(category);
-        }
-        if (location != null && !location.isEmpty()) {
-            sb.append(" AND LOWER(location) LIKE ?");
-            params.add("%" + location.toLowerCase() + "%");
-        }
-        if (date != null && !date.isEmpty()) {
-            sb.append(" AND CAST(date AS TEXT) LIKE ?");
-            params.add("%" + date + "%");
-        }
+        appendFilters(ItemQuery.search(itemName, category, location, dates), sb, params);
+        sb.append(" ORDER BY date DESC, id DESC");
 
         List<Item> list = new ArrayList<>();
-        try (Connection conn = DatabaseUtil.getConnection();
+        try (Connection conn = DatabaseUtil.getReadConnection();
              PreparedStatement ps = conn.prepareStatement(sb.toString())) {
-            for (int i = 0; i < params.size(); i++) {
-                ps.setObject(i + 1, params.get(i));
-            }
+            bind(ps, params);
             try (ResultSet rs = ps.executeQuery()) {
                 while (rs.next()) {
                     list.add(mapRow(rs));
@@ -146,6 +183,171 @@ public class ItemDAOPostgresImpl implements ItemDAO {
         return list;
     }
 
+    @Override
+    public ItemPage findPage(ItemQuery query, PageCursor after, int limit) {
+        List<Object> params = new ArrayList<>();
+        String sql = pageSql(query, after, limit, params);
+
+        List<Item> list = new ArrayList<>();
+        float lastRank = 0f;
+        try (Connection conn = DatabaseUtil.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            bind(ps, params);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    list.add(mapRow(rs));
+                    if (query.isRanked() && list.size() == limit) {
+                        lastRank = rs.getFloat("rank");
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error loading items: " + e.getMessage(), e);
+        }
+        if (query.isRanked() && list.size() > limit) {
+            List<Item> page = list.subList(0, limit);
+            return new ItemPage(page, PageCursor.ranked(lastRank, page.get(limit - 1).getId()));
+        }
+        return ItemPage.fromRows(list, limit);
+    }
+
+    @Override
+    public void streamPage(ItemQuery query, PageCursor after, int limit, ItemSink sink) throws IOException {
+        // The page (limit + 1 rows) is windowed server side so the first row
+        // already says whether there is a next page and where it starts.
+        List<Object> params = new ArrayList<>();
+        params.add(limit);
+        params.add(limit);
+        String order = "p.date DESC, p.id DESC";
+        String rankColumn = "";
+        if (query.isRanked()) {
+            order = "p.rank DESC, p.id DESC";
+            rankColumn = ", nth_value(p.rank, ?) OVER w AS cursor_rank";
+            params.add(limit);
+        }
+        String sql = "SELECT p.*, count(*) OVER w AS page_rows, " +
+                "nth_value(p.date, ?) OVER w AS cursor_date, nth_value(p.id, ?) OVER w AS cursor_id" + rankColumn +
+                " FROM (" + pageSql(query, after, limit, params) + ") p " +
+                "WINDOW w AS (ORDER BY " + order + " ROWS BETWEEN UNBOUNDED PRECEDING AND UNBOUNDED FOLLOWING) " +
+                "ORDER BY " + order;
+
+        try (Connection conn = DatabaseUtil.getReadConnection()) {
+            // pgjdbc only uses a server-side cursor (fetch size) inside a transaction
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setFetchSize(STREAM_FETCH_SIZE);
+                bind(ps, params);
+                try (ResultSet rs = ps.executeQuery()) {
+                    int emitted = 0;
+                    if (!rs.next()) {
+                        sink.begin(null);
+                        return;
+                    }
+                    PageCursor next = null;
+                    if (rs.getInt("page_rows") > limit) {
+                        if (query.isRanked()) {
+                            next = PageCursor.ranked(rs.getFloat("cursor_rank"), rs.getString("cursor_id"));
+                        } else {
+                            Date d = rs.getDate("cursor_date");
+                            next = new PageCursor(d != null ? d.toLocalDate() : null, rs.getString("cursor_id"));
+                        }
+                    }
+                    sink.begin(next);
+                    do {
+                        sink.item(mapRow(rs));
+                        emitted++;
+                    } while (emitted < limit && rs.next());
+                }
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            throw new RuntimeException("Error streaming items: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * SELECT for one keyset page (limit + 1 rows); appends its bind values to params.
+     * Package-private for the EXPLAIN checks in ItemSearchIndexTest.
+     */
+    String pageSql(ItemQuery query, PageCursor after, int limit, List<Object> params) {
+        if (query.isRanked()) {
+            return rankedPageSql(query, after, limit, params);
+        }
+        StringBuilder sb = new StringBuilder("SELECT " + ITEM_COLUMNS + " FROM items WHERE " + LIVE);
+        appendFilters(query, sb, params);
+
+        if (after != null) {
+            // Rows are ordered date DESC (NULLs first), id DESC
+            if (after.getDate() == null) {
+                sb.append(" AND (date IS NOT NULL OR id < ?)");
+                params.add(after.getId());
+            } else {
+                sb.append(" AND (date, id) < (?, ?)");
+                params.add(Date.valueOf(after.getDate()));
+                params.add(after.getId());
+            }
+        }
+        sb.append(" ORDER BY date DESC, id DESC LIMIT ?");
+        params.add(limit + 1);
+        return sb.toString();
+    }
+
+    /**
+     * Full-text search ordered by ts_rank, paginated on (rank, id).
+     */
+    private String rankedPageSql(ItemQuery query, PageCursor after, int limit, List<Object> params) {
+        StringBuilder inner = new StringBuilder("SELECT " + ITEM_COLUMNS + ", ts_rank(search_vector, " + TS_QUERY + ") AS rank" +
+                " FROM items WHERE " + LIVE + " AND search_vector @@ " + TS_QUERY);
+        params.add(query.getText());
+        params.add(query.getText());
+        appendFilters(query, inner, params);
+
+        StringBuilder sb = new StringBuilder("SELECT * FROM (").append(inner).append(") r");
+        if (after != null) {
+            sb.append(" WHERE (rank, id) < (?, ?)");
+            params.add(after.getRank());
+            params.add(after.getId());
+        }
+        sb.append(" ORDER BY rank DESC, id DESC LIMIT ?");
+        params.add(limit + 1);
+        return sb.toString();
+    }
+
+    private static void bind(PreparedStatement ps, List<Object> params) throws SQLException {
+        for (int i = 0; i < params.size(); i++) {
+            ps.setObject(i + 1, params.get(i));
+        }
+    }
+
+    private void appendFilters(ItemQuery query, StringBuilder sb, List<Object> params) {
+        if (query.getType() != null) {
+            sb.append(" AND type = ?");
+            params.add(query.getType());
+        }
+        if (query.getItemName() != null) {
+            sb.append(" AND LOWER(item_name) LIKE ?");
+            params.add("%" + query.getItemName().toLowerCase() + "%");
+        }
+        if (query.getCategory() != null) {
+            sb.append(" AND LOWER(category) = LOWER(?)");
+            params.add(query.getCategory());
+        }
+        if (query.getLocation() != null) {
+            sb.append(" AND LOWER(location) LIKE ?");
+            params.add("%" + query.getLocation().toLowerCase() + "%");
+        }
+        // Plain comparisons on the column so the (date, id) / (type, date, id) indexes apply
+        DateRange dates = query.getDates();
+        if (dates.getFrom() != null) {
+            sb.append(" AND date >= ?");
+            params.add(Date.valueOf(dates.getFrom()));
+        }
+        if (dates.getTo() != null) {
+            sb.append(" AND date <= ?");
+            params.add(Date.valueOf(dates.getTo()));
+        }
+    }
+
     @Override
     public boolean delete(String itemId, String userId) {
         String sql = "DELETE FROM items WHERE id = ? AND user_id = ?";
@@ -154,6 +356,9 @@ public class ItemDAOPostgresImpl implements ItemDAO {
             ps.setString(1, itemId);
             ps.setString(2, userId);
             int affected = ps.executeUpdate();
+            if (affected > 0) {
+                ItemChangeTracker.deleted(itemId);
+            }
             return affected > 0;
         } catch (SQLException e) {
             e.printStackTrace();
@@ -161,7 +366,7 @@ public class ItemDAOPostgresImpl implements ItemDAO {
         }
     }
 
-    private Item mapRow(ResultSet rs) throws SQLException {
+    static Item mapRow(ResultSet rs) throws SQLException {
         Item item = new Item();
         item.setId(rs.getString("id"));
         item.setItemName(rs.getString("item_name"));
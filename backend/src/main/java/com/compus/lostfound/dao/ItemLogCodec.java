@@ -0,0 +1,127 @@
+package com.campus.lostfound.dao;
+
+import com.campus.lostfound.model.Item;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Binary encoding of items for the append log and snapshots of ItemDAOLogImpl.
+ *
+ * Strings are an int byte length (-1 for null) followed by UTF-8 bytes; the
+ * date is an epoch day (Long.MIN_VALUE for null). Fields are written in a
+ * fixed order, so adding one needs a new format version.
+ */
+final class ItemLogCodec {
+
+    private ItemLogCodec() {}
+
+    /** Growable big-endian byte buffer for building records. */
+    static final class Output {
+        private byte[] buf = new byte[256];
+        private int size;
+
+        private void ensure(int extra) {
+            if (size + extra > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, size + extra));
+            }
+        }
+
+        void writeByte(int b) {
+            ensure(1);
+            buf[size++] = (byte) b;
+        }
+
+        void writeInt(int v) {
+            ensure(4);
+            buf[size++] = (byte) (v >>> 24);
+            buf[size++] = (byte) (v >>> 16);
+            buf[size++] = (byte) (v >>> 8);
+            buf[size++] = (byte) v;
+        }
+
+        void writeLong(long v) {
+            writeInt((int) (v >>> 32));
+            writeInt((int) v);
+        }
+
+        void writeString(String s) {
+            if (s == null) {
+                writeInt(-1);
+                return;
+            }
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            writeInt(bytes.length);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buf, size, bytes.length);
+            size += bytes.length;
+        }
+
+        void writeItem(Item item) {
+            writeString(item.getId());
+            writeString(item.getItemName());
+            writeString(item.getCategory());
+            writeString(item.getDescription());
+            writeString(item.getLocation());
+            LocalDate date = PageCursor.toLocalDate(item.getDate());
+            writeLong(date == null ? Long.MIN_VALUE : date.toEpochDay());
+            writeString(item.getStatus());
+            writeString(item.getContactInfo());
+            writeString(item.getType());
+            writeString(item.getUserId());
+        }
+
+        int size() {
+            return size;
+        }
+
+        void reset() {
+            size = 0;
+        }
+
+        byte[] array() {
+            return buf;
+        }
+
+        /** Overwrites an int written earlier, e.g. a length placeholder. */
+        void setInt(int offset, int v) {
+            buf[offset] = (byte) (v >>> 24);
+            buf[offset + 1] = (byte) (v >>> 16);
+            buf[offset + 2] = (byte) (v >>> 8);
+            buf[offset + 3] = (byte) v;
+        }
+    }
+
+    static String readString(ByteBuffer in) {
+        int len = in.getInt();
+        if (len < 0) {
+            return null;
+        }
+        if (len > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[len];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static Item readItem(ByteBuffer in) {
+        Item item = new Item();
+        item.setId(readString(in));
+        item.setItemName(readString(in));
+        item.setCategory(readString(in));
+        item.setDescription(readString(in));
+        item.setLocation(readString(in));
+        long day = in.getLong();
+        // Same java.sql.Date type the Postgres DAO returns
+        item.setDate(day == Long.MIN_VALUE ? null : java.sql.Date.valueOf(LocalDate.ofEpochDay(day)));
+        item.setStatus(readString(in));
+        item.setContactInfo(readString(in));
+        item.setType(readString(in));
+        item.setUserId(readString(in));
+        return item;
+    }
+}
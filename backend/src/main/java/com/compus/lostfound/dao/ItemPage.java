@@ -0,0 +1,34 @@
+package com.campus.lostfound.dao;
+
+import com.campus.lostfound.model.Item;
+
+import java.util.List;
+
+/**
+ * One page of items plus the cursor for the next page (null on the last page).
+ */
+public class ItemPage {
+    private final List<Item> items;
+    private final PageCursor nextCursor;
+
+    public ItemPage(List<Item> items, PageCursor nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Build a page from up to limit + 1 rows in sort order; the extra row
+     * only signals that another page exists.
+     */
+    public static ItemPage fromRows(List<Item> rows, int limit) {
+        if (rows.size() <= limit) {
+            return new ItemPage(rows, null);
+        }
+        List<Item> page = rows.subList(0, limit);
+        return new ItemPage(page, PageCursor.of(page.get(limit - 1)));
+    }
+
+    public List<Item> getItems() { return items; }
+    public PageCursor getNextCursor() { return nextCursor; }
+    public boolean hasMore() { return nextCursor != null; }
+}
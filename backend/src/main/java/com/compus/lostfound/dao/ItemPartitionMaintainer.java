@@ -0,0 +1,258 @@
+package com.campus.lostfound.dao;
+
+import com.campus.lostfound.util.DatabaseUtil;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Background upkeep of the partitioned items table (see SchemaMigrations
+ * version 6): monthly partitions and archiving.
+ *
+ * Each run, on one instance at a time (a session advisory lock):
+ * - creates the partitions of items_live for the current month and the next
+ *   monthsAhead months, and for any earlier month still within the expiry
+ *   window that has rows parked in items_live_default. Those rows are moved
+ *   into the new partition in the same transaction.
+ * - archives live items whose date is more than expireDays old, and items
+ *   in a resolved status more than resolvedDays old, by setting archived;
+ *   items without a date are aged the same way by created_at instead.
+ *   Postgres moves each row to items_archive. Archived items drop out of
+ *   every listing and search, which filter on archived = false so the
+ *   planner prunes the archive.
+ *
+ * Each run's archived ids are reported to ItemChangeTracker.archived in one
+ * call: this instance's match engine and facet counts drop them one by one,
+ * while the event stream sends a single items-archived event, so clients
+ * refetch once rather than once per item. A CachingItemDAO catches up when
+ * its entries expire.
+ */
+public class ItemPartitionMaintainer {
+
+    // Arbitrary key for pg_try_advisory_lock; differs from SchemaMigrations'
+    private static final long LOCK_KEY = 0x4C6F737450L;
+    private static final String COLUMNS =
+            "id, item_name, category, description, location, date, status, contact_info, type, user_id, created_at";
+
+    private final int monthsAhead;
+    private final int expireDays;
+    private final int resolvedDays;
+    private final List<String> resolvedStatuses;
+    private final int batchSize;
+
+    private final LongAdder archived = new LongAdder();
+    private final LongAdder partitionsCreated = new LongAdder();
+    private final LongAdder failedRuns = new LongAdder();
+    private ScheduledExecutorService scheduler;
+
+    public ItemPartitionMaintainer(int monthsAhead, int expireDays, int resolvedDays,
+                                   List<String> resolvedStatuses, int batchSize) {
+        this.monthsAhead = Math.max(1, monthsAhead);
+        this.expireDays = Math.max(1, expireDays);
+        this.resolvedDays = Math.max(0, resolvedDays);
+        this.resolvedStatuses = new ArrayList<>();
+        for (String status : resolvedStatuses) {
+            if (!status.trim().isEmpty()) {
+                this.resolvedStatuses.add(status.trim().toUpperCase());
+            }
+        }
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /** Runs once now, then every interval, on a daemon thread. */
+    public synchronized void start(long interval, TimeUnit unit) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "item-partition-maintenance");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::runSafely, 0, interval, unit);
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private void runSafely() {
+        try {
+            run(LocalDate.now());
+        } catch (SQLException | RuntimeException e) {
+            failedRuns.increment();
+            System.err.println("Item partition maintenance failed: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * One maintenance pass. Returns false without doing anything when another
+     * instance holds the lock.
+     */
+    public boolean run(LocalDate today) throws SQLException {
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            try (PreparedStatement lock = conn.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+                lock.setLong(1, LOCK_KEY);
+                try (ResultSet rs = lock.executeQuery()) {
+                    if (!rs.next() || !rs.getBoolean(1)) {
+                        return false;
+                    }
+                }
+            }
+            try {
+                createPartitions(conn, today);
+                List<String> ids = archive(conn, today);
+                ItemChangeTracker.archived(ids);
+                if (!ids.isEmpty()) {
+                    System.out.println("Archived " + ids.size() + " items");
+                }
+            } finally {
+                try (PreparedStatement unlock = conn.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+                    unlock.setLong(1, LOCK_KEY);
+                    unlock.execute();
+                }
+            }
+            return true;
+        }
+    }
+
+    private void createPartitions(Connection conn, LocalDate today) throws SQLException {
+        LocalDate current = today.withDayOfMonth(1);
+        Set<LocalDate> months = new TreeSet<>();
+        for (int i = 0; i <= monthsAhead; i++) {
+            months.add(current.plusMonths(i));
+        }
+        // Past months only get a partition once they have rows; the rest would stay empty
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT DISTINCT date_trunc('month', date)::date FROM items_live_default " +
+                "WHERE date >= ? AND date < ?")) {
+            ps.setDate(1, Date.valueOf(today.minusDays(expireDays).withDayOfMonth(1)));
+            ps.setDate(2, Date.valueOf(current));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    months.add(rs.getDate(1).toLocalDate());
+                }
+            }
+        }
+        Set<String> existing = new HashSet<>();
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT c.relname FROM pg_inherits i " +
+                     "JOIN pg_class c ON c.oid = i.inhrelid WHERE i.inhparent = 'items_live'::regclass")) {
+            while (rs.next()) {
+                existing.add(rs.getString(1));
+            }
+        }
+        for (LocalDate month : months) {
+            if (!existing.contains(partitionName(month))) {
+                createPartition(conn, month);
+            }
+        }
+    }
+
+    /**
+     * Creates the partition for one month, first taking that month's rows out
+     * of the default partition; Postgres refuses to attach a range the
+     * default partition still holds rows for.
+     */
+    private void createPartition(Connection conn, LocalDate month) throws SQLException {
+        // DDL takes no bind parameters; LocalDate.toString() is always yyyy-MM-dd
+        String range = "date >= DATE '" + month + "' AND date < DATE '" + month.plusMonths(1) + "'";
+        conn.setAutoCommit(false);
+        try (Statement st = conn.createStatement()) {
+            // Parent before partition, the order INSERTs lock them in, so the two cannot deadlock.
+            // SHARE ROW EXCLUSIVE holds off writers until the rows are back; the default partition
+            // gets ACCESS EXCLUSIVE now rather than as an upgrade when CREATE ... PARTITION OF asks
+            st.execute("LOCK TABLE items_live IN SHARE ROW EXCLUSIVE MODE");
+            st.execute("LOCK TABLE items_live_default IN ACCESS EXCLUSIVE MODE");
+            st.execute("CREATE TEMP TABLE items_moving ON COMMIT DROP AS SELECT " + COLUMNS +
+                    " FROM items_live_default WHERE " + range);
+            int moved = st.executeUpdate("DELETE FROM items_live_default WHERE " + range);
+            st.execute("CREATE TABLE " + partitionName(month) + " PARTITION OF items_live FOR VALUES FROM ('"
+                    + month + "') TO ('" + month.plusMonths(1) + "')");
+            st.execute("INSERT INTO items (" + COLUMNS + ") SELECT " + COLUMNS + " FROM items_moving");
+            conn.commit();
+            partitionsCreated.increment();
+            System.out.println("Created item partition " + partitionName(month)
+                    + (moved > 0 ? " (moved " + moved + " items from the default partition)" : ""));
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    static String partitionName(LocalDate month) {
+        return String.format("items_y%04dm%02d", month.getYear(), month.getMonthValue());
+    }
+
+    /**
+     * Archives in batches of batchSize, each its own transaction, so a large
+     * first run does not hold row locks on the whole backlog at once.
+     */
+    private List<String> archive(Connection conn, LocalDate today) throws SQLException {
+        List<String> ids = new ArrayList<>();
+        String sql = "UPDATE items SET archived = true WHERE archived = false AND id IN (" +
+                "SELECT id FROM items WHERE archived = false AND (date < ? OR (date < ? AND UPPER(status) = ANY (?)) " +
+                // date < ? is never true for a NULL date
+                "OR (date IS NULL AND (created_at < ? OR (created_at < ? AND UPPER(status) = ANY (?))))) " +
+                "LIMIT ?) RETURNING id";
+        Date expired = Date.valueOf(today.minusDays(expireDays));
+        Date resolved = Date.valueOf(today.minusDays(resolvedDays));
+        Array statuses = conn.createArrayOf("varchar", resolvedStatuses.toArray());
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setDate(1, expired);
+            ps.setDate(2, resolved);
+            ps.setArray(3, statuses);
+            ps.setDate(4, expired);
+            ps.setDate(5, resolved);
+            ps.setArray(6, statuses);
+            ps.setInt(7, batchSize);
+            int batch;
+            do {
+                batch = 0;
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        ids.add(rs.getString(1));
+                        batch++;
+                    }
+                }
+                archived.add(batch);
+            } while (batch == batchSize);
+        } finally {
+            statuses.free();
+        }
+        return ids;
+    }
+
+    public long getArchivedCount() {
+        return archived.sum();
+    }
+
+    public long getPartitionsCreatedCount() {
+        return partitionsCreated.sum();
+    }
+
+    public long getFailedRunCount() {
+        return failedRuns.sum();
+    }
+}
@@ -0,0 +1,19 @@
+package com.campus.lostfound.dao;
+
+import com.campus.lostfound.model.ItemPhoto;
+
+import java.util.List;
+
+/**
+ * Which stored photos are attached to which items.
+ */
+public interface ItemPhotoDAO {
+    // Attach the photo; false if the item already has a photo with this hash
+    boolean add(ItemPhoto photo);
+
+    // Photos of one item, oldest first
+    List<ItemPhoto> findByItem(String itemId);
+
+    // Detach every photo of the item; the files stay, other items may share them
+    void deleteByItem(String itemId);
+}
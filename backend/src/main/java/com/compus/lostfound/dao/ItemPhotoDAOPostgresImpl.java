@@ -0,0 +1,76 @@
+package com.campus.lostfound.dao;
+
+import com.campus.lostfound.model.ItemPhoto;
+import com.campus.lostfound.util.DatabaseUtil;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * PostgreSQL implementation of ItemPhotoDAO; the item_photos table is
+ * created by SchemaMigrations. There is no foreign key to items, which is
+ * partitioned without a unique id; ItemServlet detaches photos on delete.
+ */
+public class ItemPhotoDAOPostgresImpl implements ItemPhotoDAO {
+
+    @Override
+    public boolean add(ItemPhoto photo) {
+        String sql = "INSERT INTO item_photos (item_id, hash, content_type, size_bytes) VALUES (?, ?, ?, ?) " +
+                "ON CONFLICT DO NOTHING RETURNING created_at";
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, photo.getItemId());
+            ps.setString(2, photo.getHash());
+            ps.setString(3, photo.getContentType());
+            ps.setLong(4, photo.getSize());
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    return false;
+                }
+                photo.setCreatedAt(new java.util.Date(rs.getTimestamp(1).getTime()));
+                return true;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error saving photo: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public List<ItemPhoto> findByItem(String itemId) {
+        String sql = "SELECT item_id, hash, content_type, size_bytes, created_at FROM item_photos " +
+                "WHERE item_id = ? ORDER BY created_at, hash";
+        List<ItemPhoto> list = new ArrayList<>();
+        try (Connection conn = DatabaseUtil.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, itemId);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Timestamp created = rs.getTimestamp("created_at");
+                    list.add(new ItemPhoto(rs.getString("item_id"), rs.getString("hash"),
+                            rs.getString("content_type"), rs.getLong("size_bytes"),
+                            created != null ? new java.util.Date(created.getTime()) : null));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error loading photos: " + e.getMessage(), e);
+        }
+        return list;
+    }
+
+    @Override
+    public void deleteByItem(String itemId) {
+        String sql = "DELETE FROM item_photos WHERE item_id = ?";
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, itemId);
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            throw new RuntimeException("Error deleting photos: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.campus.lostfound.dao;
+
+import com.campus.lostfound.model.Item;
+
+import java.util.List;
+
+/**
+ * Normalized filter for item listing and search.
+ * Empty strings are treated as "no filter"; type is upper-cased so it can be
+ * compared with a plain equality (and use the (type, date, id) index).
+ * A free-text query (text) switches results to relevance order.
+ * Dates are filtered by a typed, inclusive DateRange.
+ */
+public class ItemQuery {
+    private final String type;
+    private final String text;
+    private final List<String> terms;
+    private final String itemName;
+    private final String category;
+    private final String location;
+    private final DateRange dates;
+
+    public ItemQuery(String type, String itemName, String category, String location, DateRange dates) {
+        this(type, null, itemName, category, location, dates);
+    }
+
+    public ItemQuery(String type, String text, String itemName, String category, String location, DateRange dates) {
+        String t = normalize(type);
+        this.type = t != null ? t.toUpperCase() : null;
+        this.terms = SearchText.terms(text);
+        this.text = terms.isEmpty() ? null : normalize(text);
+        this.itemName = normalize(itemName);
+        this.category = normalize(category);
+        this.location = normalize(location);
+        this.dates = dates != null ? dates : DateRange.ANY;
+    }
+
+    public static ItemQuery all() {
+        return new ItemQuery(null, null, null, null, null);
+    }
+
+    public static ItemQuery byType(String type) {
+        return new ItemQuery(type, null, null, null, null);
+    }
+
+    public static ItemQuery search(String itemName, String category, String location, DateRange dates) {
+        return new ItemQuery(null, itemName, category, location, dates);
+    }
+
+    private static String normalize(String value) {
+        if (value == null) return null;
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    public String getType() { return type; }
+    public String getText() { return text; }
+    public List<String> getTerms() { return terms; }
+    public boolean isRanked() { return text != null; }
+    public String getItemName() { return itemName; }
+    public String getCategory() { return category; }
+    public String getLocation() { return location; }
+    public DateRange getDates() { return dates; }
+
+    /**
+     * Stable string identifying the filter, for use as a cache key.
+     * Fields are NUL-separated so user input cannot forge another key.
+     */
+    public String key() {
+        return type + "\0" + (text != null ? text.toLowerCase() : null)
+                + "\0" + (itemName != null ? itemName.toLowerCase() : null)
+                + "\0" + (category != null ? category.toLowerCase() : null)
+                + "\0" + (location != null ? location.toLowerCase() : null)
+                + "\0" + dates;
+    }
+
+    /**
+     * In-memory equivalent of the SQL filter.
+     */
+    public boolean matches(Item item) {
+        if (text != null && SearchText.rank(terms, item) == 0f) {
+            return false;
+        }
+        if (type != null && (item.getType() == null || !item.getType().equalsIgnoreCase(type))) {
+            return false;
+        }
+        if (itemName != null && (item.getItemName() == null || !item.getItemName().toLowerCase().contains(itemName.toLowerCase()))) {
+            return false;
+        }
+        if (category != null && (item.getCategory() == null || !item.getCategory().equalsIgnoreCase(category))) {
+            return false;
+        }
+        if (location != null && (item.getLocation() == null || !item.getLocation().toLowerCase().contains(location.toLowerCase()))) {
+            return false;
+        }
+        if (!dates.contains(PageCursor.toLocalDate(item.getDate()))) {
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "ItemQuery{" +
+                "type='" + type + '\'' +
+                ", text='" + text + '\'' +
+                ", itemName='" + itemName + '\'' +
+                ", category='" + category + '\'' +
+                ", location='" + location + '\'' +
+                ", dates=" + dates +
+                '}';
+    }
+}
@@ -0,0 +1,18 @@
+package com.campus.lostfound.dao;
+
+import com.campus.lostfound.model.Item;
+
+import java.io.IOException;
+
+/**
+ * Receives a page of items one row at a time from ItemDAO.streamPage.
+ */
+public interface ItemSink {
+    /**
+     * Called exactly once, before the first item, with the cursor of the
+     * following page (null if this is the last page).
+     */
+    void begin(PageCursor nextCursor) throws IOException;
+
+    void item(Item item) throws IOException;
+}
@@ -0,0 +1,143 @@
+package com.campus.lostfound.dao;
+
+import com.campus.lostfound.model.Item;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Comparator;
+
+/**
+ * Position in the stable item ordering used for keyset pagination:
+ * date DESC (NULL dates first, as in Postgres) then id DESC, or for
+ * relevance-ranked searches rank DESC then id DESC.
+ *
+ * The string form is opaque to clients; it is URL-safe base64 of
+ * "v1|date|id" or "r1|rank|id".
+ */
+public class PageCursor {
+
+    /** Sort order shared by every ItemDAO implementation. */
+    public static final Comparator<Item> ORDER = (a, b) -> {
+        LocalDate da = toLocalDate(a.getDate());
+        LocalDate db = toLocalDate(b.getDate());
+        if (da == null || db == null) {
+            if (da != db) return da == null ? -1 : 1;
+        } else {
+            int c = db.compareTo(da);
+            if (c != 0) return c;
+        }
+        return compareIds(b.getId(), a.getId());
+    };
+
+    private static final String VERSION = "v1";
+    private static final String RANKED_VERSION = "r1";
+
+    private final LocalDate date;
+    private final Float rank;
+    private final String id;
+
+    public PageCursor(LocalDate date, String id) {
+        this(date, null, id);
+    }
+
+    private PageCursor(LocalDate date, Float rank, String id) {
+        if (id == null) {
+            throw new IllegalArgumentException("Cursor id must not be null");
+        }
+        this.date = date;
+        this.rank = rank;
+        this.id = id;
+    }
+
+    /** Cursor for relevance-ordered results. */
+    public static PageCursor ranked(float rank, String id) {
+        return new PageCursor(null, rank, id);
+    }
+
+    /** Cursor pointing just after the given item. */
+    public static PageCursor of(Item item) {
+        return new PageCursor(toLocalDate(item.getDate()), item.getId());
+    }
+
+    public LocalDate getDate() { return date; }
+    public String getId() { return id; }
+    public boolean isRanked() { return rank != null; }
+    public float getRank() { return rank != null ? rank : 0f; }
+
+    /**
+     * Ranked variant of isBefore: true if an item with this rank and id sorts after the cursor.
+     */
+    public boolean isBefore(float itemRank, String itemId) {
+        int c = Float.compare(itemRank, getRank());
+        return c < 0 || (c == 0 && compareIds(itemId, id) < 0);
+    }
+
+    /**
+     * True if the item sorts strictly after this cursor, i.e. belongs on a later page.
+     */
+    public boolean isBefore(Item item) {
+        LocalDate itemDate = toLocalDate(item.getDate());
+        if (date == null) {
+            return itemDate != null || compareIds(item.getId(), id) < 0;
+        }
+        if (itemDate == null) {
+            return false;
+        }
+        int c = itemDate.compareTo(date);
+        return c < 0 || (c == 0 && compareIds(item.getId(), id) < 0);
+    }
+
+    public String encode() {
+        if (rank != null) {
+            String raw = RANKED_VERSION + "|" + Float.toString(rank) + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+        String raw = VERSION + "|" + (date != null ? date.toString() : "") + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parse a cursor produced by encode().
+     *
+     * @throws IllegalArgumentException if the value is not a valid cursor
+     */
+    public static PageCursor decode(String value) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 3);
+            if (parts.length != 3 || parts[2].isEmpty()) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            if (RANKED_VERSION.equals(parts[0])) {
+                return ranked(Float.parseFloat(parts[1]), parts[2]);
+            }
+            if (!VERSION.equals(parts[0])) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            LocalDate d = parts[1].isEmpty() ? null : LocalDate.parse(parts[1]);
+            return new PageCursor(d, parts[2]);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    static LocalDate toLocalDate(java.util.Date d) {
+        if (d == null) return null;
+        return new java.sql.Date(d.getTime()).toLocalDate();
+    }
+
+    // Matches Postgres ordering for the ASCII ids (UUIDs) we generate.
+    private static int compareIds(String a, String b) {
+        if (a == null || b == null) {
+            return a == b ? 0 : (a == null ? -1 : 1);
+        }
+        return a.compareTo(b);
+    }
+
+    @Override
+    public String toString() {
+        return "PageCursor{date=" + date + ", rank=" + rank + ", id='" + id + "'}";
+    }
+}
@@ -0,0 +1,10 @@
+package com.campus.lostfound.dao;
+
+/**
+ * Outcome of UserDAO.register. On a conflict nothing was inserted.
+ */
+public enum RegistrationResult {
+    CREATED,
+    USERNAME_TAKEN,
+    EMAIL_TAKEN
+}
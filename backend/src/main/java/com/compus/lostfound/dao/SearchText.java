@@ -0,0 +1,71 @@
+package com.campus.lostfound.dao;
+
+import com.campus.lostfound.model.Item;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * In-memory counterpart of the Postgres full-text search used by ItemDAOPostgresImpl:
+ * every query term must appear in the item, and matches are weighted like the
+ * search_vector (item name A = 1.0, description B = 0.4, location C = 0.2).
+ */
+public final class SearchText {
+
+    static final float NAME_WEIGHT = 1.0f;
+    static final float DESCRIPTION_WEIGHT = 0.4f;
+    static final float LOCATION_WEIGHT = 0.2f;
+
+    private SearchText() {}
+
+    /** Lower-cased word tokens of the text, in order. */
+    public static List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                terms.add(text.substring(start, i).toLowerCase());
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    public static Set<String> termSet(String text) {
+        return new HashSet<>(terms(text));
+    }
+
+    static float rank(Collection<String> queryTerms, Item item) {
+        return rank(queryTerms, termSet(item.getItemName()), termSet(item.getDescription()), termSet(item.getLocation()));
+    }
+
+    /**
+     * Relevance of an item for the query terms, or 0 if some term is missing.
+     */
+    static float rank(Collection<String> queryTerms, Set<String> name, Set<String> description, Set<String> location) {
+        if (queryTerms.isEmpty()) {
+            return 0f;
+        }
+        float score = 0f;
+        for (String term : queryTerms) {
+            float termScore = 0f;
+            if (name.contains(term)) termScore += NAME_WEIGHT;
+            if (description.contains(term)) termScore += DESCRIPTION_WEIGHT;
+            if (location.contains(term)) termScore += LOCATION_WEIGHT;
+            if (termScore == 0f) {
+                return 0f;
+            }
+            score += termScore;
+        }
+        return score / queryTerms.size();
+    }
+}
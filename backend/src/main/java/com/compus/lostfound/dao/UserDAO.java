@@ -2,8 +2,19 @@ package com.campus.lostfound.dao;
 
 import com.campus.lostfound.model.User;
 
+import java.util.function.BiConsumer;
+
 public interface UserDAO {
     void createUser(User user);
+
+    // Insert unless the username or email is taken, in one round trip; never throws on a duplicate
+    RegistrationResult register(User user);
     User findByUsername(String username);
     User findByEmail(String email);
+
+    // Replace the stored password (hash) for userId; false if no such user
+    boolean updatePassword(String userId, String passwordHash);
+
+    // Every (username, email) pair, for warming in-memory lookups
+    void forEachIdentity(BiConsumer<String, String> consumer);
 }
\ No newline at end of file
@@ -4,29 +4,19 @@ import com.campus.lostfound.model.User;
 import com.campus.lostfound.util.DatabaseUtil;
 import java.sql.*;
 import java.util.UUID;
+import java.util.function.BiConsumer;
 
 public class UserDAOPostgresImpl implements UserDAO {
 
-    public UserDAOPostgresImpl() {
-        try (Connection conn = DatabaseUtil.getConnection()) {
-            ensureTable(conn);
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-    }
-
-    private void ensureTable(Connection conn) throws SQLException {
-        // Create users table if not exists
-        String sql = "CREATE TABLE IF NOT EXISTS users ("
-                   + "id VARCHAR(64) PRIMARY KEY,"
-                   + "username VARCHAR(255) UNIQUE NOT NULL,"
-                   + "password VARCHAR(255) NOT NULL,"
-                   + "email VARCHAR(255) UNIQUE NOT NULL"
-                   + ")";
-        try (Statement st = conn.createStatement()) {
-            st.execute(sql);
-        }
-    }
+    // The EXISTS checks read the snapshot from before the insert, so when
+    // nothing was inserted they name the column that conflicted.
+    private static final String REGISTER_SQL =
+            "WITH ins AS (" +
+            "  INSERT INTO users (id, username, password, email) VALUES (?, ?, ?, ?)" +
+            "  ON CONFLICT DO NOTHING RETURNING id) " +
+            "SELECT EXISTS (SELECT 1 FROM ins) AS created," +
+            " EXISTS (SELECT 1 FROM users WHERE username = ?) AS username_taken," +
+            " EXISTS (SELECT 1 FROM users WHERE email = ?) AS email_taken";
 
     @Override
     public void createUser(User user) {
@@ -46,10 +36,69 @@ public class UserDAOPostgresImpl implements UserDAO {
         }
     }
 
+    @Override
+    public RegistrationResult register(User user) {
+        if (user.getId() == null || user.getId().isEmpty()) {
+            user.setId(UUID.randomUUID().toString());
+        }
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement ps = conn.prepareStatement(REGISTER_SQL)) {
+            ps.setString(1, user.getId());
+            ps.setString(2, user.getUsername());
+            ps.setString(3, user.getPassword());
+            ps.setString(4, user.getEmail());
+            ps.setString(5, user.getUsername());
+            ps.setString(6, user.getEmail());
+            // A row committed by a concurrent signup after our snapshot blocks the
+            // insert without being visible to the EXISTS checks; the retry sees it.
+            for (int attempt = 0; attempt < 2; attempt++) {
+                try (ResultSet rs = ps.executeQuery()) {
+                    rs.next();
+                    if (rs.getBoolean("created")) {
+                        return RegistrationResult.CREATED;
+                    }
+                    if (rs.getBoolean("username_taken")) {
+                        return RegistrationResult.USERNAME_TAKEN;
+                    }
+                    if (rs.getBoolean("email_taken")) {
+                        return RegistrationResult.EMAIL_TAKEN;
+                    }
+                }
+            }
+            // Only the generated id can be left; it is a fresh UUID, so treat as a race on username
+            return RegistrationResult.USERNAME_TAKEN;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error registering user: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void forEachIdentity(BiConsumer<String, String> consumer) {
+        String sql = "SELECT username, email FROM users";
+        try (Connection conn = DatabaseUtil.getReadConnection()) {
+            // Stream through a cursor instead of loading every user at once
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                ps.setFetchSize(1000);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        consumer.accept(rs.getString(1), rs.getString(2));
+                    }
+                }
+            } finally {
+                conn.rollback();
+                conn.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error reading users: " + e.getMessage(), e);
+        }
+    }
+
     @Override
     public User findByUsername(String username) {
         String sql = "SELECT * FROM users WHERE username = ?";
-        try (Connection conn = DatabaseUtil.getConnection();
+        try (Connection conn = DatabaseUtil.getReadConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, username);
             try (ResultSet rs = ps.executeQuery()) {
@@ -64,7 +113,7 @@ public class UserDAOPostgresImpl implements UserDAO {
     @Override
     public User findByEmail(String email) {
         String sql = "SELECT * FROM users WHERE email = ?";
-        try (Connection conn = DatabaseUtil.getConnection();
+        try (Connection conn = DatabaseUtil.getReadConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, email);
             try (ResultSet rs = ps.executeQuery()) {
@@ -76,6 +125,19 @@ public class UserDAOPostgresImpl implements UserDAO {
         return null;
     }
 
+    @Override
+    public boolean updatePassword(String userId, String passwordHash) {
+        String sql = "UPDATE users SET password = ? WHERE id = ?";
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, passwordHash);
+            ps.setString(2, userId);
+            return ps.executeUpdate() > 0;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error updating password: " + e.getMessage(), e);
+        }
+    }
+
     private User mapRow(ResultSet rs) throws SQLException {
         return new User(
             rs.getString("id"),
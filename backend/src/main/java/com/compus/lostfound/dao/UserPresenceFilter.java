@@ -0,0 +1,76 @@
+package com.campus.lostfound.dao;
+
+import com.campus.lostfound.util.BloomFilter;
+
+/**
+ * Answers "is this username/email free?" without a query in the common case.
+ *
+ * A Bloom filter over every registered username and email is loaded once from
+ * the users table and updated on each registration. A miss means the value
+ * is definitely free; only possible hits are checked against the database.
+ * Until warm-up finishes every check goes to the database.
+ *
+ * Signups on other instances are not seen, so "available" is advisory; the
+ * ON CONFLICT insert in register stays the source of truth.
+ */
+public class UserPresenceFilter {
+
+    private final UserDAO userDAO;
+    private final BloomFilter bloom;
+    private volatile boolean ready;
+
+    public UserPresenceFilter(UserDAO userDAO, int expectedUsers, double falsePositiveRate) {
+        this.userDAO = userDAO;
+        // Two entries per user: username and email
+        this.bloom = new BloomFilter(expectedUsers * 2, falsePositiveRate);
+    }
+
+    /** Loads all existing users; call once, off the request path. */
+    public void warm() {
+        long start = System.currentTimeMillis();
+        int[] count = {0};
+        userDAO.forEachIdentity((username, email) -> {
+            add(username, email);
+            count[0]++;
+        });
+        ready = true;
+        System.out.println("User presence filter warmed with " + count[0] + " users in "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    public void add(String username, String email) {
+        if (username != null) {
+            bloom.add(usernameKey(username));
+        }
+        if (email != null) {
+            bloom.add(emailKey(email));
+        }
+    }
+
+    public boolean isUsernameAvailable(String username) {
+        if (ready && !bloom.mightContain(usernameKey(username))) {
+            return true;
+        }
+        return userDAO.findByUsername(username) == null;
+    }
+
+    public boolean isEmailAvailable(String email) {
+        if (ready && !bloom.mightContain(emailKey(email))) {
+            return true;
+        }
+        return userDAO.findByEmail(email) == null;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Prefixed so a username never collides with an identical email string
+    private static String usernameKey(String username) {
+        return "u:" + username;
+    }
+
+    private static String emailKey(String email) {
+        return "e:" + email;
+    }
+}
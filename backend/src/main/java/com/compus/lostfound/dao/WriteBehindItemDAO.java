@@ -0,0 +1,417 @@
+package com.campus.lostfound.dao;
+
+import com.campus.lostfound.metrics.Histogram;
+import com.campus.lostfound.metrics.MetricsRegistry;
+import com.campus.lostfound.model.Item;
+import com.campus.lostfound.util.DatabaseUtil;
+import com.campus.lostfound.util.ReplicaRouter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ItemDAO decorator that queues saves and writes them from one background
+ * thread in group commits: everything waiting when the writer wakes (up to
+ * maxBatch items) goes to the delegate as a single saveAll, so a burst of
+ * creates costs one transaction instead of one per request.
+ *
+ * Durability decides when save returns. QUEUED acknowledges as soon as the
+ * item is in the queue; a crash loses what has not been flushed yet, and a
+ * failed flush is only logged. COMMITTED waits for the group commit holding
+ * the item and rethrows its failure, trading latency for the usual guarantee.
+ *
+ * The queue holds at most capacity items. A save that cannot get room within
+ * offerTimeout throws RejectedExecutionException so the caller can shed load.
+ * A saveAll stays atomic: it is committed whole, in one group, or not at all.
+ *
+ * When a group commit fails, each entry is retried on its own so only the
+ * bad one fails. The failure may have come after the server committed (the
+ * connection dropped before the reply), so an entry whose items are already
+ * stored is counted as written instead of being inserted a second time.
+ *
+ * Reads and deletes go straight to the delegate, so queued items are not
+ * visible to reads until flushed; delete waits for earlier saves first, so
+ * deleting an item just created finds it. close() stops intake and drains.
+ */
+public class WriteBehindItemDAO implements ItemDAO, AutoCloseable {
+
+    public enum Durability { QUEUED, COMMITTED }
+
+    private final ItemDAO delegate;
+    private final Durability durability;
+    private final int capacity;
+    private final int maxBatch;
+    private final long lingerNanos;
+    private final long offerTimeoutNanos;
+
+    private final LinkedBlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    // One permit per queued item; released once the item's group commit is done
+    private final Semaphore room;
+    private final Thread writer;
+    // Guards closed against queue.add so nothing is added once the writer may exit
+    private final Object intake = new Object();
+    private volatile boolean closed;
+
+    private final Histogram flushLatency;
+    private final Histogram batchSize;
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    public WriteBehindItemDAO(ItemDAO delegate, Durability durability, int capacity, int maxBatch,
+                              long lingerMillis, long offerTimeoutMillis, MetricsRegistry registry) {
+        this.delegate = delegate;
+        this.durability = durability;
+        this.capacity = Math.max(1, capacity);
+        this.maxBatch = Math.max(1, maxBatch);
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, lingerMillis));
+        this.offerTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, offerTimeoutMillis));
+        this.room = new Semaphore(this.capacity);
+        this.flushLatency = registry.histogram("item_write_behind_flush_seconds",
+                "Time to write one group commit", Histogram.LATENCY_NANOS, Histogram.NANOS_TO_SECONDS);
+        this.batchSize = registry.histogram("item_write_behind_batch_items",
+                "Items written per group commit", Histogram.SIZES, 1);
+        this.writer = new Thread(this::runWriter, "item-write-behind");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public void save(Item item) {
+        List<Item> items = new ArrayList<>(1);
+        items.add(item);
+        enqueue(items);
+    }
+
+    @Override
+    public void saveAll(List<Item> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        if (items.size() > capacity) {
+            // Could never fit; keep ordering with earlier saves and write it directly
+            awaitQueued();
+            delegate.saveAll(items);
+            return;
+        }
+        enqueue(new ArrayList<>(items));
+    }
+
+    private void enqueue(List<Item> items) {
+        for (Item item : items) {
+            // Assigned here because a QUEUED caller answers with the id before the insert runs
+            if (item.getId() == null || item.getId().isEmpty()) {
+                item.setId(UUID.randomUUID().toString());
+            }
+        }
+        try {
+            if (!room.tryAcquire(items.size(), offerTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                rejected.increment();
+                throw new RejectedExecutionException("Item write-behind queue is full");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted waiting for the item write-behind queue", e);
+        }
+        Pending pending = new Pending(items);
+        synchronized (intake) {
+            if (closed) {
+                room.release(items.size());
+                throw new RejectedExecutionException("Item write-behind queue is closed");
+            }
+            queue.add(pending);
+        }
+        if (durability == Durability.COMMITTED) {
+            await(pending.done);
+        }
+    }
+
+    @Override
+    public boolean delete(String itemId, String userId) {
+        awaitQueued();
+        return delegate.delete(itemId, userId);
+    }
+
+    @Override
+    public List<Item> findAll() {
+        return delegate.findAll();
+    }
+
+    @Override
+    public Item findById(String itemId) {
+        // An item saved a moment ago may still be queued
+        awaitQueued();
+        return delegate.findById(itemId);
+    }
+
+    @Override
+    public List<Item> findByType(String type) {
+        return delegate.findByType(type);
+    }
+
+    @Override
+    public List<Item> search(String itemName, String category, String location, DateRange dates) {
+        return delegate.search(itemName, category, location, dates);
+    }
+
+    @Override
+    public ItemPage findPage(ItemQuery query, PageCursor after, int limit) {
+        return delegate.findPage(query, after, limit);
+    }
+
+    @Override
+    public void streamPage(ItemQuery query, PageCursor after, int limit, ItemSink sink) throws IOException {
+        delegate.streamPage(query, after, limit, sink);
+    }
+
+    /** Blocks until everything queued before this call has been written (or has failed). */
+    private void awaitQueued() {
+        if (queue.isEmpty() && room.availablePermits() == capacity) {
+            return;
+        }
+        // A marker goes through the writer like any other entry, after everything ahead of it
+        Pending marker = new Pending(new ArrayList<>());
+        synchronized (intake) {
+            if (closed) {
+                // The writer is already draining everything that was accepted
+                return;
+            }
+            queue.add(marker);
+        }
+        try {
+            marker.done.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted waiting for queued item writes", e);
+        } catch (ExecutionException e) {
+            // Markers never fail
+        }
+    }
+
+    private static void await(CompletableFuture<Void> done) {
+        try {
+            done.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted waiting for the item write", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException("Error saving item: " + cause.getMessage(), cause);
+        }
+    }
+
+    private void runWriter() {
+        List<Pending> group = new ArrayList<>();
+        // Taken while lingering but too big for the group; it starts the next one
+        Pending carry = null;
+        while (true) {
+            Pending first = carry;
+            carry = null;
+            if (first == null) {
+                first = poll(100_000_000L);
+            }
+            if (first == null) {
+                if (closed && queue.isEmpty()) {
+                    return;
+                }
+                continue;
+            }
+            group.add(first);
+            int items = first.items.size();
+            long deadline = System.nanoTime() + lingerNanos;
+            while (items < maxBatch) {
+                Pending next = queue.peek();
+                if (next == null) {
+                    long wait = deadline - System.nanoTime();
+                    if (closed || wait <= 0 || (next = poll(wait)) == null) {
+                        break;
+                    }
+                    if (items + next.items.size() > maxBatch) {
+                        carry = next;
+                        break;
+                    }
+                } else if (items + next.items.size() > maxBatch) {
+                    break;
+                } else {
+                    // Single consumer: this removes the entry just peeked
+                    queue.poll();
+                }
+                group.add(next);
+                items += next.items.size();
+            }
+            flush(group, items);
+            group.clear();
+        }
+    }
+
+    private Pending poll(long nanos) {
+        try {
+            return queue.poll(nanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            return null;
+        }
+    }
+
+    private void flush(List<Pending> group, int itemCount) {
+        if (itemCount > 0) {
+            List<Item> items = new ArrayList<>(itemCount);
+            for (Pending p : group) {
+                items.addAll(p.items);
+            }
+            long start = System.nanoTime();
+            try {
+                delegate.saveAll(items);
+                flushLatency.recordSince(start);
+                batchSize.record(itemCount);
+                flushes.increment();
+                complete(group, null);
+                return;
+            } catch (RuntimeException e) {
+                flushLatency.recordSince(start);
+                if (group.size() == 1) {
+                    complete(group, e);
+                    return;
+                }
+                // One bad entry rolls back the whole group; retry entry by entry so only it fails
+            }
+            for (Pending p : group) {
+                List<Pending> single = new ArrayList<>(1);
+                single.add(p);
+                if (p.items.isEmpty() || alreadyStored(p.items)) {
+                    complete(single, null);
+                    continue;
+                }
+                long retryStart = System.nanoTime();
+                try {
+                    delegate.saveAll(p.items);
+                    flushLatency.recordSince(retryStart);
+                    batchSize.record(p.items.size());
+                    flushes.increment();
+                    complete(single, null);
+                } catch (RuntimeException e) {
+                    flushLatency.recordSince(retryStart);
+                    complete(single, e);
+                }
+            }
+            return;
+        }
+        complete(group, null);
+    }
+
+    /**
+     * True if every item is already in the delegate, read from the primary so
+     * neither the cache nor a lagging replica answers.
+     */
+    private boolean alreadyStored(List<Item> items) {
+        ReplicaRouter.PrimaryReads primary = DatabaseUtil.pinPrimaryReads();
+        try {
+            for (Item item : items) {
+                Item stored = delegate.findById(item.getId());
+                if (stored == null || !Objects.equals(stored.getUserId(), item.getUserId())
+                        || !Objects.equals(stored.getItemName(), item.getItemName())) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (RuntimeException e) {
+            // Could not tell; the retry reports whatever is wrong
+            return false;
+        } finally {
+            primary.close();
+        }
+    }
+
+    private void complete(List<Pending> group, RuntimeException error) {
+        for (Pending p : group) {
+            if (!p.items.isEmpty()) {
+                room.release(p.items.size());
+            }
+            if (error == null) {
+                p.done.complete(null);
+                continue;
+            }
+            p.done.completeExceptionally(error);
+            if (!p.items.isEmpty()) {
+                failed.add(p.items.size());
+                if (durability == Durability.QUEUED) {
+                    // Nobody is waiting on the result; the log is the only trace of the lost write
+                    System.err.println("Write-behind dropped " + p.items.size() + " item(s), first id "
+                            + p.items.get(0).getId() + ": " + error.getMessage());
+                    error.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /** Items accepted and not yet written (queued or in the group being committed). */
+    public int getQueuedItems() {
+        return capacity - room.availablePermits();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public Durability getDurability() {
+        return durability;
+    }
+
+    public long getFlushCount() {
+        return flushes.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    /**
+     * Stops accepting saves and waits up to timeout for the queue to drain.
+     * Returns true if every accepted item was written (or reported failed).
+     */
+    public boolean close(long timeout, TimeUnit unit) {
+        synchronized (intake) {
+            closed = true;
+        }
+        try {
+            writer.join(unit.toMillis(timeout));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            System.err.println("Write-behind queue not drained on close; " + getQueuedItems() + " item(s) unwritten");
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void close() {
+        close(30, TimeUnit.SECONDS);
+    }
+
+    private static final class Pending {
+        final List<Item> items;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Pending(List<Item> items) {
+            this.items = items;
+        }
+    }
+}
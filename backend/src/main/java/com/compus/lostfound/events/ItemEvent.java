@@ -0,0 +1,57 @@
+package com.campus.lostfound.events;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * One change-feed event, pre-encoded as a Server-Sent Events frame so it is
+ * serialized once no matter how many clients receive it.
+ */
+public final class ItemEvent {
+
+    public static final String CREATED = "item-created";
+    public static final String DELETED = "item-deleted";
+    /** Many items archived at once; data is {"count": n}. Clients should refetch. */
+    public static final String ARCHIVED = "items-archived";
+    /** Sent when a client resumes from an id that is no longer buffered; it should refetch. */
+    public static final String RESET = "reset";
+
+    private final long id;
+    private final String name;
+    private final String data;
+    private final byte[] frame;
+
+    ItemEvent(long id, String name, String data) {
+        this.id = id;
+        this.name = name;
+        this.data = data;
+        StringBuilder sb = new StringBuilder(data.length() + 48);
+        if (id > 0) {
+            sb.append("id: ").append(id).append('\n');
+        }
+        sb.append("event: ").append(name).append('\n');
+        // data must be a single line; compact JSON escapes newlines inside strings
+        sb.append("data: ").append(data).append("\n\n");
+        this.frame = sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** Unnumbered event; it does not move the client's Last-Event-ID. */
+    static ItemEvent unnumbered(String name, String data) {
+        return new ItemEvent(0, name, data);
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getData() {
+        return data;
+    }
+
+    public byte[] getFrame() {
+        return frame;
+    }
+}
@@ -0,0 +1,133 @@
+package com.campus.lostfound.events;
+
+import com.campus.lostfound.util.Env;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process fan-out of item change events to change-feed subscribers.
+ *
+ * Every published event gets the next id and is kept in a bounded ring so a
+ * reconnecting client can resume after its Last-Event-ID. Ids are seeded
+ * from the clock, so after a restart a client's old id is older than the
+ * buffer and it is told to refetch instead of silently missing events.
+ *
+ * Subscribers only queue events while the bus lock is held, which keeps the
+ * order identical for every client; the actual writes happen after the lock
+ * is released, on the subscriber's own terms.
+ */
+public final class ItemEventBus {
+
+    /**
+     * A change-feed client. offer must not block; flush is called outside the
+     * bus lock to start writing whatever was queued.
+     */
+    public interface Subscriber {
+        boolean offer(ItemEvent event);
+
+        void flush();
+    }
+
+    private static volatile ItemEventBus shared;
+
+    private final ItemEvent[] ring;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final Object lock = new Object();
+    private long lastId;
+    private long firstId;
+
+    public ItemEventBus(int replaySize) {
+        this.ring = new ItemEvent[Math.max(1, replaySize)];
+        this.lastId = System.currentTimeMillis();
+        this.firstId = lastId + 1;
+    }
+
+    public static ItemEventBus shared() {
+        ItemEventBus b = shared;
+        if (b == null) {
+            synchronized (ItemEventBus.class) {
+                b = shared;
+                if (b == null) {
+                    b = new ItemEventBus(Env.getInt("ITEM_EVENTS_REPLAY_SIZE", 1024));
+                    shared = b;
+                }
+            }
+        }
+        return b;
+    }
+
+    public void publish(String name, String data) {
+        List<Subscriber> targets;
+        synchronized (lock) {
+            ItemEvent event = new ItemEvent(++lastId, name, data);
+            ring[(int) (event.getId() % ring.length)] = event;
+            targets = new ArrayList<>(subscribers);
+            for (Subscriber s : targets) {
+                s.offer(event);
+            }
+        }
+        for (Subscriber s : targets) {
+            s.flush();
+        }
+    }
+
+    /**
+     * Sends an unnumbered event, such as RESET, to every subscriber without
+     * recording it for replay.
+     */
+    public void broadcast(String name, String data) {
+        ItemEvent event = ItemEvent.unnumbered(name, data);
+        List<Subscriber> targets;
+        synchronized (lock) {
+            targets = new ArrayList<>(subscribers);
+            for (Subscriber s : targets) {
+                s.offer(event);
+            }
+        }
+        for (Subscriber s : targets) {
+            s.flush();
+        }
+    }
+
+    /**
+     * Registers the subscriber and queues the events it missed after
+     * lastEventId (a negative id means a fresh connection). If those events
+     * are no longer buffered a RESET is queued instead.
+     */
+    public void subscribe(Subscriber subscriber, long lastEventId) {
+        synchronized (lock) {
+            if (lastEventId >= 0 && lastEventId < lastId) {
+                long oldest = Math.max(firstId, lastId - ring.length + 1);
+                if (lastEventId < oldest - 1) {
+                    subscriber.offer(ItemEvent.unnumbered(ItemEvent.RESET, "{\"reason\": \"replay-expired\"}"));
+                } else {
+                    for (long id = lastEventId + 1; id <= lastId; id++) {
+                        subscriber.offer(ring[(int) (id % ring.length)]);
+                    }
+                }
+            } else if (lastEventId > lastId) {
+                // An id from before a restart (or made up); nothing to replay from
+                subscriber.offer(ItemEvent.unnumbered(ItemEvent.RESET, "{\"reason\": \"unknown-id\"}"));
+            }
+            subscribers.add(subscriber);
+        }
+        subscriber.flush();
+    }
+
+    public void unsubscribe(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    public long getLastId() {
+        synchronized (lock) {
+            return lastId;
+        }
+    }
+}
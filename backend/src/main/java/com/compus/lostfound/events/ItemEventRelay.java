@@ -0,0 +1,165 @@
+package com.campus.lostfound.events;
+
+import com.campus.lostfound.dao.ItemChangeTracker;
+import com.campus.lostfound.model.Item;
+import com.campus.lostfound.util.DatabaseUtil;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Feeds item writes into the ItemEventBus.
+ *
+ * In local mode each write seen by ItemChangeTracker is published directly.
+ * In Postgres mode it is sent with NOTIFY instead, and a LISTEN session on a
+ * dedicated connection publishes what arrives, so every instance sharing the
+ * database streams every write, its own included. If the LISTEN connection
+ * drops, clients get a RESET once it is back since events may have been missed.
+ * Each notification also bumps the ItemChangeTracker version, so listing
+ * ETags change with writes made on other instances.
+ */
+public class ItemEventRelay implements ItemChangeTracker.Listener {
+
+    public static final String CHANNEL = "item_events";
+    // NOTIFY payloads are limited to 8000 bytes
+    private static final int MAX_PAYLOAD_BYTES = 7900;
+    private static final long LISTEN_POLL_MS = 10000;
+    private static final long MAX_RECONNECT_DELAY_MS = 30000;
+
+    private final ItemEventBus bus;
+    private final Gson gson;
+    private final boolean postgres;
+    private volatile boolean running;
+    private Thread listener;
+
+    public ItemEventRelay(ItemEventBus bus, Gson gson, boolean postgres) {
+        this.bus = bus;
+        this.gson = gson;
+        this.postgres = postgres;
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        if (postgres) {
+            listener = new Thread(this::listenLoop, "item-events-listen");
+            listener.setDaemon(true);
+            listener.start();
+        }
+        ItemChangeTracker.addListener(this);
+    }
+
+    public synchronized void stop() {
+        running = false;
+        ItemChangeTracker.removeListener(this);
+        if (postgres) {
+            ItemChangeTracker.remoteFeedConnected(false);
+        }
+        if (listener != null) {
+            listener.interrupt();
+            listener = null;
+        }
+    }
+
+    @Override
+    public void itemSaved(Item item) {
+        emit(ItemEvent.CREATED, gson.toJson(item), item);
+    }
+
+    @Override
+    public void itemDeleted(String itemId) {
+        JsonObject data = new JsonObject();
+        data.addProperty("id", itemId);
+        emit(ItemEvent.DELETED, data.toString(), null);
+    }
+
+    /** One event for the whole batch: per-id deletes would make every client refetch once per item. */
+    @Override
+    public void itemsArchived(List<String> itemIds) {
+        JsonObject data = new JsonObject();
+        data.addProperty("count", itemIds.size());
+        emit(ItemEvent.ARCHIVED, data.toString(), null);
+    }
+
+    private void emit(String name, String data, Item item) {
+        if (!postgres) {
+            bus.publish(name, data);
+            return;
+        }
+        String payload = name + "\n" + data;
+        if (payload.getBytes(StandardCharsets.UTF_8).length > MAX_PAYLOAD_BYTES && item != null) {
+            // Too big to send whole; clients fetch the item if they need more than this
+            JsonObject stub = new JsonObject();
+            stub.addProperty("id", item.getId());
+            stub.addProperty("type", item.getType());
+            stub.addProperty("partial", true);
+            payload = name + "\n" + stub;
+        }
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT pg_notify(?, ?)")) {
+            ps.setString(1, CHANNEL);
+            ps.setString(2, payload);
+            ps.execute();
+        } catch (SQLException | RuntimeException e) {
+            // The write itself succeeded; only live clients miss this event
+            System.err.println("Failed to publish item event: " + e.getMessage());
+        }
+    }
+
+    private void listenLoop() {
+        long delay = 1000;
+        boolean connectedBefore = false;
+        while (running) {
+            try (Connection conn = DatabaseUtil.openDedicatedConnection()) {
+                try (Statement st = conn.createStatement()) {
+                    st.execute("LISTEN " + CHANNEL);
+                }
+                PGConnection pg = conn.unwrap(PGConnection.class);
+                ItemChangeTracker.remoteFeedConnected(true);
+                if (connectedBefore) {
+                    bus.broadcast(ItemEvent.RESET, "{\"reason\": \"feed-interrupted\"}");
+                }
+                connectedBefore = true;
+                delay = 1000;
+                while (running) {
+                    PGNotification[] notifications = pg.getNotifications((int) LISTEN_POLL_MS);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    // Own writes come back too; one more bump for those is harmless
+                    ItemChangeTracker.changed();
+                    for (PGNotification n : notifications) {
+                        String payload = n.getParameter();
+                        int split = payload.indexOf('\n');
+                        if (split > 0) {
+                            bus.publish(payload.substring(0, split), payload.substring(split + 1));
+                        }
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                ItemChangeTracker.remoteFeedConnected(false);
+                if (!running) {
+                    return;
+                }
+                System.err.println("Item event LISTEN connection failed, retrying in " + delay + " ms: " + e.getMessage());
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+                delay = Math.min(delay * 2, MAX_RECONNECT_DELAY_MS);
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.campus.lostfound.facet;
+
+import java.util.List;
+
+/**
+ * Item counts per facet value, serialized as the /api/items/facets response.
+ * Value lists are ordered by count, highest first; days are in date order
+ * and include days with no items, so the list can be charted directly.
+ */
+public final class FacetCounts {
+
+    /**
+     * One facet value and how many items have it.
+     */
+    public static final class ValueCount {
+        private final String value;
+        private final long count;
+
+        ValueCount(String value, long count) {
+            this.value = value;
+            this.count = count;
+        }
+
+        public String getValue() { return value; }
+        public long getCount() { return count; }
+    }
+
+    /**
+     * Items dated on one day (yyyy-MM-dd).
+     */
+    public static final class DayCount {
+        private final String date;
+        private final long count;
+
+        DayCount(String date, long count) {
+            this.date = date;
+            this.count = count;
+        }
+
+        public String getDate() { return date; }
+        public long getCount() { return count; }
+    }
+
+    private final long total;
+    private final boolean filtered;
+    private final List<ValueCount> category;
+    private final List<ValueCount> location;
+    private final List<ValueCount> type;
+    private final List<ValueCount> status;
+    private final List<DayCount> days;
+
+    FacetCounts(long total, boolean filtered, List<ValueCount> category, List<ValueCount> location,
+                List<ValueCount> type, List<ValueCount> status, List<DayCount> days) {
+        this.total = total;
+        this.filtered = filtered;
+        this.category = category;
+        this.location = location;
+        this.type = type;
+        this.status = status;
+        this.days = days;
+    }
+
+    public long getTotal() { return total; }
+    public boolean isFiltered() { return filtered; }
+    public List<ValueCount> getCategory() { return category; }
+    public List<ValueCount> getLocation() { return location; }
+    public List<ValueCount> getType() { return type; }
+    public List<ValueCount> getStatus() { return status; }
+    public List<DayCount> getDays() { return days; }
+}
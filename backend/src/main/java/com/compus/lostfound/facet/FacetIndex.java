@@ -0,0 +1,345 @@
+package com.campus.lostfound.facet;
+
+import com.campus.lostfound.dao.DateRange;
+import com.campus.lostfound.dao.ItemChangeTracker;
+import com.campus.lostfound.dao.ItemQuery;
+import com.campus.lostfound.model.Item;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory facet counts for GET /api/items/facets.
+ *
+ * Keeps a copy of every item plus a LongAdder per (facet, value): category,
+ * location, type, status and item date. A save decrements the counters of
+ * the previous version of the item and increments the new ones, so the
+ * unfiltered answer is read straight from the counters without touching the
+ * database. Updates to one item are serialized by ConcurrentHashMap.compute;
+ * a reader may see a save half applied, which is fine for counts.
+ *
+ * Counts restricted to a search filter scan only the smallest candidate set
+ * (the items of the filter's type, category or date range, each indexed by
+ * id) and apply ItemQuery.matches to those.
+ *
+ * Like MatchEngine, the index listens to ItemChangeTracker and only sees
+ * writes made by this process. backfill loads the table once; writes that
+ * arrive meanwhile are queued and applied after it.
+ */
+public class FacetIndex implements ItemChangeTracker.Listener {
+
+    // Longest histogram returned, in days
+    static final int MAX_HISTOGRAM_DAYS = 366;
+
+    private final int defaultHistogramDays;
+
+    private final Map<String, Item> items = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> categories = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> locations = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> types = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> statuses = new ConcurrentHashMap<>();
+    private final NavigableMap<LocalDate, LongAdder> days = new ConcurrentSkipListMap<>();
+
+    // Item ids by upper-cased type, lower-cased category and date: candidate sets for filtered counts
+    private final Map<String, Set<String>> idsByType = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> idsByCategory = new ConcurrentHashMap<>();
+    private final NavigableMap<LocalDate, Set<String>> idsByDay = new ConcurrentSkipListMap<>();
+
+    private final Object pendingLock = new Object();
+    private List<Runnable> pending = new ArrayList<>();
+    private volatile boolean ready;
+
+    /**
+     * @param defaultHistogramDays days in the histogram when the filter has no date range
+     */
+    public FacetIndex(int defaultHistogramDays) {
+        this.defaultHistogramDays = Math.max(1, Math.min(MAX_HISTOGRAM_DAYS, defaultHistogramDays));
+    }
+
+    /**
+     * Counts all existing items; call once, off the request path, after the
+     * index has been registered as a listener.
+     */
+    public void backfill(List<Item> all) {
+        long start = System.currentTimeMillis();
+        for (Item item : all) {
+            put(item);
+        }
+        synchronized (pendingLock) {
+            for (Runnable r : pending) {
+                r.run();
+            }
+            pending = null;
+            ready = true;
+        }
+        System.out.println("Facet index counted " + items.size() + " items in "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    @Override
+    public void itemSaved(Item item) {
+        if (!deferred(() -> put(item))) {
+            put(item);
+        }
+    }
+
+    @Override
+    public void itemDeleted(String itemId) {
+        if (!deferred(() -> remove(itemId))) {
+            remove(itemId);
+        }
+    }
+
+    private boolean deferred(Runnable event) {
+        if (ready) {
+            return false;
+        }
+        synchronized (pendingLock) {
+            if (pending == null) {
+                return false;
+            }
+            pending.add(event);
+            return true;
+        }
+    }
+
+    private void put(Item item) {
+        if (item == null || item.getId() == null) {
+            return;
+        }
+        items.compute(item.getId(), (id, previous) -> {
+            if (previous != null) {
+                count(previous, -1);
+            }
+            count(item, 1);
+            return item;
+        });
+    }
+
+    private void remove(String itemId) {
+        if (itemId == null) {
+            return;
+        }
+        items.computeIfPresent(itemId, (id, previous) -> {
+            count(previous, -1);
+            return null;
+        });
+    }
+
+    private void count(Item item, int delta) {
+        add(categories, item.getCategory(), delta);
+        add(locations, item.getLocation(), delta);
+        add(types, item.getType(), delta);
+        add(statuses, item.getStatus(), delta);
+        LocalDate day = toLocalDate(item.getDate());
+        if (day != null) {
+            days.computeIfAbsent(day, d -> new LongAdder()).add(delta);
+        }
+
+        String id = item.getId();
+        index(idsByType, item.getType() != null ? item.getType().toUpperCase() : null, id, delta);
+        index(idsByCategory, item.getCategory() != null ? item.getCategory().toLowerCase() : null, id, delta);
+        if (day != null) {
+            index(idsByDay, day, id, delta);
+        }
+    }
+
+    private static void add(Map<String, LongAdder> counters, String value, int delta) {
+        if (value != null && !value.isEmpty()) {
+            counters.computeIfAbsent(value, v -> new LongAdder()).add(delta);
+        }
+    }
+
+    private static <K> void index(Map<K, Set<String>> ids, K key, String id, int delta) {
+        if (key == null) {
+            return;
+        }
+        if (delta > 0) {
+            ids.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(id);
+        } else {
+            Set<String> set = ids.get(key);
+            if (set != null) {
+                set.remove(id);
+            }
+        }
+    }
+
+    /**
+     * Facet counts for the items matching query, top limit values per facet.
+     * The histogram covers the query's date range (an open end is filled in
+     * from today or the other end) or, without one, the last
+     * defaultHistogramDays days; it is cut to the most recent
+     * MAX_HISTOGRAM_DAYS.
+     */
+    public FacetCounts counts(ItemQuery query, int limit, LocalDate today) {
+        LocalDate[] window = histogramWindow(query.getDates(), today);
+        if (isUnfiltered(query)) {
+            return new FacetCounts(items.size(), false, top(categories, limit), top(locations, limit),
+                    top(types, limit), top(statuses, limit), histogram(days, window[0], window[1]));
+        }
+
+        Map<String, long[]> category = new HashMap<>();
+        Map<String, long[]> location = new HashMap<>();
+        Map<String, long[]> type = new HashMap<>();
+        Map<String, long[]> status = new HashMap<>();
+        Map<LocalDate, long[]> day = new HashMap<>();
+        long total = 0;
+        for (String id : candidates(query)) {
+            Item item = items.get(id);
+            if (item == null || !query.matches(item)) {
+                continue;
+            }
+            total++;
+            tally(category, item.getCategory());
+            tally(location, item.getLocation());
+            tally(type, item.getType());
+            tally(status, item.getStatus());
+            LocalDate d = toLocalDate(item.getDate());
+            if (d != null) {
+                day.computeIfAbsent(d, k -> new long[1])[0]++;
+            }
+        }
+        List<FacetCounts.DayCount> histogram = new ArrayList<>();
+        for (LocalDate d = window[0]; !d.isAfter(window[1]); d = d.plusDays(1)) {
+            long[] n = day.get(d);
+            histogram.add(new FacetCounts.DayCount(d.toString(), n != null ? n[0] : 0));
+        }
+        return new FacetCounts(total, true, sorted(category, limit), sorted(location, limit),
+                sorted(type, limit), sorted(status, limit), histogram);
+    }
+
+    private static boolean isUnfiltered(ItemQuery query) {
+        return query.getType() == null && query.getText() == null && query.getItemName() == null
+                && query.getCategory() == null && query.getLocation() == null && !query.getDates().isBounded();
+    }
+
+    /**
+     * Ids of a superset of the matching items: the smallest of the type,
+     * category and date-range sets the query restricts, else every item.
+     */
+    private Collection<String> candidates(ItemQuery query) {
+        Collection<String> best = null;
+        if (query.getType() != null) {
+            best = orEmpty(idsByType.get(query.getType()));
+        }
+        if (query.getCategory() != null) {
+            best = smaller(best, orEmpty(idsByCategory.get(query.getCategory().toLowerCase())));
+        }
+        DateRange dates = query.getDates();
+        if (dates.isBounded() && (best == null || best.size() > 0)) {
+            NavigableMap<LocalDate, Set<String>> range = idsByDay;
+            if (dates.getFrom() != null && dates.getTo() != null) {
+                range = idsByDay.subMap(dates.getFrom(), true, dates.getTo(), true);
+            } else if (dates.getFrom() != null) {
+                range = idsByDay.tailMap(dates.getFrom(), true);
+            } else if (dates.getTo() != null) {
+                range = idsByDay.headMap(dates.getTo(), true);
+            }
+            long inRange = 0;
+            for (Set<String> ids : range.values()) {
+                inRange += ids.size();
+            }
+            if (best == null || inRange < best.size()) {
+                List<String> ids = new ArrayList<>((int) Math.min(inRange, Integer.MAX_VALUE));
+                for (Set<String> s : range.values()) {
+                    ids.addAll(s);
+                }
+                best = ids;
+            }
+        }
+        return best != null ? best : items.keySet();
+    }
+
+    private static Collection<String> orEmpty(Set<String> ids) {
+        return ids != null ? ids : Collections.<String>emptySet();
+    }
+
+    private static Collection<String> smaller(Collection<String> a, Collection<String> b) {
+        return a == null || b.size() < a.size() ? b : a;
+    }
+
+    private LocalDate[] histogramWindow(DateRange dates, LocalDate today) {
+        LocalDate from = dates.getFrom();
+        LocalDate to = dates.getTo();
+        if (to == null) {
+            to = from != null && from.isAfter(today) ? from.plusDays(defaultHistogramDays - 1) : today;
+        }
+        if (from == null) {
+            from = to.minusDays(defaultHistogramDays - 1);
+        }
+        if (from.isBefore(to.minusDays(MAX_HISTOGRAM_DAYS - 1))) {
+            from = to.minusDays(MAX_HISTOGRAM_DAYS - 1);
+        }
+        return new LocalDate[] {from, to};
+    }
+
+    private static List<FacetCounts.DayCount> histogram(NavigableMap<LocalDate, LongAdder> days,
+                                                        LocalDate from, LocalDate to) {
+        List<FacetCounts.DayCount> result = new ArrayList<>();
+        for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) {
+            LongAdder n = days.get(d);
+            result.add(new FacetCounts.DayCount(d.toString(), n != null ? Math.max(0, n.sum()) : 0));
+        }
+        return result;
+    }
+
+    private static List<FacetCounts.ValueCount> top(Map<String, LongAdder> counters, int limit) {
+        List<FacetCounts.ValueCount> values = new ArrayList<>();
+        for (Map.Entry<String, LongAdder> e : counters.entrySet()) {
+            long n = e.getValue().sum();
+            // Values whose items were all deleted or changed keep a zero counter
+            if (n > 0) {
+                values.add(new FacetCounts.ValueCount(e.getKey(), n));
+            }
+        }
+        return limit(values, limit);
+    }
+
+    private static void tally(Map<String, long[]> counts, String value) {
+        if (value != null && !value.isEmpty()) {
+            counts.computeIfAbsent(value, v -> new long[1])[0]++;
+        }
+    }
+
+    private static List<FacetCounts.ValueCount> sorted(Map<String, long[]> counts, int limit) {
+        List<FacetCounts.ValueCount> values = new ArrayList<>(counts.size());
+        for (Map.Entry<String, long[]> e : counts.entrySet()) {
+            values.add(new FacetCounts.ValueCount(e.getKey(), e.getValue()[0]));
+        }
+        return limit(values, limit);
+    }
+
+    private static List<FacetCounts.ValueCount> limit(List<FacetCounts.ValueCount> values, int limit) {
+        values.sort((a, b) -> a.getCount() != b.getCount()
+                ? Long.compare(b.getCount(), a.getCount())
+                : a.getValue().compareTo(b.getValue()));
+        return values.size() > limit ? new ArrayList<>(values.subList(0, limit)) : values;
+    }
+
+    private static LocalDate toLocalDate(Date date) {
+        if (date == null) {
+            return null;
+        }
+        return date instanceof java.sql.Date ? ((java.sql.Date) date).toLocalDate()
+                : new java.sql.Date(date.getTime()).toLocalDate();
+    }
+}
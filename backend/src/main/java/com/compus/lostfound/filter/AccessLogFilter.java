@@ -0,0 +1,77 @@
+package com.campus.lostfound.filter;
+
+import com.campus.lostfound.util.AccessLog;
+import com.campus.lostfound.util.Env;
+
+import javax.servlet.*;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Writes one AccessLog line per request: method, path, status, latency,
+ * body bytes and the authenticated user. Mapped first so CORS preflights
+ * and requests shed by admission control are logged too. Async requests
+ * are logged when they complete.
+ */
+public class AccessLogFilter implements Filter {
+
+    private AccessLog log;
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        if (Env.getBoolean("ACCESS_LOG_ENABLED", true)) {
+            log = AccessLog.shared();
+        }
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
+        if (log == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        HttpServletRequest req = (HttpServletRequest) request;
+        // Captured now: the container recycles path information before an async request completes
+        String method = req.getMethod();
+        String path = req.getRequestURI();
+        long start = System.nanoTime();
+        MetricsFilter.CountingResponse wrapper = new MetricsFilter.CountingResponse((HttpServletResponse) response);
+        boolean async = false;
+        try {
+            chain.doFilter(request, wrapper);
+            if (request.isAsyncStarted()) {
+                async = true;
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        record(req, method, path, wrapper, start);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {}
+
+                    @Override
+                    public void onError(AsyncEvent event) {}
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {}
+                });
+            }
+        } finally {
+            if (!async) {
+                record(req, method, path, wrapper, start);
+            }
+        }
+    }
+
+    private void record(HttpServletRequest req, String method, String path,
+                        MetricsFilter.CountingResponse res, long start) {
+        log.log(method, path, res.getStatus(), System.nanoTime() - start, res.bytes, AuthFilter.userId(req));
+    }
+
+    @Override
+    public void destroy() {}
+}
@@ -0,0 +1,207 @@
+package com.campus.lostfound.filter;
+
+import com.campus.lostfound.metrics.Counter;
+import com.campus.lostfound.metrics.MetricsRegistry;
+import com.campus.lostfound.util.Env;
+import com.campus.lostfound.util.RateLimiter;
+import com.campus.lostfound.util.TokenService;
+
+import javax.servlet.*;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Admission control for /api/*: sheds excess load up front, with a clear
+ * answer, instead of letting it queue for database connections until every
+ * request times out.
+ *
+ * Requests are split into classes (reads, writes, and auth for login,
+ * register and logout), each with its own limits:
+ * - a per-client token bucket (the authenticated user, else the client IP);
+ *   over the rate gets 429 with Retry-After set to when a token is free
+ * - a global cap on requests of the class in flight at once; when it is
+ *   reached a request waits up to ADMISSION_QUEUE_WAIT_MS, then gets 503
+ *
+ * Health, metrics and the SSE stream are not limited by concurrency (stream
+ * connects still pass the read bucket). Rejections are counted per class
+ * and reason. Mapped after MetricsFilter so shed requests show up there too.
+ */
+public class AdmissionFilter implements Filter {
+
+    /**
+     * Limits and counters for one request class.
+     */
+    private static final class Limits {
+        final RateLimiter rate;
+        final Semaphore slots;
+        final Counter rateLimited;
+        final Counter overloaded;
+
+        Limits(String name, MetricsRegistry registry, double defaultRate, int defaultBurst,
+               int defaultConcurrency, int stripes) {
+            String prefix = "ADMISSION_" + name.toUpperCase() + "_";
+            this.rate = new RateLimiter(Env.getDouble(prefix + "RATE", defaultRate),
+                    Env.getInt(prefix + "BURST", defaultBurst), stripes);
+            int concurrency = Env.getInt(prefix + "CONCURRENCY", defaultConcurrency);
+            this.slots = new Semaphore(concurrency);
+            this.rateLimited = registry.counter("admission_rejected_total",
+                    "Requests shed by admission control", "class", name, "reason", "rate");
+            this.overloaded = registry.counter("admission_rejected_total",
+                    "Requests shed by admission control", "class", name, "reason", "concurrency");
+            registry.gauge("admission_in_flight", "Admitted requests in progress",
+                    () -> concurrency - slots.availablePermits(), "class", name);
+            registry.gauge("admission_concurrency_limit", "Requests of the class allowed in flight at once",
+                    () -> concurrency, "class", name);
+        }
+    }
+
+    private boolean enabled;
+    private boolean trustForwardedFor;
+    private long queueWaitMillis;
+    private TokenService tokens;
+    private Limits reads;
+    private Limits writes;
+    private Limits auth;
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        enabled = Env.getBoolean("ADMISSION_ENABLED", true);
+        if (!enabled) {
+            return;
+        }
+        trustForwardedFor = Env.getBoolean("ADMISSION_TRUST_FORWARDED_FOR", false);
+        queueWaitMillis = Env.getInt("ADMISSION_QUEUE_WAIT_MS", 50);
+        tokens = TokenService.shared();
+        MetricsRegistry registry = MetricsRegistry.shared();
+        int stripes = Env.getInt("ADMISSION_STRIPES", 65536);
+        reads = new Limits("read", registry, 20, 40, 64, stripes);
+        writes = new Limits("write", registry, 2, 10, 16, stripes);
+        // Login and register hash passwords, which is CPU bound; keep both tight
+        auth = new Limits("auth", registry, 1, 5, 8, stripes);
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
+        if (!enabled) {
+            chain.doFilter(request, response);
+            return;
+        }
+        HttpServletRequest req = (HttpServletRequest) request;
+        HttpServletResponse res = (HttpServletResponse) response;
+        String path = req.getRequestURI().substring(req.getContextPath().length());
+        if (path.startsWith("/api/health") || path.startsWith("/api/metrics")) {
+            chain.doFilter(request, response);
+            return;
+        }
+        Limits limits = limitsFor(path, req.getMethod());
+
+        long waitNanos = limits.rate.tryAcquire(clientKey(req));
+        if (waitNanos > 0) {
+            limits.rateLimited.inc();
+            long seconds = Math.max(1, (waitNanos + 999_999_999L) / 1_000_000_000L);
+            reject(res, 429, seconds, "Too many requests, please slow down");
+            return;
+        }
+        if (path.startsWith("/api/items/stream")) {
+            // Long-lived; holding a slot would starve short reads
+            chain.doFilter(request, response);
+            return;
+        }
+
+        if (!acquire(limits.slots)) {
+            limits.overloaded.inc();
+            reject(res, HttpServletResponse.SC_SERVICE_UNAVAILABLE, 1, "Server busy, please retry");
+            return;
+        }
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                limits.slots.release();
+            }
+        };
+        boolean async = false;
+        try {
+            chain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                async = true;
+                // Servlets hand work to the DAO executor; the slot is held until the response completes
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        release.run();
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {}
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                        release.run();
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {}
+                });
+            }
+        } finally {
+            if (!async) {
+                release.run();
+            }
+        }
+    }
+
+    private Limits limitsFor(String path, String method) {
+        boolean read = "GET".equals(method) || "HEAD".equals(method);
+        if (path.startsWith("/api/auth") && !read) {
+            return auth;
+        }
+        // Username availability checks (GET /api/auth/available) fire while typing; they count as reads
+        return read ? reads : writes;
+    }
+
+    private String clientKey(HttpServletRequest req) {
+        // Verified here because AuthFilter runs later and only on /api/items/*
+        TokenService.Session session = tokens.verify(AuthFilter.bearerToken(req));
+        if (session != null) {
+            return "u:" + session.getUserId();
+        }
+        if (trustForwardedFor) {
+            String forwarded = req.getHeader("X-Forwarded-For");
+            if (forwarded != null && !forwarded.isEmpty()) {
+                int comma = forwarded.indexOf(',');
+                return "ip:" + (comma < 0 ? forwarded : forwarded.substring(0, comma)).trim();
+            }
+        }
+        return "ip:" + req.getRemoteAddr();
+    }
+
+    private boolean acquire(Semaphore slots) {
+        if (slots.tryAcquire()) {
+            return true;
+        }
+        try {
+            return queueWaitMillis > 0 && slots.tryAcquire(queueWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void reject(HttpServletResponse res, int status, long retryAfterSeconds, String message)
+            throws IOException {
+        res.setStatus(status);
+        res.setHeader("Retry-After", Long.toString(retryAfterSeconds));
+        res.setContentType("application/json");
+        res.setCharacterEncoding("UTF-8");
+        res.getWriter().write("{\"error\": \"" + message + "\"}");
+    }
+
+    @Override
+    public void destroy() {}
+}
@@ -0,0 +1,83 @@
+package com.campus.lostfound.filter;
+
+import com.campus.lostfound.util.Env;
+import com.campus.lostfound.util.TokenService;
+
+import javax.servlet.*;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Authenticates item requests from an "Authorization: Bearer" session token.
+ *
+ * The token is checked in memory by TokenService; the verified user id is
+ * stored as a request attribute for ItemServlet, which no longer trusts a
+ * client-supplied user id. Reads stay public; writes without a valid token
+ * get 401. AUTH_ALLOW_USER_ID_HEADER=true temporarily accepts the old
+ * X-User-Id header from clients that have not switched yet.
+ */
+public class AuthFilter implements Filter {
+
+    public static final String USER_ID_ATTRIBUTE = "com.campus.lostfound.auth.userId";
+    public static final String SESSION_ATTRIBUTE = "com.campus.lostfound.auth.session";
+
+    private TokenService tokens;
+    private boolean allowUserIdHeader;
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        tokens = TokenService.shared();
+        allowUserIdHeader = Env.getBoolean("AUTH_ALLOW_USER_ID_HEADER", false);
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
+        HttpServletRequest req = (HttpServletRequest) request;
+        HttpServletResponse res = (HttpServletResponse) response;
+
+        TokenService.Session session = tokens.verify(bearerToken(req));
+        if (session != null) {
+            req.setAttribute(SESSION_ATTRIBUTE, session);
+            req.setAttribute(USER_ID_ATTRIBUTE, session.getUserId());
+        } else if (allowUserIdHeader) {
+            String header = req.getHeader("X-User-Id");
+            if (header != null && !header.isEmpty()) {
+                req.setAttribute(USER_ID_ATTRIBUTE, header);
+            }
+        }
+
+        if (isWrite(req.getMethod()) && req.getAttribute(USER_ID_ATTRIBUTE) == null) {
+            res.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            res.setHeader("WWW-Authenticate", "Bearer");
+            res.setContentType("application/json");
+            res.setCharacterEncoding("UTF-8");
+            res.getWriter().write("{\"error\": \"Unauthorized\"}");
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    /** The authenticated user id, or null for anonymous requests. */
+    public static String userId(HttpServletRequest request) {
+        return (String) request.getAttribute(USER_ID_ATTRIBUTE);
+    }
+
+    public static String bearerToken(HttpServletRequest request) {
+        String header = request.getHeader("Authorization");
+        if (header == null || !header.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            return null;
+        }
+        String token = header.substring(7).trim();
+        return token.isEmpty() ? null : token;
+    }
+
+    private static boolean isWrite(String method) {
+        return "POST".equals(method) || "PUT".equals(method) || "DELETE".equals(method) || "PATCH".equals(method);
+    }
+
+    @Override
+    public void destroy() {}
+}
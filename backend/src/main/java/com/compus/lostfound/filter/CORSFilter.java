@@ -10,7 +10,7 @@ import java.io.IOException;
  * Server-side CORS Filter.
  * Allows the React frontend to communicate with this Backend.
  */
-@WebFilter("/*")
+@WebFilter(urlPatterns = "/*", asyncSupported = true)
 public class CORSFilter implements Filter {
 
     @Override
@@ -26,13 +26,13 @@ public class CORSFilter implements Filter {
         HttpServletResponse res = (HttpServletResponse) response;
 
         String origin = req.getHeader("Origin");
-        System.out.println("CORSFilter hit! Method: " + req.getMethod() + ", Origin: " + origin);
-        
+
         // Allow all origins for development
         res.setHeader("Access-Control-Allow-Origin", origin != null ? origin : "*");
         res.setHeader("Access-Control-Allow-Methods", "GET, POST, PUT, DELETE, OPTIONS");
-        res.setHeader("Access-Control-Allow-Headers", "Content-Type, Authorization");
+        res.setHeader("Access-Control-Allow-Headers", "Content-Type, Authorization, If-None-Match");
         res.setHeader("Access-Control-Allow-Credentials", "true");
+        res.setHeader("Access-Control-Expose-Headers", "X-Next-Cursor, ETag");
 
         // Handle pre-flight requests
         if ("OPTIONS".equalsIgnoreCase(req.getMethod())) {
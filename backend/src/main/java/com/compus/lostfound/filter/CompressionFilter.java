@@ -0,0 +1,327 @@
+package com.campus.lostfound.filter;
+
+import com.campus.lostfound.util.Env;
+
+import javax.servlet.*;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * gzip/deflate compression for JSON responses.
+ *
+ * The first COMPRESSION_MIN_BYTES of the body are buffered; small bodies are
+ * sent as-is, larger ones are compressed on the fly while the servlet keeps
+ * streaming. Other content types, and photos, pass straight through, as
+ * does the body of a handler that switches to non-blocking output with
+ * setWriteListener.
+ */
+public class CompressionFilter implements Filter {
+
+    private int minBytes;
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        minBytes = Env.getInt("COMPRESSION_MIN_BYTES", 1024);
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
+        HttpServletRequest req = (HttpServletRequest) request;
+        HttpServletResponse res = (HttpServletResponse) response;
+
+        String encoding = chooseEncoding(req.getHeader("Accept-Encoding"));
+        // Images are compressed already, and byte ranges must address the file as stored
+        boolean photo = req.getRequestURI().startsWith(req.getContextPath() + "/api/photos/");
+        if (encoding == null || photo || "HEAD".equalsIgnoreCase(req.getMethod())) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        CompressingResponse wrapper = new CompressingResponse(res, encoding, minBytes);
+        chain.doFilter(request, wrapper);
+        if (!request.isAsyncStarted()) {
+            // Async handlers finish the body themselves by closing the writer
+            wrapper.finish();
+        }
+    }
+
+    static String chooseEncoding(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return null;
+        }
+        String accepted = acceptEncoding.toLowerCase();
+        if (accepts(accepted, "gzip")) {
+            return "gzip";
+        }
+        if (accepts(accepted, "deflate")) {
+            return "deflate";
+        }
+        return null;
+    }
+
+    private static boolean accepts(String acceptEncoding, String coding) {
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            if (tokens[0].trim().equals(coding)) {
+                return tokens.length < 2 || !tokens[1].trim().matches("q\\s*=\\s*0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void destroy() {}
+
+    /**
+     * Response whose body is compressed once it grows past the threshold.
+     */
+    static class CompressingResponse extends HttpServletResponseWrapper {
+        private final String encoding;
+        private final int minBytes;
+        private CompressingStream stream;
+        private PrintWriter writer;
+
+        CompressingResponse(HttpServletResponse response, String encoding, int minBytes) {
+            super(response);
+            this.encoding = encoding;
+            this.minBytes = minBytes;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (writer != null) {
+                throw new IllegalStateException("getWriter() has already been called");
+            }
+            return stream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                if (stream != null) {
+                    throw new IllegalStateException("getOutputStream() has already been called");
+                }
+                writer = new PrintWriter(new OutputStreamWriter(stream(), getCharacterEncoding()));
+            }
+            return writer;
+        }
+
+        private CompressingStream stream() {
+            if (stream == null) {
+                stream = new CompressingStream(this);
+            }
+            return stream;
+        }
+
+        // The compressed length is unknown up front; fall back to chunked encoding.
+        @Override
+        public void setContentLength(int len) {}
+
+        @Override
+        public void setContentLengthLong(long len) {}
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (stream != null) {
+                stream.flush();
+            }
+        }
+
+        @Override
+        public void resetBuffer() {
+            if (writer != null) {
+                // Push chars still held by the writer into the buffers being discarded
+                writer.flush();
+            }
+            super.resetBuffer();
+            if (stream != null) {
+                stream.reset(false);
+            }
+        }
+
+        @Override
+        public void reset() {
+            if (writer != null) {
+                writer.flush();
+            }
+            super.reset();
+            if (stream != null) {
+                stream.reset(true);
+            }
+        }
+
+        /** Complete the body; safe to call more than once. */
+        void finish() throws IOException {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (stream != null) {
+                stream.close();
+            }
+        }
+
+        boolean shouldCompress() {
+            if (isCommitted() || getHeader("Content-Encoding") != null) {
+                return false;
+            }
+            int status = getStatus();
+            if (status == SC_NO_CONTENT || status == SC_NOT_MODIFIED || status < 200) {
+                return false;
+            }
+            String type = getContentType();
+            return type != null && type.toLowerCase().startsWith("application/json");
+        }
+
+        OutputStream startCompression(OutputStream raw) throws IOException {
+            setHeader("Content-Encoding", encoding);
+            setHeader("Vary", "Accept-Encoding");
+            return "gzip".equals(encoding) ? new GZIPOutputStream(raw, 8192, true) : new DeflaterOutputStream(raw, true);
+        }
+    }
+
+    /**
+     * Buffers up to minBytes, then commits to compressed or plain output.
+     * Once a WriteListener is set, every call goes straight to the
+     * container's stream, uncompressed.
+     */
+    static class CompressingStream extends ServletOutputStream {
+        private final CompressingResponse response;
+        private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+        private OutputStream out;
+        private boolean compressing;
+        // Set when the buffer was reset after Content-Encoding was already sent
+        private boolean forceCompress;
+        private boolean closed;
+        private boolean passThrough;
+
+        CompressingStream(CompressingResponse response) {
+            this.response = response;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (passThrough) {
+                out.write(b, off, len);
+                return;
+            }
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            if (out != null) {
+                out.write(b, off, len);
+                return;
+            }
+            if (!buffering()) {
+                decide(false);
+                out.write(b, off, len);
+                return;
+            }
+            pending.write(b, off, len);
+            if (pending.size() >= response.minBytes) {
+                decide(true);
+            }
+        }
+
+        private boolean buffering() {
+            return forceCompress || response.shouldCompress();
+        }
+
+        private void decide(boolean compress) throws IOException {
+            OutputStream raw = response.getResponse().getOutputStream();
+            compressing = forceCompress || (compress && response.shouldCompress());
+            out = compressing ? response.startCompression(raw) : raw;
+            if (pending.size() > 0) {
+                pending.writeTo(out);
+            }
+            pending.reset();
+        }
+
+        /** Discard buffered output after the response buffer was reset. */
+        void reset(boolean headersCleared) {
+            pending.reset();
+            forceCompress = compressing && !headersCleared;
+            compressing = false;
+            out = null;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (passThrough) {
+                out.flush();
+                return;
+            }
+            // Keep buffering small JSON bodies; anything else is flushed through.
+            if (out == null && buffering()) {
+                return;
+            }
+            if (out == null) {
+                decide(false);
+            }
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (passThrough) {
+                closed = true;
+                out.close();
+                return;
+            }
+            if (closed) {
+                return;
+            }
+            if (out == null) {
+                decide(false);
+            }
+            closed = true;
+            if (compressing) {
+                ((DeflaterOutputStream) out).finish();
+            }
+            out.flush();
+        }
+
+        @Override
+        public boolean isReady() {
+            return passThrough ? ((ServletOutputStream) out).isReady() : true;
+        }
+
+        /**
+         * Switches to plain pass-through: a non-blocking writer must see the
+         * container's isReady, which a compressor in between cannot give.
+         * Anything buffered so far is sent uncompressed first.
+         */
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            if (compressing || forceCompress) {
+                throw new IllegalStateException("Response is already being compressed; set the WriteListener before writing");
+            }
+            if (out == null) {
+                try {
+                    decide(false);
+                } catch (IOException e) {
+                    throw new RuntimeException("Error sending buffered output: " + e.getMessage(), e);
+                }
+            }
+            passThrough = true;
+            ((ServletOutputStream) out).setWriteListener(writeListener);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.campus.lostfound.filter;
+
+import com.campus.lostfound.dao.ItemChangeTracker;
+import com.campus.lostfound.util.DatabaseUtil;
+import com.campus.lostfound.util.Env;
+
+import javax.servlet.*;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Conditional GET for item listings.
+ *
+ * The ETag is the item collection version from ItemChangeTracker, so a
+ * client polling an unchanged list gets 304 Not Modified without the
+ * request reaching the servlet or the database.
+ *
+ * The version only covers every write when it also moves for writes made on
+ * other instances, i.e. while ItemEventRelay's LISTEN feed is connected, or
+ * when ETAG_SINGLE_INSTANCE=true says there are no other instances.
+ * Otherwise no ETag is sent. None is sent with read replicas configured
+ * either: the listing may come from a replica that has not replayed a write
+ * the tag already counts, and the stale body would be kept under it.
+ */
+public class ETagFilter implements Filter {
+
+    private static final boolean SINGLE_INSTANCE = Env.getBoolean("ETAG_SINGLE_INSTANCE", false);
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {}
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
+        HttpServletRequest req = (HttpServletRequest) request;
+        HttpServletResponse res = (HttpServletResponse) response;
+
+        if (!"GET".equalsIgnoreCase(req.getMethod()) || !isItemListing(req) || !versionIsComplete()) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        // Read before the query runs: if a write lands in between, the tag is
+        // older than the body and the next poll simply refetches.
+        String etag = "W/\"" + Long.toString(ItemChangeTracker.currentVersion(), 36) + "\"";
+        res.setHeader("ETag", etag);
+        res.setHeader("Cache-Control", "no-cache");
+
+        if (matches(req.getHeader("If-None-Match"), etag)) {
+            res.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    private static boolean versionIsComplete() {
+        return DatabaseUtil.getReplicaRouter() == null
+                && (SINGLE_INSTANCE || ItemChangeTracker.seesRemoteWrites());
+    }
+
+    private static boolean isItemListing(HttpServletRequest req) {
+        String path = req.getRequestURI().substring(req.getContextPath().length());
+        return path.equals("/api/items") || path.equals("/api/items/") || path.equalsIgnoreCase("/api/items/search");
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String opaque = stripWeak(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String c = candidate.trim();
+            if (c.equals("*") || stripWeak(c).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeak(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+
+    @Override
+    public void destroy() {}
+}
@@ -0,0 +1,258 @@
+package com.campus.lostfound.filter;
+
+import com.campus.lostfound.metrics.Counter;
+import com.campus.lostfound.metrics.Histogram;
+import com.campus.lostfound.metrics.MetricsRegistry;
+import com.campus.lostfound.util.Env;
+
+import javax.servlet.*;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Per-endpoint request count, latency and response size for /api/*.
+ *
+ * Paths are reduced to route templates (/api/items/{id}) so the number of
+ * series stays bounded. Async requests are recorded when they complete, not
+ * when the container thread returns. Mapped ahead of CompressionFilter, so
+ * sizes are what goes on the wire.
+ */
+public class MetricsFilter implements Filter {
+
+    private static final Set<String> ITEM_ROUTES = new HashSet<>(Arrays.asList("search", "batch", "stream", "facets"));
+    private static final Set<String> AUTH_ROUTES = new HashSet<>(Arrays.asList("login", "register", "logout", "available"));
+    private static final Set<String> HEALTH_ROUTES = new HashSet<>(Arrays.asList("live", "ready"));
+    private static final Set<String> METHODS = new HashSet<>(Arrays.asList(
+            "GET", "POST", "PUT", "DELETE", "OPTIONS", "HEAD"));
+
+    private MetricsRegistry registry;
+    private boolean enabled;
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+        registry = MetricsRegistry.shared();
+        enabled = Env.getBoolean("METRICS_ENABLED", true);
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
+        if (!enabled) {
+            chain.doFilter(request, response);
+            return;
+        }
+        HttpServletRequest req = (HttpServletRequest) request;
+        // Resolved up front: path information is gone by the time an async request completes
+        String route = route(req.getRequestURI().substring(req.getContextPath().length()));
+        String method = METHODS.contains(req.getMethod()) ? req.getMethod() : "OTHER";
+        long start = System.nanoTime();
+        CountingResponse wrapper = new CountingResponse((HttpServletResponse) response);
+        boolean async = false;
+        try {
+            chain.doFilter(request, wrapper);
+            if (request.isAsyncStarted()) {
+                async = true;
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        record(route, method, wrapper, start);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {}
+
+                    @Override
+                    public void onError(AsyncEvent event) {}
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {}
+                });
+            }
+        } finally {
+            if (!async) {
+                record(route, method, wrapper, start);
+            }
+        }
+    }
+
+    private void record(String route, String method, CountingResponse res, long start) {
+        registry.histogram("http_request_duration_seconds", "HTTP request latency",
+                Histogram.LATENCY_NANOS, Histogram.NANOS_TO_SECONDS,
+                "route", route, "method", method).recordSince(start);
+        registry.histogram("http_response_size_bytes", "HTTP response body size",
+                Histogram.SIZES, 1, "route", route, "method", method).record(res.bytes);
+        Counter requests = registry.counter("http_requests_total", "HTTP requests by route, method and status",
+                "route", route, "method", method, "status", Integer.toString(res.getStatus()));
+        requests.inc();
+    }
+
+    static String route(String path) {
+        String[] parts = path.split("/");
+        // parts[0] is empty because the path starts with '/'
+        if (parts.length < 3 || !"api".equals(parts[1])) {
+            return "other";
+        }
+        String base = "/api/" + parts[2];
+        switch (parts[2]) {
+            case "items":
+                if (parts.length == 3) {
+                    return base;
+                }
+                if (parts.length == 5 && ("matches".equals(parts[4]) || "photos".equals(parts[4]))) {
+                    return base + "/{id}/" + parts[4];
+                }
+                return base + "/" + (ITEM_ROUTES.contains(parts[3]) ? parts[3] : "{id}");
+            case "auth":
+                return parts.length > 3 && AUTH_ROUTES.contains(parts[3]) ? base + "/" + parts[3] : base;
+            case "health":
+                return parts.length > 3 && HEALTH_ROUTES.contains(parts[3]) ? base + "/" + parts[3] : base;
+            case "metrics":
+            case "photos":
+                return base;
+            default:
+                return "other";
+        }
+    }
+
+    @Override
+    public void destroy() {}
+
+    /**
+     * Counts body bytes without buffering, so flush and reset behave exactly
+     * as they would on the wrapped response.
+     */
+    static class CountingResponse extends HttpServletResponseWrapper {
+        long bytes;
+        private ServletOutputStream stream;
+        private PrintWriter writer;
+
+        CountingResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (stream == null) {
+                ServletOutputStream out = super.getOutputStream();
+                stream = new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        out.write(b);
+                        bytes++;
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        out.write(b, off, len);
+                        bytes += len;
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        out.flush();
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        out.close();
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return out.isReady();
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener writeListener) {
+                        out.setWriteListener(writeListener);
+                    }
+                };
+            }
+            return stream;
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            if (writer == null) {
+                // PrintWriter over a Writer adds no buffer of its own
+                writer = new PrintWriter(new Utf8CountingWriter(super.getWriter()));
+            }
+            return writer;
+        }
+
+        @Override
+        public void resetBuffer() {
+            super.resetBuffer();
+            bytes = 0;
+        }
+
+        @Override
+        public void reset() {
+            super.reset();
+            bytes = 0;
+        }
+
+        /**
+         * Counts the UTF-8 length of the characters passing through; every
+         * response in this app is written as UTF-8.
+         */
+        private class Utf8CountingWriter extends Writer {
+            private final Writer out;
+
+            Utf8CountingWriter(Writer out) {
+                this.out = out;
+            }
+
+            @Override
+            public void write(char[] cbuf, int off, int len) throws IOException {
+                out.write(cbuf, off, len);
+                for (int i = off; i < off + len; i++) {
+                    count(cbuf[i]);
+                }
+            }
+
+            @Override
+            public void write(String str, int off, int len) throws IOException {
+                out.write(str, off, len);
+                for (int i = off; i < off + len; i++) {
+                    count(str.charAt(i));
+                }
+            }
+
+            @Override
+            public void write(int c) throws IOException {
+                out.write(c);
+                count((char) c);
+            }
+
+            private void count(char c) {
+                if (c < 0x80) {
+                    bytes += 1;
+                } else if (c < 0x800 || Character.isSurrogate(c)) {
+                    // Each half of a surrogate pair accounts for 2 of the 4 bytes
+                    bytes += 2;
+                } else {
+                    bytes += 3;
+                }
+            }
+
+            @Override
+            public void flush() throws IOException {
+                out.flush();
+            }
+
+            @Override
+            public void close() throws IOException {
+                out.close();
+            }
+        }
+    }
+}
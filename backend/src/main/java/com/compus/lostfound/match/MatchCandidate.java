@@ -0,0 +1,26 @@
+package com.campus.lostfound.match;
+
+import com.campus.lostfound.model.Item;
+
+/**
+ * An open item of the opposite type that may be the same object, with its
+ * similarity score in [0, 1].
+ */
+public final class MatchCandidate {
+
+    private final Item item;
+    private final double score;
+
+    MatchCandidate(Item item, double score) {
+        this.item = item;
+        this.score = score;
+    }
+
+    public Item getItem() {
+        return item;
+    }
+
+    public double getScore() {
+        return score;
+    }
+}
@@ -0,0 +1,365 @@
+package com.campus.lostfound.match;
+
+import com.campus.lostfound.dao.ItemChangeTracker;
+import com.campus.lostfound.dao.SearchText;
+import com.campus.lostfound.model.Item;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pairs open LOST reports with open FOUND reports that may describe the same object.
+ *
+ * Items are blocked by (type, category): a new item is only scored against
+ * open items of the opposite type in the same category, so each write costs
+ * one pass over its block rather than the whole table. The score combines
+ * name token overlap, description overlap, location overlap and how close
+ * the two dates are. Each item keeps its best candidates; both sides of a
+ * pair are updated when either is saved.
+ *
+ * The engine listens to ItemChangeTracker, so it only sees writes made by
+ * this process. The existing table is loaded once by backfill, which scores
+ * all pairs in parallel on a ForkJoinPool; writes that arrive meanwhile are
+ * queued and applied once it finishes.
+ */
+public class MatchEngine implements ItemChangeTracker.Listener {
+
+    static final double NAME_WEIGHT = 0.45;
+    static final double DESCRIPTION_WEIGHT = 0.15;
+    static final double LOCATION_WEIGHT = 0.20;
+    static final double DATE_WEIGHT = 0.20;
+    private static final Set<String> CLOSED_STATUSES = new HashSet<>(Arrays.asList("CLAIMED", "RETURNED", "CLOSED"));
+    // Leaf size of the backfill fork/join split, in LOST items
+    private static final int BACKFILL_LEAF = 64;
+    private static final long MILLIS_PER_DAY = TimeUnit.DAYS.toMillis(1);
+
+    private final int maxCandidates;
+    private final double minScore;
+    private final int dateWindowDays;
+
+    private final Map<String, Profile> profiles = new ConcurrentHashMap<>();
+    private final Map<String, Set<Profile>> blocks = new ConcurrentHashMap<>();
+    private final Map<String, TopCandidates> matches = new ConcurrentHashMap<>();
+
+    private final Object pendingLock = new Object();
+    private List<Runnable> pending = new ArrayList<>();
+    private volatile boolean ready;
+
+    public MatchEngine(int maxCandidates, double minScore, int dateWindowDays) {
+        this.maxCandidates = maxCandidates;
+        this.minScore = minScore;
+        this.dateWindowDays = Math.max(1, dateWindowDays);
+    }
+
+    /**
+     * Indexes and scores all existing items; call once, off the request path,
+     * after the engine has been registered as a listener.
+     */
+    public void backfill(List<Item> items, int parallelism) {
+        long start = System.currentTimeMillis();
+        List<Profile> lost = new ArrayList<>();
+        for (Item item : items) {
+            Profile p = Profile.of(item);
+            if (p != null && isOpen(item)) {
+                index(p);
+                if ("LOST".equals(p.type)) {
+                    lost.add(p);
+                }
+            }
+        }
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, parallelism));
+        try {
+            pool.invoke(new BackfillTask(lost, 0, lost.size()));
+        } finally {
+            pool.shutdown();
+        }
+        // Writes seen during the backfill are applied in arrival order, after it
+        synchronized (pendingLock) {
+            for (Runnable r : pending) {
+                r.run();
+            }
+            pending = null;
+            ready = true;
+        }
+        System.out.println("Match engine indexed " + profiles.size() + " open items in "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /** True if the item is open and indexed, i.e. matches can be asked for it. */
+    public boolean isIndexed(String itemId) {
+        return itemId != null && profiles.containsKey(itemId);
+    }
+
+    /**
+     * Best candidates for the item, highest score first. Candidates that were
+     * deleted or closed since they were scored are left out.
+     */
+    public List<MatchCandidate> matches(String itemId, int limit) {
+        TopCandidates top = itemId == null ? null : matches.get(itemId);
+        if (top == null) {
+            return Collections.emptyList();
+        }
+        List<MatchCandidate> result = new ArrayList<>();
+        for (Scored s : top.snapshot()) {
+            Profile other = profiles.get(s.itemId);
+            if (other == null) {
+                top.remove(s.itemId);
+                continue;
+            }
+            result.add(new MatchCandidate(other.item, s.score));
+            if (result.size() == limit) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void itemSaved(Item item) {
+        if (!deferred(() -> applySaved(item))) {
+            applySaved(item);
+        }
+    }
+
+    @Override
+    public void itemDeleted(String itemId) {
+        if (!deferred(() -> unindex(itemId))) {
+            unindex(itemId);
+        }
+    }
+
+    private void applySaved(Item item) {
+        Profile p = Profile.of(item);
+        if (p == null) {
+            return;
+        }
+        unindex(p.id);
+        if (!isOpen(item)) {
+            return;
+        }
+        index(p);
+        scoreAgainstBlock(p);
+    }
+
+    private boolean deferred(Runnable event) {
+        if (ready) {
+            return false;
+        }
+        synchronized (pendingLock) {
+            if (pending == null) {
+                return false;
+            }
+            pending.add(event);
+            return true;
+        }
+    }
+
+    private void index(Profile p) {
+        profiles.put(p.id, p);
+        blocks.computeIfAbsent(p.blockKey(), k -> ConcurrentHashMap.newKeySet()).add(p);
+        matches.put(p.id, new TopCandidates(maxCandidates));
+    }
+
+    private void unindex(String itemId) {
+        Profile previous = profiles.remove(itemId);
+        if (previous != null) {
+            Set<Profile> block = blocks.get(previous.blockKey());
+            if (block != null) {
+                block.remove(previous);
+            }
+        }
+        // Entries pointing at this item from other lists are dropped on read
+        matches.remove(itemId);
+    }
+
+    private void scoreAgainstBlock(Profile p) {
+        Set<Profile> block = blocks.get(p.oppositeBlockKey());
+        if (block == null) {
+            return;
+        }
+        for (Profile other : block) {
+            double score = score(p, other);
+            if (score >= minScore) {
+                offer(p.id, other.id, score);
+                offer(other.id, p.id, score);
+            }
+        }
+    }
+
+    private void offer(String itemId, String candidateId, double score) {
+        TopCandidates top = matches.get(itemId);
+        if (top != null) {
+            top.offer(candidateId, score);
+        }
+    }
+
+    double score(Profile a, Profile b) {
+        double score = NAME_WEIGHT * jaccard(a.name, b.name)
+                + DESCRIPTION_WEIGHT * jaccard(a.text, b.text)
+                + LOCATION_WEIGHT * jaccard(a.location, b.location);
+        if (a.day != Long.MIN_VALUE && b.day != Long.MIN_VALUE) {
+            long days = Math.abs(a.day - b.day);
+            score += DATE_WEIGHT * Math.max(0.0, 1.0 - (double) days / dateWindowDays);
+        }
+        return score;
+    }
+
+    static double jaccard(Set<String> a, Set<String> b) {
+        if (a.isEmpty() || b.isEmpty()) {
+            return 0.0;
+        }
+        Set<String> small = a.size() <= b.size() ? a : b;
+        Set<String> large = small == a ? b : a;
+        int common = 0;
+        for (String t : small) {
+            if (large.contains(t)) {
+                common++;
+            }
+        }
+        return (double) common / (a.size() + b.size() - common);
+    }
+
+    static boolean isOpen(Item item) {
+        return item.getStatus() == null || !CLOSED_STATUSES.contains(item.getStatus().toUpperCase());
+    }
+
+    /**
+     * Scores a range of LOST items against their FOUND blocks, splitting in
+     * half until the range is small enough to run directly.
+     */
+    private class BackfillTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final List<Profile> lost;
+        private final int from;
+        private final int to;
+
+        BackfillTask(List<Profile> lost, int from, int to) {
+            this.lost = lost;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BACKFILL_LEAF) {
+                for (int i = from; i < to; i++) {
+                    scoreAgainstBlock(lost.get(i));
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new BackfillTask(lost, from, mid), new BackfillTask(lost, mid, to));
+        }
+    }
+
+    /**
+     * Tokenized view of an item, built once so each pair costs only set lookups.
+     */
+    static final class Profile {
+        final Item item;
+        final String id;
+        final String type;
+        final String category;
+        final Set<String> name;
+        final Set<String> text;
+        final Set<String> location;
+        final long day;
+
+        private Profile(Item item, String type) {
+            this.item = item;
+            this.id = item.getId();
+            this.type = type;
+            this.category = item.getCategory() == null ? "" : item.getCategory().trim().toLowerCase();
+            this.name = SearchText.termSet(item.getItemName());
+            // Description overlap also counts words a reporter put in the name
+            this.text = SearchText.termSet(item.getDescription());
+            this.text.addAll(name);
+            this.location = SearchText.termSet(item.getLocation());
+            this.day = item.getDate() == null ? Long.MIN_VALUE : Math.floorDiv(item.getDate().getTime(), MILLIS_PER_DAY);
+        }
+
+        /** Null for items that cannot take part in matching. */
+        static Profile of(Item item) {
+            if (item == null || item.getId() == null || item.getType() == null) {
+                return null;
+            }
+            String type = item.getType().toUpperCase();
+            if (!"LOST".equals(type) && !"FOUND".equals(type)) {
+                return null;
+            }
+            return new Profile(item, type);
+        }
+
+        String blockKey() {
+            return type + "|" + category;
+        }
+
+        String oppositeBlockKey() {
+            return ("LOST".equals(type) ? "FOUND" : "LOST") + "|" + category;
+        }
+    }
+
+    private static final class Scored {
+        final String itemId;
+        final double score;
+
+        Scored(String itemId, double score) {
+            this.itemId = itemId;
+            this.score = score;
+        }
+    }
+
+    /**
+     * Bounded list of the best candidates for one item, kept sorted by score.
+     * Small enough that a lock and a linear scan beat anything cleverer.
+     */
+    private static final class TopCandidates {
+        private final int capacity;
+        private final List<Scored> entries = new ArrayList<>();
+
+        TopCandidates(int capacity) {
+            this.capacity = capacity;
+        }
+
+        synchronized void offer(String itemId, double score) {
+            remove(itemId);
+            if (entries.size() == capacity && entries.get(capacity - 1).score >= score) {
+                return;
+            }
+            int i = 0;
+            while (i < entries.size() && entries.get(i).score >= score) {
+                i++;
+            }
+            entries.add(i, new Scored(itemId, score));
+            if (entries.size() > capacity) {
+                entries.remove(capacity);
+            }
+        }
+
+        synchronized void remove(String itemId) {
+            for (int i = 0; i < entries.size(); i++) {
+                if (entries.get(i).itemId.equals(itemId)) {
+                    entries.remove(i);
+                    return;
+                }
+            }
+        }
+
+        synchronized List<Scored> snapshot() {
+            return new ArrayList<>(entries);
+        }
+    }
+}
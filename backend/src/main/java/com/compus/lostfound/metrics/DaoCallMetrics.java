@@ -0,0 +1,41 @@
+package com.campus.lostfound.metrics;
+
+/**
+ * Duration, error and row-count metrics for one DAO method, created once
+ * per decorator so the hot path does no registry lookups.
+ */
+public final class DaoCallMetrics {
+
+    private final Histogram duration;
+    private final Counter errors;
+    private final Histogram rows;
+
+    public DaoCallMetrics(MetricsRegistry registry, String dao, String method) {
+        this.duration = registry.histogram("dao_call_duration_seconds",
+                "Time spent in DAO calls, excluding time spent writing streamed rows to the client",
+                Histogram.LATENCY_NANOS, Histogram.NANOS_TO_SECONDS, "dao", dao, "method", method);
+        this.errors = registry.counter("dao_call_errors_total",
+                "DAO calls that threw", "dao", dao, "method", method);
+        this.rows = registry.histogram("dao_rows_returned",
+                "Rows returned per DAO call", Histogram.SIZES, 1, "dao", dao, "method", method);
+    }
+
+    /** @param rowCount rows returned, or -1 for calls that return none */
+    public void success(long startNanos, int rowCount) {
+        duration.recordSince(startNanos);
+        if (rowCount >= 0) {
+            rows.record(rowCount);
+        }
+    }
+
+    public void failure(long startNanos) {
+        duration.recordSince(startNanos);
+        errors.inc();
+    }
+
+    /** For streaming calls: excludedNanos is time spent in the caller's sink, not the DAO. */
+    public void successExcluding(long startNanos, long excludedNanos, int rowCount) {
+        duration.record(System.nanoTime() - startNanos - excludedNanos);
+        rows.record(rowCount);
+    }
+}
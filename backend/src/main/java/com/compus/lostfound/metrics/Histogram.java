@@ -0,0 +1,76 @@
+package com.campus.lostfound.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-bucket histogram in the Prometheus style.
+ *
+ * Values are recorded as longs in a base unit (nanoseconds, bytes, rows) and
+ * multiplied by scale on export. Each bucket is its own LongAdder, so
+ * recording is a binary search plus two striped adds, with no locks.
+ */
+public final class Histogram {
+
+    /** Request and query latency, recorded in nanoseconds, exported in seconds. */
+    public static final long[] LATENCY_NANOS = {
+            500_000L, 1_000_000L, 2_500_000L, 5_000_000L, 10_000_000L, 25_000_000L,
+            50_000_000L, 100_000_000L, 250_000_000L, 500_000_000L,
+            1_000_000_000L, 2_500_000_000L, 5_000_000_000L, 10_000_000_000L
+    };
+    public static final double NANOS_TO_SECONDS = 1e-9;
+
+    /** Sizes such as payload bytes or rows returned. */
+    public static final long[] SIZES = {
+            0L, 1L, 10L, 50L, 100L, 500L, 1_000L, 5_000L, 10_000L, 50_000L,
+            100_000L, 500_000L, 1_000_000L, 10_000_000L
+    };
+
+    private final long[] bounds;
+    private final double scale;
+    // One more than bounds: the last slot is the +Inf bucket
+    private final LongAdder[] buckets;
+    private final LongAdder sum = new LongAdder();
+
+    Histogram(long[] bounds, double scale) {
+        this.bounds = bounds;
+        this.scale = scale;
+        this.buckets = new LongAdder[bounds.length + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long value) {
+        int i = Arrays.binarySearch(bounds, value);
+        // Buckets are upper-inclusive (le), so an exact hit belongs to that bucket
+        buckets[i >= 0 ? i : -i - 1].increment();
+        sum.add(value);
+    }
+
+    /** Records the time elapsed since startNanos (from System.nanoTime()). */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    long[] bounds() {
+        return bounds;
+    }
+
+    double scale() {
+        return scale;
+    }
+
+    /** Per-bucket (non-cumulative) counts, +Inf last. */
+    long[] bucketCounts() {
+        long[] counts = new long[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return counts;
+    }
+
+    long sum() {
+        return sum.sum();
+    }
+}
@@ -0,0 +1,167 @@
+package com.campus.lostfound.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Process-wide registry of counters, histograms and sampled values, written
+ * out in the Prometheus text exposition format (version 0.0.4).
+ *
+ * Metrics are identified by name plus label pairs and created on first use;
+ * label values should come from small fixed sets (routes, methods, DAO
+ * method names) to keep the series count bounded.
+ */
+public final class MetricsRegistry {
+
+    private static final MetricsRegistry SHARED = new MetricsRegistry();
+
+    private final ConcurrentHashMap<String, Family> families = new ConcurrentHashMap<>();
+
+    public static MetricsRegistry shared() {
+        return SHARED;
+    }
+
+    /**
+     * @param labels alternating label names and values
+     */
+    public Counter counter(String name, String help, String... labels) {
+        Family family = family(name, help, "counter", null, 0);
+        return (Counter) family.series.computeIfAbsent(labelString(labels), k -> new Counter());
+    }
+
+    public Histogram histogram(String name, String help, long[] bounds, double scale, String... labels) {
+        Family family = family(name, help, "histogram", bounds, scale);
+        return (Histogram) family.series.computeIfAbsent(labelString(labels),
+                k -> new Histogram(family.bounds, family.scale));
+    }
+
+    /**
+     * A value read at scrape time, e.g. pool size. Registering the same name
+     * and labels again replaces the supplier.
+     */
+    public void gauge(String name, String help, DoubleSupplier value, String... labels) {
+        family(name, help, "gauge", null, 0).series.put(labelString(labels), value);
+    }
+
+    /** Like gauge, but for a monotonic count kept elsewhere (e.g. cache hits). */
+    public void counterFunction(String name, String help, DoubleSupplier value, String... labels) {
+        family(name, help, "counter", null, 0).series.put(labelString(labels), value);
+    }
+
+    private Family family(String name, String help, String type, long[] bounds, double scale) {
+        Family family = families.computeIfAbsent(name, n -> new Family(help, type, bounds, scale));
+        if (!family.type.equals(type)) {
+            throw new IllegalArgumentException("Metric " + name + " is already registered as a " + family.type);
+        }
+        return family;
+    }
+
+    public void write(Writer out) throws IOException {
+        StringBuilder sb = new StringBuilder(4096);
+        for (Map.Entry<String, Family> e : new TreeMap<>(families).entrySet()) {
+            String name = e.getKey();
+            Family family = e.getValue();
+            sb.append("# HELP ").append(name).append(' ').append(family.help).append('\n');
+            sb.append("# TYPE ").append(name).append(' ').append(family.type).append('\n');
+            for (Map.Entry<String, Object> s : new TreeMap<>(family.series).entrySet()) {
+                appendSeries(sb, name, s.getKey(), s.getValue());
+            }
+        }
+        out.write(sb.toString());
+    }
+
+    private static void appendSeries(StringBuilder sb, String name, String labels, Object metric) {
+        if (metric instanceof Counter) {
+            sample(sb, name, labels, null, ((Counter) metric).get());
+        } else if (metric instanceof DoubleSupplier) {
+            double value;
+            try {
+                value = ((DoubleSupplier) metric).getAsDouble();
+            } catch (RuntimeException ex) {
+                // A source that is not available yet (e.g. no pool) is simply skipped
+                return;
+            }
+            sample(sb, name, labels, null, value);
+        } else if (metric instanceof Histogram) {
+            Histogram h = (Histogram) metric;
+            long[] counts = h.bucketCounts();
+            long[] bounds = h.bounds();
+            long cumulative = 0;
+            for (int i = 0; i < counts.length; i++) {
+                cumulative += counts[i];
+                String le = i < bounds.length ? format(bounds[i] * h.scale()) : "+Inf";
+                sample(sb, name + "_bucket", labels, "le=\"" + le + "\"", cumulative);
+            }
+            sample(sb, name + "_sum", labels, null, h.sum() * h.scale());
+            sample(sb, name + "_count", labels, null, cumulative);
+        }
+    }
+
+    private static void sample(StringBuilder sb, String name, String labels, String extra, double value) {
+        sb.append(name);
+        if (!labels.isEmpty() || extra != null) {
+            sb.append('{').append(labels);
+            if (extra != null) {
+                if (!labels.isEmpty()) {
+                    sb.append(',');
+                }
+                sb.append(extra);
+            }
+            sb.append('}');
+        }
+        sb.append(' ').append(format(value)).append('\n');
+    }
+
+    private static String format(double value) {
+        if (value == Math.rint(value) && !Double.isInfinite(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    private static String labelString(String[] labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be name/value pairs");
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(labels[i]).append("=\"");
+            String value = labels[i + 1] != null ? labels[i + 1] : "";
+            for (int j = 0; j < value.length(); j++) {
+                char c = value.charAt(j);
+                if (c == '\\' || c == '"') {
+                    sb.append('\\').append(c);
+                } else if (c == '\n') {
+                    sb.append("\\n");
+                } else {
+                    sb.append(c);
+                }
+            }
+            sb.append('"');
+        }
+        return sb.toString();
+    }
+
+    private static final class Family {
+        final String help;
+        final String type;
+        final long[] bounds;
+        final double scale;
+        // label string -> Counter, Histogram or DoubleSupplier
+        final ConcurrentHashMap<String, Object> series = new ConcurrentHashMap<>();
+
+        Family(String help, String type, long[] bounds, double scale) {
+            this.help = help;
+            this.type = type;
+            this.bounds = bounds;
+            this.scale = scale;
+        }
+    }
+}
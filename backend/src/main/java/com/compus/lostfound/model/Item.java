@@ -33,6 +33,13 @@ public class Item {
         this.userId = userId;
     }
 
+    /** Copy of other, including its date, so neither sees the other's changes. */
+    public Item(Item other) {
+        this(other.id, other.itemName, other.category, other.description, other.location,
+                other.date != null ? new Date(other.date.getTime()) : null,
+                other.status, other.contactInfo, other.type, other.userId);
+    }
+
     public String getId() { return id; }
     public void setId(String id) { this.id = id; }
 
@@ -0,0 +1,40 @@
+package com.campus.lostfound.model;
+
+import java.util.Date;
+
+/**
+ * A photo attached to an item. The image itself lives in the PhotoStore
+ * under its SHA-256 hash, so the same file may back several items.
+ */
+public class ItemPhoto {
+    private String itemId;
+    private String hash; // SHA-256 of the file, lower-case hex
+    private String contentType;
+    private long size;
+    private Date createdAt;
+
+    public ItemPhoto() {}
+
+    public ItemPhoto(String itemId, String hash, String contentType, long size, Date createdAt) {
+        this.itemId = itemId;
+        this.hash = hash;
+        this.contentType = contentType;
+        this.size = size;
+        this.createdAt = createdAt;
+    }
+
+    public String getItemId() { return itemId; }
+    public void setItemId(String itemId) { this.itemId = itemId; }
+
+    public String getHash() { return hash; }
+    public void setHash(String hash) { this.hash = hash; }
+
+    public String getContentType() { return contentType; }
+    public void setContentType(String contentType) { this.contentType = contentType; }
+
+    public long getSize() { return size; }
+    public void setSize(long size) { this.size = size; }
+
+    public Date getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Date createdAt) { this.createdAt = createdAt; }
+}
@@ -0,0 +1,388 @@
+package com.campus.lostfound.photo;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed photo files on local disk.
+ *
+ * An upload is streamed through a 64 KB buffer into a temporary file while
+ * its SHA-256 is computed, then renamed to ab/HASH.ext, where ab are the
+ * first two hex digits. The same image uploaded twice is stored once, and
+ * a stored file never changes, so it can be cached forever by clients.
+ * Only JPEG, PNG, GIF and WebP are accepted, recognized by their first
+ * bytes rather than by what the client claims.
+ *
+ * Thumbnails (JPEG, at most thumbnailSize pixels on the longer side) are
+ * made on a small background pool and written to thumbs/ab/HASH.jpg. The
+ * decoder subsamples while reading, so a large photo is never fully decoded.
+ * A thumbnail that is missing (queue full, restart, unsupported format) is
+ * requested again the next time it is asked for.
+ */
+public class PhotoStore {
+
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // Refuse to thumbnail images whose header claims more pixels than this
+    private static final long MAX_PIXELS = 100_000_000L;
+
+    /**
+     * Result of storing one upload.
+     */
+    public static final class Stored {
+        private final String hash;
+        private final String contentType;
+        private final long size;
+        private final boolean created;
+
+        Stored(String hash, String contentType, long size, boolean created) {
+            this.hash = hash;
+            this.contentType = contentType;
+            this.size = size;
+            this.created = created;
+        }
+
+        public String getHash() { return hash; }
+        public String getContentType() { return contentType; }
+        public long getSize() { return size; }
+        /** False if an identical file was already stored. */
+        public boolean isCreated() { return created; }
+    }
+
+    private final Path root;
+    private final Path tmp;
+    private final long maxBytes;
+    private final int thumbnailSize;
+    private final ThreadPoolExecutor thumbnailPool;
+    private final Set<String> thumbnailsPending = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder stored = new LongAdder();
+    private final LongAdder deduplicated = new LongAdder();
+    private final LongAdder thumbnails = new LongAdder();
+    private final LongAdder thumbnailFailures = new LongAdder();
+
+    public PhotoStore(Path root, long maxBytes, int thumbnailSize, int thumbnailThreads, int thumbnailQueue)
+            throws IOException {
+        this.root = root;
+        this.tmp = root.resolve("tmp");
+        this.maxBytes = maxBytes;
+        this.thumbnailSize = Math.max(16, thumbnailSize);
+        Files.createDirectories(tmp);
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        int threads = Math.max(1, thumbnailThreads);
+        this.thumbnailPool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, thumbnailQueue)), r -> {
+                    Thread t = new Thread(r, "photo-thumbnail-" + threadCount.incrementAndGet());
+                    t.setDaemon(true);
+                    t.setPriority(Thread.MIN_PRIORITY);
+                    return t;
+                });
+    }
+
+    /**
+     * Streams an upload into the store and queues its thumbnail.
+     *
+     * @throws IllegalArgumentException if it is larger than maxBytes or not a supported image
+     */
+    public Stored store(InputStream in) throws IOException {
+        Path upload = Files.createTempFile(tmp, "upload-", ".part");
+        try {
+            MessageDigest sha = sha256();
+            byte[] buffer = new byte[BUFFER_SIZE];
+            byte[] head = new byte[12];
+            int headLength = 0;
+            long size = 0;
+            try (OutputStream out = Files.newOutputStream(upload)) {
+                int n;
+                while ((n = in.read(buffer)) != -1) {
+                    size += n;
+                    if (size > maxBytes) {
+                        throw new IllegalArgumentException("Photo is larger than " + (maxBytes / (1024 * 1024)) + " MB");
+                    }
+                    if (headLength < head.length) {
+                        int take = Math.min(n, head.length - headLength);
+                        System.arraycopy(buffer, 0, head, headLength, take);
+                        headLength += take;
+                    }
+                    sha.update(buffer, 0, n);
+                    out.write(buffer, 0, n);
+                }
+            }
+            String contentType = sniff(head, headLength);
+            if (contentType == null) {
+                throw new IllegalArgumentException("Only JPEG, PNG, GIF and WebP images are accepted");
+            }
+            String hash = hex(sha.digest());
+            String extension = extension(contentType);
+            Path target = original(hash, extension);
+            boolean created = !Files.exists(target);
+            if (created) {
+                Files.createDirectories(target.getParent());
+                // Same content, same name: if another upload got there first, replacing it changes nothing
+                move(upload, target);
+                stored.increment();
+            } else {
+                deduplicated.increment();
+            }
+            requestThumbnail(hash, extension);
+            return new Stored(hash, contentType, size, created);
+        } finally {
+            Files.deleteIfExists(upload);
+        }
+    }
+
+    /** The stored file for hash and extension, or null if the name is not one this store produces. */
+    public Path original(String hash, String extension) {
+        if (!isHash(hash) || contentTypeFor(extension) == null) {
+            return null;
+        }
+        return root.resolve(hash.substring(0, 2)).resolve(hash + "." + extension);
+    }
+
+    /** Where the thumbnail of hash is (or will be) stored; null for a malformed hash. */
+    public Path thumbnail(String hash) {
+        if (!isHash(hash)) {
+            return null;
+        }
+        return root.resolve("thumbs").resolve(hash.substring(0, 2)).resolve(hash + ".jpg");
+    }
+
+    /** Extension of the stored original of hash, or null if there is none. */
+    public String findExtension(String hash) {
+        for (String extension : new String[] {"jpg", "png", "gif", "webp"}) {
+            Path p = original(hash, extension);
+            if (p != null && Files.exists(p)) {
+                return extension;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Queues the thumbnail of a stored original unless it exists or is
+     * already queued. Never blocks; when the queue is full the request is
+     * dropped and made again on a later read.
+     */
+    public void requestThumbnail(String hash, String extension) {
+        Path source = original(hash, extension);
+        Path target = thumbnail(hash);
+        if (source == null || target == null || Files.exists(target) || !thumbnailsPending.add(hash)) {
+            return;
+        }
+        try {
+            thumbnailPool.execute(() -> {
+                try {
+                    writeThumbnail(source, target);
+                } finally {
+                    thumbnailsPending.remove(hash);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            thumbnailsPending.remove(hash);
+        }
+    }
+
+    private void writeThumbnail(Path source, Path target) {
+        try (ImageInputStream in = ImageIO.createImageInputStream(source.toFile())) {
+            Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+            if (readers == null || !readers.hasNext()) {
+                // No decoder for the format (WebP without a plugin); the original is served instead
+                return;
+            }
+            ImageReader reader = readers.next();
+            BufferedImage image;
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > MAX_PIXELS) {
+                    thumbnailFailures.increment();
+                    return;
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                // Decode only every step-th pixel; the result is still at least twice the thumbnail size
+                int step = Math.max(1, Math.max(width, height) / (thumbnailSize * 2));
+                param.setSourceSubsampling(step, step, 0, 0);
+                image = reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+            writeJpeg(scale(image), target);
+            thumbnails.increment();
+        } catch (IOException | RuntimeException e) {
+            thumbnailFailures.increment();
+            System.err.println("Thumbnail failed for " + source.getFileName() + ": " + e.getMessage());
+        }
+    }
+
+    private BufferedImage scale(BufferedImage image) {
+        double ratio = Math.min(1.0, (double) thumbnailSize / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * ratio));
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = scaled.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            // JPEG has no alpha; transparent areas become white
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, width, height);
+            g.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return scaled;
+    }
+
+    private void writeJpeg(BufferedImage image, Path target) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path part = Files.createTempFile(tmp, "thumb-", ".part");
+        try {
+            ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+            try (ImageOutputStream out = ImageIO.createImageOutputStream(part.toFile())) {
+                writer.setOutput(out);
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(0.8f);
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            move(part, target);
+        } finally {
+            Files.deleteIfExists(part);
+        }
+    }
+
+    private static void move(Path from, Path to) throws IOException {
+        try {
+            Files.move(from, to, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // Magic numbers; the Content-Type of the upload is not trusted
+    static String sniff(byte[] head, int length) {
+        if (length >= 3 && (head[0] & 0xFF) == 0xFF && (head[1] & 0xFF) == 0xD8 && (head[2] & 0xFF) == 0xFF) {
+            return "image/jpeg";
+        }
+        if (length >= 8 && (head[0] & 0xFF) == 0x89 && head[1] == 'P' && head[2] == 'N' && head[3] == 'G'
+                && head[4] == '\r' && head[5] == '\n' && head[6] == 0x1A && head[7] == '\n') {
+            return "image/png";
+        }
+        if (length >= 6 && head[0] == 'G' && head[1] == 'I' && head[2] == 'F' && head[3] == '8'
+                && (head[4] == '7' || head[4] == '9') && head[5] == 'a') {
+            return "image/gif";
+        }
+        if (length >= 12 && head[0] == 'R' && head[1] == 'I' && head[2] == 'F' && head[3] == 'F'
+                && head[8] == 'W' && head[9] == 'E' && head[10] == 'B' && head[11] == 'P') {
+            return "image/webp";
+        }
+        return null;
+    }
+
+    public static String extension(String contentType) {
+        switch (contentType) {
+            case "image/jpeg": return "jpg";
+            case "image/png": return "png";
+            case "image/gif": return "gif";
+            case "image/webp": return "webp";
+            default: return null;
+        }
+    }
+
+    public static String contentTypeFor(String extension) {
+        if (extension == null) {
+            return null;
+        }
+        switch (extension) {
+            case "jpg": return "image/jpeg";
+            case "png": return "image/png";
+            case "gif": return "image/gif";
+            case "webp": return "image/webp";
+            default: return null;
+        }
+    }
+
+    public static boolean isHash(String value) {
+        return value != null && HASH.matcher(value).matches();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public long getStoredCount() {
+        return stored.sum();
+    }
+
+    public long getDeduplicatedCount() {
+        return deduplicated.sum();
+    }
+
+    public long getThumbnailCount() {
+        return thumbnails.sum();
+    }
+
+    public long getThumbnailFailureCount() {
+        return thumbnailFailures.sum();
+    }
+
+    public int getThumbnailQueueDepth() {
+        return thumbnailPool.getQueue().size();
+    }
+
+    /** Stops the thumbnail pool; queued thumbnails are made on a later read. */
+    public void close() {
+        thumbnailPool.shutdownNow();
+    }
+}
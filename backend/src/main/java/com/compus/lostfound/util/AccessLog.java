@@ -0,0 +1,356 @@
+package com.campus.lostfound.util;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Access log that never blocks a request thread.
+ *
+ * Request threads put entries into a bounded lock-free ring (a sequence
+ * number per slot; producers claim slots with one CAS). When the ring is
+ * full the entry is dropped and counted. One background thread drains the
+ * ring to a file in the W3C extended format: a #Fields header, then one
+ * tab-separated line per request. The file rolls over at maxBytes or when
+ * the UTC date changes, and only the newest maxFiles rolled files are kept.
+ */
+public class AccessLog {
+
+    private static final String FILE_NAME = "access.log";
+    private static final String HEADER = "#Version: 1.0\n#Fields: date time method path status time-taken-ms bytes user\n";
+    private static final DateTimeFormatter ROLLED_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS")
+            .withZone(ZoneOffset.UTC);
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd'\t'HH:mm:ss.SSS")
+            .withZone(ZoneOffset.UTC);
+
+    private static volatile AccessLog shared;
+
+    /**
+     * One finished request, as captured on the request thread.
+     */
+    private static final class Entry {
+        final long epochMillis;
+        final String method;
+        final String path;
+        final int status;
+        final long nanos;
+        final long bytes;
+        final String user;
+
+        Entry(long epochMillis, String method, String path, int status, long nanos, long bytes, String user) {
+            this.epochMillis = epochMillis;
+            this.method = method;
+            this.path = path;
+            this.status = status;
+            this.nanos = nanos;
+            this.bytes = bytes;
+            this.user = user;
+        }
+    }
+
+    private final Path dir;
+    private final long maxBytes;
+    private final int maxFiles;
+    private final double sampleRate;
+
+    // Bounded MPSC ring: slot i is free for position p when sequences[i] == p,
+    // and holds the entry for p when sequences[i] == p + 1.
+    private final AtomicReferenceArray<Entry> slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    // Written only by the writer thread; volatile for getQueued
+    private volatile long head;
+
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder sampledOut = new LongAdder();
+    private final LongAdder writeErrors = new LongAdder();
+
+    private final Thread writer;
+    private volatile boolean closed;
+    private BufferedWriter out;
+    private long fileBytes;
+    private LocalDate fileDate;
+
+    public AccessLog(Path dir, int capacity, long maxBytes, int maxFiles, double sampleRate) {
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+        this.maxFiles = Math.max(1, maxFiles);
+        this.sampleRate = Math.min(1.0, Math.max(0.0, sampleRate));
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.mask = size - 1;
+        this.writer = new Thread(this::runWriter, "access-log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Process-wide log configured from ACCESS_LOG_DIR, ACCESS_LOG_BUFFER,
+     * ACCESS_LOG_MAX_MB, ACCESS_LOG_MAX_FILES and ACCESS_LOG_SAMPLE_RATE.
+     */
+    public static AccessLog shared() {
+        AccessLog log = shared;
+        if (log == null) {
+            synchronized (AccessLog.class) {
+                log = shared;
+                if (log == null) {
+                    log = new AccessLog(Paths.get(Env.getString("ACCESS_LOG_DIR", "logs")),
+                            Env.getInt("ACCESS_LOG_BUFFER", 8192),
+                            Env.getInt("ACCESS_LOG_MAX_MB", 50) * 1024L * 1024L,
+                            Env.getInt("ACCESS_LOG_MAX_FILES", 10),
+                            Env.getDouble("ACCESS_LOG_SAMPLE_RATE", 1.0));
+                    shared = log;
+                }
+            }
+        }
+        return log;
+    }
+
+    public static synchronized void shutdownShared() {
+        if (shared != null) {
+            shared.close();
+            shared = null;
+        }
+    }
+
+    /**
+     * Records one finished request. Successful responses are sampled at
+     * sampleRate; 4xx and 5xx are always kept. Never blocks.
+     */
+    public void log(String method, String path, int status, long nanos, long bytes, String user) {
+        if (closed) {
+            return;
+        }
+        if (status < 400 && sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            sampledOut.increment();
+            return;
+        }
+        if (!offer(new Entry(System.currentTimeMillis(), method, path, status, nanos, bytes, user))) {
+            dropped.increment();
+        }
+    }
+
+    private boolean offer(Entry entry) {
+        long pos = tail.get();
+        while (true) {
+            int index = (int) pos & mask;
+            long diff = sequences.get(index) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    slots.set(index, entry);
+                    sequences.set(index, pos + 1);
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                // The writer has not freed this slot yet: the ring is full
+                return false;
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    /** Single consumer: only the writer thread calls this. */
+    private Entry poll() {
+        int index = (int) head & mask;
+        if (sequences.get(index) != head + 1) {
+            return null;
+        }
+        Entry entry = slots.get(index);
+        slots.set(index, null);
+        sequences.set(index, head + slots.length());
+        head++;
+        return entry;
+    }
+
+    private void runWriter() {
+        StringBuilder line = new StringBuilder(160);
+        while (true) {
+            boolean wrote = false;
+            Entry entry;
+            while ((entry = poll()) != null) {
+                write(entry, line);
+                wrote = true;
+            }
+            if (wrote) {
+                flush();
+            } else if (closed) {
+                closeFile();
+                return;
+            } else {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(20));
+            }
+        }
+    }
+
+    private void write(Entry e, StringBuilder line) {
+        line.setLength(0);
+        line.append(TIMESTAMP.format(Instant.ofEpochMilli(e.epochMillis))).append('\t')
+                .append(e.method).append('\t');
+        appendField(line, e.path);
+        line.append('\t').append(e.status).append('\t');
+        long micros = e.nanos / 1000;
+        line.append(micros / 1000).append('.');
+        long frac = micros % 1000;
+        if (frac < 100) {
+            line.append('0');
+        }
+        if (frac < 10) {
+            line.append('0');
+        }
+        line.append(frac).append('\t').append(e.bytes).append('\t');
+        appendField(line, e.user);
+        line.append('\n');
+        try {
+            ensureFile(e.epochMillis, line.length());
+            out.append(line);
+            fileBytes += line.length();
+            written.increment();
+        } catch (IOException ex) {
+            writeErrors.increment();
+            if (writeErrors.sum() == 1) {
+                System.err.println("Access log write failed: " + ex.getMessage());
+            }
+            closeFile();
+        }
+    }
+
+    // Keeps one line per request: "-" for missing values, whitespace replaced
+    private static void appendField(StringBuilder line, String value) {
+        if (value == null || value.isEmpty()) {
+            line.append('-');
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            line.append(c <= ' ' ? '+' : c);
+        }
+    }
+
+    private void ensureFile(long epochMillis, int nextLength) throws IOException {
+        LocalDate date = Instant.ofEpochMilli(epochMillis).atZone(ZoneOffset.UTC).toLocalDate();
+        if (out != null && (fileBytes + nextLength > maxBytes || !date.equals(fileDate))) {
+            closeFile();
+            roll();
+        }
+        if (out == null) {
+            Files.createDirectories(dir);
+            Path file = dir.resolve(FILE_NAME);
+            boolean fresh = !Files.exists(file) || Files.size(file) == 0;
+            out = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND), StandardCharsets.UTF_8), 64 * 1024);
+            fileBytes = fresh ? 0 : Files.size(file);
+            fileDate = fresh ? date : Files.getLastModifiedTime(file).toInstant().atZone(ZoneOffset.UTC).toLocalDate();
+            if (fresh) {
+                out.write(HEADER);
+                fileBytes += HEADER.length();
+            }
+        }
+    }
+
+    private void roll() throws IOException {
+        Path current = dir.resolve(FILE_NAME);
+        if (Files.exists(current)) {
+            String suffix = ROLLED_SUFFIX.format(Instant.now());
+            Files.move(current, dir.resolve("access-" + suffix + ".log"), StandardCopyOption.REPLACE_EXISTING);
+        }
+        List<Path> rolled = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "access-*.log")) {
+            for (Path p : stream) {
+                rolled.add(p);
+            }
+        }
+        // Names sort by time, oldest first
+        Collections.sort(rolled);
+        for (int i = 0; i < rolled.size() - maxFiles; i++) {
+            Files.deleteIfExists(rolled.get(i));
+        }
+    }
+
+    private void flush() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.flush();
+        } catch (IOException e) {
+            writeErrors.increment();
+            closeFile();
+        }
+    }
+
+    private void closeFile() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.close();
+        } catch (IOException ignored) {
+            // The stream is gone either way; the next entry reopens the file
+        }
+        out = null;
+    }
+
+    /** Entries waiting in the ring. */
+    public int getQueued() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    public int getCapacity() {
+        return slots.length();
+    }
+
+    public long getWrittenCount() {
+        return written.sum();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getSampledOutCount() {
+        return sampledOut.sum();
+    }
+
+    public long getWriteErrorCount() {
+        return writeErrors.sum();
+    }
+
+    /** Stops accepting entries and waits briefly for the writer to drain the ring. */
+    public void close() {
+        closed = true;
+        try {
+            writer.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
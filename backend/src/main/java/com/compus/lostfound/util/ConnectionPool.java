@@ -0,0 +1,583 @@
+package com.campus.lostfound.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Small bounded JDBC connection pool used by DatabaseUtil.
+ *
+ * Connections handed out are proxies: close() returns the physical connection
+ * to the pool, and prepareStatement(sql) is served from a per-connection LRU
+ * cache so hot DAO statements are only parsed once per physical connection.
+ */
+public class ConnectionPool {
+
+    /**
+     * Pool settings. Values can be overridden with DB_POOL_* environment variables.
+     */
+    public static class Config {
+        int maxSize = 10;
+        int minIdle = 2;
+        long acquireTimeoutMs = 5000;
+        long idleTimeoutMs = 10 * 60 * 1000L;
+        long housekeepingIntervalMs = 30 * 1000L;
+        long validationBypassMs = 500;
+        int validationTimeoutSeconds = 2;
+        int statementCacheSize = 32;
+
+        public static Config fromEnvironment() {
+            Config c = new Config();
+            c.maxSize = Env.getInt("DB_POOL_MAX_SIZE", c.maxSize);
+            c.minIdle = Math.min(Env.getInt("DB_POOL_MIN_IDLE", c.minIdle), c.maxSize);
+            c.acquireTimeoutMs = Env.getInt("DB_POOL_ACQUIRE_TIMEOUT_MS", (int) c.acquireTimeoutMs);
+            c.idleTimeoutMs = Env.getInt("DB_POOL_IDLE_TIMEOUT_MS", (int) c.idleTimeoutMs);
+            c.statementCacheSize = Env.getInt("DB_POOL_STATEMENT_CACHE_SIZE", c.statementCacheSize);
+            return c;
+        }
+
+        public int getMaxSize() { return maxSize; }
+        public int getMinIdle() { return minIdle; }
+        public long getAcquireTimeoutMs() { return acquireTimeoutMs; }
+        public long getIdleTimeoutMs() { return idleTimeoutMs; }
+        public int getStatementCacheSize() { return statementCacheSize; }
+    }
+
+    /**
+     * Point-in-time snapshot of pool counters.
+     */
+    public static class Stats {
+        private final int total;
+        private final int active;
+        private final int idle;
+        private final int waiting;
+        private final long acquired;
+        private final long timeouts;
+        private final long totalWaitNanos;
+        private final long maxWaitNanos;
+        private final long created;
+        private final long destroyed;
+        private final long validationFailures;
+        private final long statementCacheHits;
+        private final long statementCacheMisses;
+
+        Stats(int total, int active, int idle, int waiting, long acquired, long timeouts,
+              long totalWaitNanos, long maxWaitNanos, long created, long destroyed,
+              long validationFailures, long statementCacheHits, long statementCacheMisses) {
+            this.total = total;
+            this.active = active;
+            this.idle = idle;
+            this.waiting = waiting;
+            this.acquired = acquired;
+            this.timeouts = timeouts;
+            this.totalWaitNanos = totalWaitNanos;
+            this.maxWaitNanos = maxWaitNanos;
+            this.created = created;
+            this.destroyed = destroyed;
+            this.validationFailures = validationFailures;
+            this.statementCacheHits = statementCacheHits;
+            this.statementCacheMisses = statementCacheMisses;
+        }
+
+        public int getTotal() { return total; }
+        public int getActive() { return active; }
+        public int getIdle() { return idle; }
+        public int getWaiting() { return waiting; }
+        public long getAcquired() { return acquired; }
+        public long getTimeouts() { return timeouts; }
+        public long getTotalWaitNanos() { return totalWaitNanos; }
+        public long getMaxWaitNanos() { return maxWaitNanos; }
+        public long getCreated() { return created; }
+        public long getDestroyed() { return destroyed; }
+        public long getValidationFailures() { return validationFailures; }
+        public long getStatementCacheHits() { return statementCacheHits; }
+        public long getStatementCacheMisses() { return statementCacheMisses; }
+
+        public double getAverageWaitMillis() {
+            return acquired == 0 ? 0 : (totalWaitNanos / (double) acquired) / 1_000_000.0;
+        }
+
+        @Override
+        public String toString() {
+            return "PoolStats{" +
+                    "total=" + total +
+                    ", active=" + active +
+                    ", idle=" + idle +
+                    ", waiting=" + waiting +
+                    ", acquired=" + acquired +
+                    ", timeouts=" + timeouts +
+                    ", avgWaitMs=" + String.format("%.3f", getAverageWaitMillis()) +
+                    ", maxWaitMs=" + (maxWaitNanos / 1_000_000) +
+                    ", created=" + created +
+                    ", destroyed=" + destroyed +
+                    ", validationFailures=" + validationFailures +
+                    ", stmtCacheHits=" + statementCacheHits +
+                    ", stmtCacheMisses=" + statementCacheMisses +
+                    '}';
+        }
+    }
+
+    private final String jdbcUrl;
+    private final String username;
+    private final String password;
+    private final Config config;
+
+    // One permit per connection that may be checked out at the same time.
+    private final Semaphore permits;
+    // LIFO so the most recently used (warm, recently validated) connection is reused first.
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final AtomicInteger total = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder destroyed = new LongAdder();
+    private final LongAdder validationFailures = new LongAdder();
+    private final LongAdder statementCacheHits = new LongAdder();
+    private final LongAdder statementCacheMisses = new LongAdder();
+
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    public ConnectionPool(String jdbcUrl, String username, String password, Config config) {
+        this.jdbcUrl = jdbcUrl;
+        this.username = username;
+        this.password = password;
+        this.config = config;
+        this.permits = new Semaphore(config.maxSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        housekeeper.scheduleWithFixedDelay(this::housekeep,
+                config.housekeepingIntervalMs, config.housekeepingIntervalMs, TimeUnit.MILLISECONDS);
+
+        fillToMinIdle();
+    }
+
+    public String getJdbcUrl() {
+        return jdbcUrl;
+    }
+
+    public Config getConfig() {
+        return config;
+    }
+
+    /**
+     * Borrow a connection, waiting at most acquireTimeoutMs for one to become free.
+     */
+    public Connection getConnection() throws SQLException {
+        Connection conn = acquire(config.acquireTimeoutMs);
+        if (conn == null) {
+            timeouts.increment();
+            throw new SQLException("Timed out after " + config.acquireTimeoutMs
+                    + "ms waiting for a database connection (" + getStats() + ")", "08001");
+        }
+        return conn;
+    }
+
+    /**
+     * Like getConnection, but waits at most timeoutMs and returns null if every
+     * connection stays in use. Failing to open or validate one still throws,
+     * so the caller can tell a busy pool from an unreachable server.
+     */
+    public Connection tryGetConnection(long timeoutMs) throws SQLException {
+        return acquire(timeoutMs);
+    }
+
+    private Connection acquire(long timeoutMs) throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        try {
+            if (!permits.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS)) {
+                return null;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", "08001", e);
+        }
+
+        try {
+            PooledConnection pc = borrow(deadline);
+            if (pc == null) {
+                permits.release();
+                return null;
+            }
+            long waited = System.nanoTime() - start;
+            acquired.increment();
+            totalWaitNanos.add(waited);
+            maxWaitNanos.accumulateAndGet(waited, Math::max);
+            active.incrementAndGet();
+            return pc.newHandle();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /** Null if no connection came back before the deadline. */
+    private PooledConnection borrow(long deadline) throws SQLException {
+        while (true) {
+            PooledConnection pc = idle.pollFirst();
+            if (pc == null) {
+                if (reserveSlot()) {
+                    return open();
+                }
+                // Every slot is open, so a connection is being returned right now.
+                long remaining = deadline - System.nanoTime();
+                try {
+                    pc = remaining > 0 ? idle.pollFirst(remaining, TimeUnit.NANOSECONDS) : null;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrupted while waiting for a database connection", "08001", e);
+                }
+                if (pc == null) {
+                    return null;
+                }
+            }
+            if (validate(pc)) {
+                return pc;
+            }
+            validationFailures.increment();
+            destroy(pc);
+        }
+    }
+
+    private boolean validate(PooledConnection pc) {
+        if (System.nanoTime() - pc.lastUsedNanos < TimeUnit.MILLISECONDS.toNanos(config.validationBypassMs)) {
+            return true;
+        }
+        try {
+            return pc.physical.isValid(config.validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private boolean reserveSlot() {
+        while (true) {
+            int current = total.get();
+            if (current >= config.maxSize) {
+                return false;
+            }
+            if (total.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Opens a connection that is not counted against the pool, for long-lived
+     * sessions such as LISTEN. The caller closes it.
+     */
+    public Connection openUnpooled() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        return username != null
+                ? DriverManager.getConnection(jdbcUrl, username, password)
+                : DriverManager.getConnection(jdbcUrl);
+    }
+
+    /** Opens a physical connection for a slot already reserved with reserveSlot(). */
+    private PooledConnection open() throws SQLException {
+        try {
+            Connection physical = username != null
+                    ? DriverManager.getConnection(jdbcUrl, username, password)
+                    : DriverManager.getConnection(jdbcUrl);
+            created.increment();
+            return new PooledConnection(physical);
+        } catch (SQLException | RuntimeException e) {
+            total.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private void release(PooledConnection pc) {
+        active.decrementAndGet();
+        try {
+            if (closed || !pc.reset()) {
+                destroy(pc);
+            } else {
+                pc.lastUsedNanos = System.nanoTime();
+                idle.offerFirst(pc);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void destroy(PooledConnection pc) {
+        total.decrementAndGet();
+        destroyed.increment();
+        pc.closePhysical();
+    }
+
+    private void housekeep() {
+        try {
+            long idleLimit = TimeUnit.MILLISECONDS.toNanos(config.idleTimeoutMs);
+            long now = System.nanoTime();
+            Iterator<PooledConnection> it = idle.descendingIterator();
+            while (it.hasNext() && total.get() > config.minIdle) {
+                PooledConnection pc = it.next();
+                if (now - pc.lastUsedNanos > idleLimit && idle.remove(pc)) {
+                    destroy(pc);
+                }
+            }
+            fillToMinIdle();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void fillToMinIdle() {
+        while (!closed && idle.size() < config.minIdle && reserveSlot()) {
+            try {
+                PooledConnection pc = open();
+                idle.offerLast(pc);
+            } catch (SQLException e) {
+                System.err.println("Connection pool warmup failed: " + e.getMessage());
+                return;
+            }
+        }
+    }
+
+    public Stats getStats() {
+        return new Stats(total.get(), active.get(), idle.size(), permits.getQueueLength(),
+                acquired.sum(), timeouts.sum(), totalWaitNanos.sum(), maxWaitNanos.get(),
+                created.sum(), destroyed.sum(), validationFailures.sum(),
+                statementCacheHits.sum(), statementCacheMisses.sum());
+    }
+
+    /**
+     * Close idle connections and stop housekeeping. Borrowed connections are
+     * closed as they are returned.
+     */
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pc;
+        while ((pc = idle.pollFirst()) != null) {
+            destroy(pc);
+        }
+    }
+
+    /**
+     * A physical connection plus its prepared statement cache.
+     */
+    private class PooledConnection {
+        final Connection physical;
+        volatile long lastUsedNanos = System.nanoTime();
+        Connection handle;
+
+        // Access-ordered so the eldest entry is the least recently used statement.
+        private final LinkedHashMap<String, CachedStatement> statements =
+                new LinkedHashMap<String, CachedStatement>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                        if (size() > config.statementCacheSize && !eldest.getValue().inUse) {
+                            eldest.getValue().closePhysical();
+                            return true;
+                        }
+                        return false;
+                    }
+                };
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+        }
+
+        Connection newHandle() {
+            handle = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, new ConnectionHandler(this));
+            return handle;
+        }
+
+        PreparedStatement prepare(String sql) throws SQLException {
+            if (config.statementCacheSize <= 0) {
+                return physical.prepareStatement(sql);
+            }
+            CachedStatement cached = statements.get(sql);
+            if (cached != null && !cached.inUse) {
+                statementCacheHits.increment();
+                cached.inUse = true;
+                return cached.proxy;
+            }
+            statementCacheMisses.increment();
+            PreparedStatement ps = physical.prepareStatement(sql);
+            if (cached != null) {
+                // Same SQL is already open on this connection; hand out an uncached statement.
+                return ps;
+            }
+            CachedStatement entry = new CachedStatement(ps);
+            entry.inUse = true;
+            statements.put(sql, entry);
+            return entry.proxy;
+        }
+
+        /** Restore default session state; returns false if the connection is unusable. */
+        boolean reset() {
+            try {
+                if (physical.isClosed()) {
+                    return false;
+                }
+                if (!physical.getAutoCommit()) {
+                    physical.rollback();
+                    physical.setAutoCommit(true);
+                }
+                if (physical.isReadOnly()) {
+                    physical.setReadOnly(false);
+                }
+                Iterator<CachedStatement> it = statements.values().iterator();
+                while (it.hasNext()) {
+                    CachedStatement cs = it.next();
+                    if (cs.inUse && !cs.recycle()) {
+                        it.remove();
+                    }
+                }
+                return true;
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        void closePhysical() {
+            for (CachedStatement cs : statements.values()) {
+                cs.closePhysical();
+            }
+            statements.clear();
+            try {
+                physical.close();
+            } catch (SQLException ignored) {
+                // Already broken, nothing else to release.
+            }
+        }
+
+        private class CachedStatement {
+            final PreparedStatement physicalStatement;
+            final PreparedStatement proxy;
+            boolean inUse;
+
+            CachedStatement(PreparedStatement ps) {
+                this.physicalStatement = ps;
+                this.proxy = (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                        new Class<?>[]{PreparedStatement.class}, this::invoke);
+            }
+
+            private Object invoke(Object p, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "close":
+                        if (inUse && !recycle()) {
+                            statements.values().remove(this);
+                        }
+                        return null;
+                    case "isClosed":
+                        return !inUse || physicalStatement.isClosed();
+                    case "getConnection":
+                        return handle;
+                    default:
+                        if (!inUse) {
+                            throw new SQLException("PreparedStatement is closed");
+                        }
+                        return invokeTarget(physicalStatement, method, args);
+                }
+            }
+
+            /** Make the statement reusable; returns false (and closes it) if it is broken. */
+            boolean recycle() {
+                inUse = false;
+                try {
+                    physicalStatement.clearParameters();
+                    physicalStatement.clearBatch();
+                    physicalStatement.setFetchSize(0);
+                    physicalStatement.setMaxRows(0);
+                    return true;
+                } catch (SQLException e) {
+                    closePhysical();
+                    return false;
+                }
+            }
+
+            void closePhysical() {
+                try {
+                    physicalStatement.close();
+                } catch (SQLException ignored) {
+                    // Connection is going away or statement already closed.
+                }
+            }
+        }
+    }
+
+    /**
+     * Logical connection handed to callers; invalid once closed.
+     */
+    private class ConnectionHandler implements InvocationHandler {
+        private final PooledConnection pc;
+        private boolean closed;
+
+        ConnectionHandler(PooledConnection pc) {
+            this.pc = pc;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        release(pc);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || pc.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled" + pc.physical;
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("Connection is closed");
+            }
+            if ("prepareStatement".equals(method.getName()) && args != null && args.length == 1) {
+                return pc.prepare((String) args[0]);
+            }
+            return invokeTarget(pc.physical, method, args);
+        }
+    }
+
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
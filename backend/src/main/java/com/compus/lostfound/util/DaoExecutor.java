@@ -0,0 +1,136 @@
+package com.campus.lostfound.util;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Executor for blocking DAO work handed off from async servlets.
+ *
+ * Runs tasks on virtual threads when the JVM provides them (Java 21+) and
+ * otherwise on a fixed pool of platform threads. Either way at most
+ * maxConcurrency + queueCapacity tasks are accepted at once; beyond that
+ * execute() throws RejectedExecutionException so callers can shed load.
+ */
+public class DaoExecutor {
+
+    private static volatile DaoExecutor shared;
+
+    private final ExecutorService executor;
+    private final Semaphore admitted;
+    private final int capacity;
+    private final boolean virtualThreads;
+    private final LongAdder rejected = new LongAdder();
+
+    public DaoExecutor(int maxConcurrency, int queueCapacity, boolean preferVirtualThreads) {
+        ExecutorService virtual = preferVirtualThreads ? newVirtualThreadExecutor() : null;
+        this.virtualThreads = virtual != null;
+        this.capacity = maxConcurrency + queueCapacity;
+        this.admitted = new Semaphore(capacity);
+        if (virtual != null) {
+            this.executor = virtual;
+        } else {
+            AtomicInteger counter = new AtomicInteger();
+            this.executor = new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), r -> {
+                        Thread t = new Thread(r, "dao-worker-" + counter.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    }, new ThreadPoolExecutor.AbortPolicy());
+        }
+    }
+
+    /**
+     * Process-wide executor configured from DAO_EXECUTOR_THREADS,
+     * DAO_EXECUTOR_QUEUE and DAO_EXECUTOR_VIRTUAL_THREADS.
+     */
+    public static DaoExecutor shared() {
+        DaoExecutor e = shared;
+        if (e == null) {
+            synchronized (DaoExecutor.class) {
+                e = shared;
+                if (e == null) {
+                    e = new DaoExecutor(Env.getInt("DAO_EXECUTOR_THREADS", 32),
+                            Env.getInt("DAO_EXECUTOR_QUEUE", 256),
+                            Env.getBoolean("DAO_EXECUTOR_VIRTUAL_THREADS", true));
+                    System.out.println("DAO executor using " + (e.virtualThreads ? "virtual threads" : "platform threads"));
+                    shared = e;
+                }
+            }
+        }
+        return e;
+    }
+
+    public static synchronized void shutdownShared() {
+        if (shared != null) {
+            shared.shutdown();
+            shared = null;
+        }
+    }
+
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @throws RejectedExecutionException if the executor is saturated or shut down
+     */
+    public void execute(Runnable task) {
+        if (!admitted.tryAcquire()) {
+            rejected.increment();
+            throw new RejectedExecutionException("DAO executor is saturated");
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    admitted.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            admitted.release();
+            rejected.increment();
+            throw e;
+        }
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /** Tasks accepted and not yet finished (running or queued). */
+    public int getInFlight() {
+        return capacity - admitted.availablePermits();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
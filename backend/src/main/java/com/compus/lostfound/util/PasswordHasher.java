@@ -0,0 +1,169 @@
+package com.campus.lostfound.util;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * PBKDF2-HMAC-SHA256 password hashing on a dedicated, bounded pool.
+ *
+ * Each hash costs tens of milliseconds of CPU by design. Running them on
+ * their own small pool (PASSWORD_HASH_THREADS, default one per core, plus
+ * PASSWORD_HASH_QUEUE waiting) keeps a burst of logins from occupying every
+ * request thread; when the pool is full callers get
+ * RejectedExecutionException and should answer 503.
+ *
+ * Stored format: pbkdf2$iterations$base64(salt)$base64(hash). Values without
+ * that prefix are legacy plaintext passwords; see needsRehash.
+ */
+public class PasswordHasher {
+
+    private static final String PREFIX = "pbkdf2";
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+    private static final long WAIT_SECONDS = 10;
+
+    private static volatile PasswordHasher shared;
+
+    private final int iterations;
+    private final ThreadPoolExecutor pool;
+    private final SecureRandom random = new SecureRandom();
+    // Verified against when the user does not exist, so response time does not reveal it
+    private final String dummyHash;
+
+    public PasswordHasher(int iterations, int threads, int queueCapacity) {
+        this.iterations = iterations;
+        AtomicInteger counter = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), r -> {
+                    Thread t = new Thread(r, "password-hash-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.dummyHash = encode(iterations, new byte[SALT_BYTES], pbkdf2("dummy".toCharArray(), new byte[SALT_BYTES], iterations));
+    }
+
+    /**
+     * Process-wide hasher configured from PASSWORD_HASH_ITERATIONS,
+     * PASSWORD_HASH_THREADS and PASSWORD_HASH_QUEUE.
+     */
+    public static PasswordHasher shared() {
+        PasswordHasher h = shared;
+        if (h == null) {
+            synchronized (PasswordHasher.class) {
+                h = shared;
+                if (h == null) {
+                    h = new PasswordHasher(Env.getInt("PASSWORD_HASH_ITERATIONS", 210000),
+                            Env.getInt("PASSWORD_HASH_THREADS", Runtime.getRuntime().availableProcessors()),
+                            Env.getInt("PASSWORD_HASH_QUEUE", 64));
+                    shared = h;
+                }
+            }
+        }
+        return h;
+    }
+
+    public static synchronized void shutdownShared() {
+        if (shared != null) {
+            shared.pool.shutdownNow();
+            shared = null;
+        }
+    }
+
+    /**
+     * @throws RejectedExecutionException if the hashing pool is saturated
+     */
+    public String hash(String password) {
+        return run(() -> {
+            byte[] salt = new byte[SALT_BYTES];
+            random.nextBytes(salt);
+            return encode(iterations, salt, pbkdf2(password.toCharArray(), salt, iterations));
+        });
+    }
+
+    /**
+     * Checks a password against a stored value, hashed or legacy plaintext.
+     * A null stored value (unknown user) still costs one hash.
+     *
+     * @throws RejectedExecutionException if the hashing pool is saturated
+     */
+    public boolean verify(String password, String stored) {
+        if (password == null) {
+            return false;
+        }
+        if (stored != null && !isHashed(stored)) {
+            return MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8), stored.getBytes(StandardCharsets.UTF_8));
+        }
+        String target = stored != null ? stored : dummyHash;
+        boolean ok = run(() -> {
+            String[] parts = target.split("\\$");
+            if (parts.length != 4) {
+                return false;
+            }
+            int n = Integer.parseInt(parts[1]);
+            byte[] salt = Base64.getDecoder().decode(parts[2]);
+            byte[] expected = Base64.getDecoder().decode(parts[3]);
+            return MessageDigest.isEqual(expected, pbkdf2(password.toCharArray(), salt, n));
+        });
+        return ok && stored != null;
+    }
+
+    /** True for plaintext or hashes weaker than the current iteration count. */
+    public boolean needsRehash(String stored) {
+        if (stored == null || !isHashed(stored)) {
+            return true;
+        }
+        String[] parts = stored.split("\\$");
+        return parts.length != 4 || Integer.parseInt(parts[1]) < iterations;
+    }
+
+    private static boolean isHashed(String stored) {
+        return stored.startsWith(PREFIX + "$");
+    }
+
+    private <T> T run(Callable<T> task) {
+        Future<T> future = pool.submit(task);
+        try {
+            return future.get(WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new RejectedExecutionException("Password hashing timed out");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while hashing password", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Password hashing failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private static byte[] pbkdf2(char[] password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password, salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    private static String encode(int iterations, byte[] salt, byte[] hash) {
+        Base64.Encoder b64 = Base64.getEncoder().withoutPadding();
+        return PREFIX + "$" + iterations + "$" + b64.encodeToString(salt) + "$" + b64.encodeToString(hash);
+    }
+}
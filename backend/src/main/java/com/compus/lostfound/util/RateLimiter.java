@@ -0,0 +1,68 @@
+package com.campus.lostfound.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free per-key token buckets over a fixed array of stripes.
+ *
+ * Each key hashes to one stripe; a stripe is a single long holding the
+ * bucket in GCRA form (the time at which it would next be completely full),
+ * so taking a token is one read and one CAS. Memory is fixed no matter how
+ * many distinct keys show up, which matters when the keys are client IPs.
+ * Two keys that share a stripe share a bucket, so size stripes well above
+ * the number of clients active at once.
+ */
+public class RateLimiter {
+
+    private final AtomicLongArray stripes;
+    private final long intervalNanos;
+    private final long toleranceNanos;
+
+    /**
+     * @param perSecond sustained rate allowed per key
+     * @param burst     requests a key may make at once after being idle
+     */
+    public RateLimiter(double perSecond, int burst, int stripeCount) {
+        this.stripes = new AtomicLongArray(Math.max(1, stripeCount));
+        this.intervalNanos = Math.max(1, (long) (1e9 / perSecond));
+        this.toleranceNanos = intervalNanos * Math.max(0, burst - 1);
+    }
+
+    /**
+     * Takes a token for key. Returns 0 if allowed, otherwise how many
+     * nanoseconds until the next token for that key.
+     */
+    public long tryAcquire(String key) {
+        int index = stripe(key);
+        long now = System.nanoTime();
+        while (true) {
+            long tat = stripes.get(index);
+            // Zero means never used; an idle bucket catches up to now and is full
+            long start = tat == 0 || tat - now < 0 ? now : tat;
+            long wait = start - now - toleranceNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            long next = start + intervalNanos;
+            if (stripes.compareAndSet(index, tat, next == 0 ? 1 : next)) {
+                return 0;
+            }
+        }
+    }
+
+    private int stripe(String key) {
+        // FNV-1a, then a SplitMix64 finish so nearby keys (10.0.0.1, 10.0.0.2) spread out
+        long h = 0xCBF29CE484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xFF;
+            h *= 0x100000001B3L;
+        }
+        h ^= h >>> 30;
+        h *= 0xBF58476D1CE4E5B9L;
+        h ^= h >>> 27;
+        h *= 0x94D049BB133111EBL;
+        h ^= h >>> 31;
+        return (int) Math.floorMod(h, (long) stripes.length());
+    }
+}
@@ -0,0 +1,286 @@
+package com.campus.lostfound.util;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Spreads read-only queries over read replicas, falling back to the primary.
+ *
+ * Each replica has its own ConnectionPool. A background check runs a probe
+ * query on every replica; a replica that fails it, or whose replay lag is
+ * above maxLag, stops getting reads until a later check passes. Reads go to
+ * the healthy replica with the lowest pool load (active plus waiting over
+ * pool size), ties broken round-robin. A replica whose pool has no free
+ * connection within borrowWaitMillis is busy, not broken: the read moves on
+ * to the next replica and the busy one stays in rotation. One that fails to
+ * connect or validate is marked down at once. With none left the read goes
+ * to the primary.
+ *
+ * Read-your-writes: recordWrite(key) pins reads for that key (a user id) to
+ * the primary for stickyMillis, which should exceed the usual replica lag.
+ * The pin applies per thread through pinPrimaryReads(), set for the length
+ * of a request.
+ */
+public class ReplicaRouter {
+
+    // Zero when the server is not a standby or has replayed everything it received
+    private static final String LAG_SQL =
+            "SELECT CASE WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0) END";
+
+    private static final int PROBE_TIMEOUT_SECONDS = 2;
+
+    private static final ThreadLocal<Integer> PRIMARY_PINS = new ThreadLocal<>();
+
+    /**
+     * One replica: its pool plus the result of the last health check.
+     */
+    public static class Replica {
+        private final String name;
+        private final ConnectionPool pool;
+        private volatile boolean healthy = true;
+        private volatile long lagMillis;
+        private volatile String lastError;
+        private final LongAdder reads = new LongAdder();
+
+        Replica(String name, ConnectionPool pool) {
+            this.name = name;
+            this.pool = pool;
+        }
+
+        public String getName() { return name; }
+        public boolean isHealthy() { return healthy; }
+        public long getLagMillis() { return lagMillis; }
+        public String getLastError() { return lastError; }
+        public long getReadCount() { return reads.sum(); }
+        public ConnectionPool.Stats getPoolStats() { return pool.getStats(); }
+
+        double load() {
+            ConnectionPool.Stats s = pool.getStats();
+            return (s.getActive() + s.getWaiting()) / (double) Math.max(1, pool.getConfig().getMaxSize());
+        }
+    }
+
+    /**
+     * Returned by pinPrimaryReads; closing it ends the pin for this thread.
+     */
+    public static final class PrimaryReads implements AutoCloseable {
+        private boolean closed;
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            Integer pins = PRIMARY_PINS.get();
+            if (pins == null || pins <= 1) {
+                PRIMARY_PINS.remove();
+            } else {
+                PRIMARY_PINS.set(pins - 1);
+            }
+        }
+    }
+
+    private final List<Replica> replicas;
+    private final long maxLagMillis;
+    private final long stickyNanos;
+    private final long borrowWaitMillis;
+    private final ScheduledExecutorService checker;
+    private final AtomicInteger nextStart = new AtomicInteger();
+    // Key -> System.nanoTime() until which its reads stay on the primary
+    private final Map<String, Long> recentWriters = new ConcurrentHashMap<>();
+
+    private final LongAdder primaryReads = new LongAdder();
+    private final LongAdder failovers = new LongAdder();
+    private final LongAdder busySkips = new LongAdder();
+
+    /**
+     * @param borrowWaitMillis how long a read waits for a busy replica's pool
+     *                         before trying the next replica or the primary
+     */
+    public ReplicaRouter(List<Replica> replicas, long checkIntervalMillis, long maxLagMillis, long stickyMillis,
+                         long borrowWaitMillis) {
+        this.replicas = Collections.unmodifiableList(new ArrayList<>(replicas));
+        this.maxLagMillis = maxLagMillis;
+        this.stickyNanos = TimeUnit.MILLISECONDS.toNanos(stickyMillis);
+        this.borrowWaitMillis = Math.max(0, borrowWaitMillis);
+        this.checker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-replica-health");
+            t.setDaemon(true);
+            return t;
+        });
+        checker.scheduleWithFixedDelay(this::checkAll, 0, checkIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection for a read-only query: from a replica when one is
+     * healthy and this thread is not pinned, otherwise from primary.
+     */
+    public Connection getReadConnection(ConnectionPool primary) throws SQLException {
+        if (!isPinned()) {
+            List<Replica> tried = new ArrayList<>(replicas.size());
+            for (int attempt = 0; attempt < replicas.size(); attempt++) {
+                Replica r = leastLoaded(tried);
+                if (r == null) {
+                    break;
+                }
+                tried.add(r);
+                try {
+                    Connection conn = r.pool.tryGetConnection(borrowWaitMillis);
+                    if (conn != null) {
+                        r.reads.increment();
+                        return conn;
+                    }
+                    // Every connection in use: busy, so it stays in rotation
+                    busySkips.increment();
+                } catch (SQLException e) {
+                    // Could not connect; take it out now rather than at the next check, which brings it back
+                    markDown(r, e.getMessage());
+                    failovers.increment();
+                }
+            }
+        }
+        primaryReads.increment();
+        return primary.getConnection();
+    }
+
+    private Replica leastLoaded(List<Replica> skip) {
+        int n = replicas.size();
+        // Rotating the starting point spreads ties (e.g. all idle) round-robin
+        int start = Math.floorMod(nextStart.getAndIncrement(), Math.max(1, n));
+        Replica best = null;
+        double bestLoad = Double.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            Replica r = replicas.get((start + i) % n);
+            if (!r.healthy || skip.contains(r)) {
+                continue;
+            }
+            double load = r.load();
+            if (load < bestLoad) {
+                best = r;
+                bestLoad = load;
+            }
+        }
+        return best;
+    }
+
+    /** Pins this thread's reads to the primary until the returned scope is closed. Nests. */
+    public static PrimaryReads pinPrimaryReads() {
+        Integer pins = PRIMARY_PINS.get();
+        PRIMARY_PINS.set(pins == null ? 1 : pins + 1);
+        return new PrimaryReads();
+    }
+
+    static boolean isPinned() {
+        return PRIMARY_PINS.get() != null;
+    }
+
+    /** Sends reads for key to the primary for the sticky window, starting now. */
+    public void recordWrite(String key) {
+        recentWriters.put(key, System.nanoTime() + stickyNanos);
+    }
+
+    /** True if key wrote within the sticky window. */
+    public boolean wroteRecently(String key) {
+        Long until = recentWriters.get(key);
+        if (until == null) {
+            return false;
+        }
+        if (until - System.nanoTime() > 0) {
+            return true;
+        }
+        recentWriters.remove(key, until);
+        return false;
+    }
+
+    private void checkAll() {
+        try {
+            for (Replica r : replicas) {
+                check(r);
+            }
+            // Drop expired pins left by users who never read again
+            long now = System.nanoTime();
+            Iterator<Map.Entry<String, Long>> it = recentWriters.entrySet().iterator();
+            while (it.hasNext()) {
+                if (it.next().getValue() - now <= 0) {
+                    it.remove();
+                }
+            }
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void check(Replica r) {
+        try (Connection conn = r.pool.getConnection();
+             Statement st = conn.createStatement()) {
+            st.setQueryTimeout(PROBE_TIMEOUT_SECONDS);
+            long lag;
+            try (ResultSet rs = st.executeQuery(LAG_SQL)) {
+                rs.next();
+                lag = (long) rs.getDouble(1);
+            }
+            r.lagMillis = lag;
+            if (lag > maxLagMillis) {
+                markDown(r, "replication lag " + lag + " ms");
+            } else if (!r.healthy) {
+                r.healthy = true;
+                r.lastError = null;
+                System.out.println("Read replica " + r.name + " is back (lag " + lag + " ms)");
+            }
+        } catch (SQLException e) {
+            markDown(r, e.getMessage());
+        }
+    }
+
+    private void markDown(Replica r, String reason) {
+        r.lastError = reason;
+        if (r.healthy) {
+            r.healthy = false;
+            System.err.println("Read replica " + r.name + " taken out of rotation: " + reason);
+        }
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    public long getPrimaryReadCount() {
+        return primaryReads.sum();
+    }
+
+    /** How long after a write replicas may still not have it. */
+    public long getStickyNanos() {
+        return stickyNanos;
+    }
+
+    public long getFailoverCount() {
+        return failovers.sum();
+    }
+
+    /** Reads that passed over a replica because its pool had no free connection. */
+    public long getBusySkipCount() {
+        return busySkips.sum();
+    }
+
+    public void close() {
+        checker.shutdownNow();
+        for (Replica r : replicas) {
+            r.pool.close();
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.campus.lostfound.util;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Issues and verifies stateless session tokens.
+ *
+ * A token is base64url(payload) + "." + base64url(HMAC-SHA256(payload)),
+ * where the payload carries the user id, expiry and a random token id.
+ * Verification is a MAC check plus a lookup in a small in-memory revocation
+ * map, so authenticated requests need no database round trip. Revoked ids
+ * are kept only until the token would have expired anyway.
+ *
+ * The key comes from AUTH_TOKEN_SECRET; without it a random key is used and
+ * tokens do not survive a restart or work across instances.
+ */
+public class TokenService {
+
+    private static final String VERSION = "t1";
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder B64 = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder B64D = Base64.getUrlDecoder();
+
+    private static volatile TokenService shared;
+
+    /**
+     * A verified token.
+     */
+    public static class Session {
+        private final String userId;
+        private final long expiresAt;
+        private final String tokenId;
+
+        Session(String userId, long expiresAt, String tokenId) {
+            this.userId = userId;
+            this.expiresAt = expiresAt;
+            this.tokenId = tokenId;
+        }
+
+        public String getUserId() { return userId; }
+        /** Expiry in epoch seconds. */
+        public long getExpiresAt() { return expiresAt; }
+        public String getTokenId() { return tokenId; }
+    }
+
+    private final byte[] key;
+    private final long ttlSeconds;
+    private final int maxRevoked;
+    private final SecureRandom random = new SecureRandom();
+    // Mac instances are not thread-safe; one per thread avoids both locking and re-init
+    private final ThreadLocal<Mac> mac;
+    // token id -> expiry (epoch seconds)
+    private final ConcurrentHashMap<String, Long> revoked = new ConcurrentHashMap<>();
+
+    public TokenService(byte[] key, long ttlSeconds, int maxRevoked) {
+        if (key.length < 32) {
+            throw new IllegalArgumentException("Token key must be at least 32 bytes");
+        }
+        this.key = key.clone();
+        this.ttlSeconds = ttlSeconds;
+        this.maxRevoked = maxRevoked;
+        this.mac = ThreadLocal.withInitial(this::newMac);
+    }
+
+    /**
+     * Process-wide service configured from AUTH_TOKEN_SECRET,
+     * AUTH_TOKEN_TTL_SECONDS and AUTH_REVOCATION_MAX_ENTRIES.
+     */
+    public static TokenService shared() {
+        TokenService s = shared;
+        if (s == null) {
+            synchronized (TokenService.class) {
+                s = shared;
+                if (s == null) {
+                    String secret = Env.getString("AUTH_TOKEN_SECRET", null);
+                    byte[] key;
+                    if (secret != null) {
+                        key = sha256(secret.getBytes(StandardCharsets.UTF_8));
+                    } else {
+                        System.err.println("AUTH_TOKEN_SECRET not set; using a random key, sessions end on restart");
+                        key = new byte[32];
+                        new SecureRandom().nextBytes(key);
+                    }
+                    s = new TokenService(key, Env.getInt("AUTH_TOKEN_TTL_SECONDS", 86400),
+                            Env.getInt("AUTH_REVOCATION_MAX_ENTRIES", 10000));
+                    shared = s;
+                }
+            }
+        }
+        return s;
+    }
+
+    public String issue(String userId) {
+        long expiresAt = nowSeconds() + ttlSeconds;
+        byte[] id = new byte[12];
+        random.nextBytes(id);
+        String payload = VERSION + "|" + userId + "|" + expiresAt + "|" + B64.encodeToString(id);
+        String body = B64.encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+        return body + "." + B64.encodeToString(sign(body));
+    }
+
+    public long getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    /**
+     * @return the session, or null if the token is malformed, forged, expired or revoked
+     */
+    public Session verify(String token) {
+        if (token == null) {
+            return null;
+        }
+        int dot = token.indexOf('.');
+        if (dot <= 0 || dot == token.length() - 1) {
+            return null;
+        }
+        String body = token.substring(0, dot);
+        try {
+            byte[] signature = B64D.decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(signature, sign(body))) {
+                return null;
+            }
+            String[] parts = new String(B64D.decode(body), StandardCharsets.UTF_8).split("\\|", -1);
+            if (parts.length != 4 || !VERSION.equals(parts[0])) {
+                return null;
+            }
+            long expiresAt = Long.parseLong(parts[2]);
+            if (expiresAt <= nowSeconds() || revoked.containsKey(parts[3])) {
+                return null;
+            }
+            return new Session(parts[1], expiresAt, parts[3]);
+        } catch (IllegalArgumentException e) {
+            // Bad base64 or a non-numeric expiry (NumberFormatException)
+            return null;
+        }
+    }
+
+    /** Rejects the token until it expires. */
+    public void revoke(Session session) {
+        if (revoked.size() >= maxRevoked) {
+            pruneRevoked();
+        }
+        revoked.put(session.getTokenId(), session.getExpiresAt());
+    }
+
+    public int getRevokedCount() {
+        return revoked.size();
+    }
+
+    private void pruneRevoked() {
+        long now = nowSeconds();
+        for (Iterator<Map.Entry<String, Long>> it = revoked.entrySet().iterator(); it.hasNext(); ) {
+            if (it.next().getValue() <= now) {
+                it.remove();
+            }
+        }
+        if (revoked.size() >= maxRevoked) {
+            // Never drop live revocations; the map is still bounded by the token TTL
+            System.err.println("Token revocation list has " + revoked.size() + " live entries");
+        }
+    }
+
+    private byte[] sign(String body) {
+        return mac.get().doFinal(body.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac m = Mac.getInstance(ALGORITHM);
+            m.init(new SecretKeySpec(key, ALGORITHM));
+            return m;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " not available", e);
+        }
+    }
+
+    private static byte[] sha256(byte[] input) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(input);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static long nowSeconds() {
+        return System.currentTimeMillis() / 1000;
+    }
+}
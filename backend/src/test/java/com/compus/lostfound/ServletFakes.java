@@ -0,0 +1,196 @@
+package com.campus.lostfound;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Minimal in-memory stand-ins for the servlet objects the filters and
+ * AsyncDispatch touch. Methods not handled here return the default value
+ * for their type (null, 0, false).
+ */
+public final class ServletFakes {
+
+    private ServletFakes() {}
+
+    /**
+     * Records status, headers and body. reset() makes it look fresh again,
+     * like a container recycling the response for the next request.
+     */
+    public static final class Response {
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        private final Map<String, String> headers = new LinkedHashMap<>();
+        private int status = 200;
+        private String contentType;
+        private String characterEncoding = "UTF-8";
+        private boolean committed;
+        private WriteListener writeListener;
+        private PrintWriter writer;
+        private final ServletOutputStream stream = new ServletOutputStream() {
+            @Override
+            public void write(int b) {
+                synchronized (Response.this) {
+                    committed = committed || body.size() > 8192;
+                    body.write(b);
+                }
+            }
+
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener listener) {
+                writeListener = listener;
+            }
+        };
+
+        public final HttpServletResponse proxy = (HttpServletResponse) Proxy.newProxyInstance(
+                ServletFakes.class.getClassLoader(), new Class<?>[] {HttpServletResponse.class},
+                (p, method, args) -> invoke(method, args));
+
+        private synchronized Object invoke(Method method, Object[] args) {
+            switch (method.getName()) {
+                case "setStatus":
+                    status = (Integer) args[0];
+                    return null;
+                case "getStatus":
+                    return status;
+                case "setHeader":
+                case "addHeader":
+                    headers.put(((String) args[0]).toLowerCase(), (String) args[1]);
+                    return null;
+                case "getHeader":
+                    return headers.get(((String) args[0]).toLowerCase());
+                case "setContentType":
+                    contentType = (String) args[0];
+                    return null;
+                case "getContentType":
+                    return contentType;
+                case "setCharacterEncoding":
+                    characterEncoding = (String) args[0];
+                    return null;
+                case "getCharacterEncoding":
+                    return characterEncoding;
+                case "getOutputStream":
+                    return stream;
+                case "getWriter":
+                    if (writer == null) {
+                        writer = new PrintWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), true);
+                    }
+                    return writer;
+                case "isCommitted":
+                    return committed;
+                case "flushBuffer":
+                    committed = true;
+                    return null;
+                case "resetBuffer":
+                    body.reset();
+                    return null;
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        }
+
+        public synchronized void reset() {
+            body.reset();
+            headers.clear();
+            status = 200;
+            contentType = null;
+            committed = false;
+            writer = null;
+        }
+
+        public synchronized String body() {
+            if (writer != null) {
+                writer.flush();
+            }
+            return new String(body.toByteArray(), StandardCharsets.UTF_8);
+        }
+
+        public synchronized int status() {
+            return status;
+        }
+
+        public synchronized String header(String name) {
+            return headers.get(name.toLowerCase());
+        }
+
+        public synchronized WriteListener writeListener() {
+            return writeListener;
+        }
+    }
+
+    /**
+     * An async-capable GET request; startAsync returns an AsyncContext that
+     * records its listeners and counts complete() calls.
+     */
+    public static final class AsyncRequest {
+        public final List<AsyncListener> listeners = new CopyOnWriteArrayList<>();
+        public final AtomicInteger completions = new AtomicInteger();
+
+        public final AsyncContext context = (AsyncContext) Proxy.newProxyInstance(
+                ServletFakes.class.getClassLoader(), new Class<?>[] {AsyncContext.class},
+                (p, method, args) -> {
+                    switch (method.getName()) {
+                        case "addListener":
+                            listeners.add((AsyncListener) args[0]);
+                            return null;
+                        case "complete":
+                            completions.incrementAndGet();
+                            return null;
+                        default:
+                            return defaultValue(method.getReturnType());
+                    }
+                });
+
+        public final HttpServletRequest proxy = (HttpServletRequest) Proxy.newProxyInstance(
+                ServletFakes.class.getClassLoader(), new Class<?>[] {HttpServletRequest.class},
+                (p, method, args) -> {
+                    switch (method.getName()) {
+                        case "isAsyncSupported":
+                        case "isAsyncStarted":
+                            return true;
+                        case "startAsync":
+                            return context;
+                        case "getMethod":
+                            return "GET";
+                        case "getRequestURI":
+                            return "/api/items";
+                        case "getContextPath":
+                        case "getServletPath":
+                            return "";
+                        default:
+                            return defaultValue(method.getReturnType());
+                    }
+                });
+    }
+
+    static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,84 @@
+package com.campus.lostfound.controller;
+
+import com.campus.lostfound.ServletFakes;
+import org.junit.Assume;
+import org.junit.Test;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class AsyncDispatchTest {
+
+    @Test
+    public void handlerPastTheTimeoutCannotWriteIntoTheRecycledResponse() throws Exception {
+        Assume.assumeTrue(AsyncDispatch.ENABLED);
+        ServletFakes.AsyncRequest request = new ServletFakes.AsyncRequest();
+        ServletFakes.Response response = new ServletFakes.Response();
+        CountDownLatch timedOut = new CountDownLatch(1);
+        CountDownLatch handlerDone = new CountDownLatch(1);
+
+        AsyncDispatch.dispatch(request.proxy, response.proxy, (req, res) -> {
+            try {
+                // A slow query: still running when the timeout fires
+                timedOut.await(5, TimeUnit.SECONDS);
+                res.setStatus(200);
+                res.setHeader("X-Late", "yes");
+                res.setContentType("application/json");
+                res.getWriter().write("{\"late\": true}");
+                res.getWriter().flush();
+                res.flushBuffer();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                handlerDone.countDown();
+            }
+        });
+
+        // The container's timeout: answers 503 and completes the request
+        for (AsyncListener listener : request.listeners) {
+            listener.onTimeout(new AsyncEvent(request.context));
+        }
+        assertEquals(503, response.status());
+        assertTrue(response.body(), response.body().contains("Request timed out"));
+        assertEquals(1, request.completions.get());
+
+        // The container recycles the response for the next request on the connection
+        response.reset();
+        timedOut.countDown();
+        assertTrue(handlerDone.await(5, TimeUnit.SECONDS));
+        // The worker's own completion runs after the handler returns
+        Thread.sleep(100);
+
+        assertEquals(200, response.status());
+        assertEquals("", response.body());
+        assertNull(response.header("X-Late"));
+        assertEquals(1, request.completions.get());
+    }
+
+    @Test
+    public void handlerWithinTheTimeoutWritesNormally() throws Exception {
+        Assume.assumeTrue(AsyncDispatch.ENABLED);
+        ServletFakes.AsyncRequest request = new ServletFakes.AsyncRequest();
+        ServletFakes.Response response = new ServletFakes.Response();
+
+        AsyncDispatch.dispatch(request.proxy, response.proxy, (req, res) -> {
+            res.setStatus(201);
+            res.setHeader("X-Id", "1");
+            res.getWriter().write("{\"id\": \"1\"}");
+        });
+        for (int i = 0; i < 50 && request.completions.get() == 0; i++) {
+            Thread.sleep(20);
+        }
+
+        assertEquals(1, request.completions.get());
+        assertEquals(201, response.status());
+        assertEquals("1", response.header("X-Id"));
+        assertEquals("{\"id\": \"1\"}", response.body());
+    }
+}
@@ -0,0 +1,67 @@
+package com.campus.lostfound.dao;
+
+import com.campus.lostfound.model.Item;
+import com.campus.lostfound.util.DatabaseUtil;
+import com.campus.lostfound.util.ReplicaRouter;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class CachingItemDAOTest {
+
+    private static Item item(String id, String name) {
+        return new Item(id, name, "Keys", "", "Library", new Date(), "OPEN", "a@example.com", "LOST", "u1");
+    }
+
+    @Test
+    public void callersGetTheirOwnCopies() {
+        CachingItemDAO cache = new CachingItemDAO(new ItemDAOMemoryImpl(), 100, 1, TimeUnit.MINUTES);
+        cache.save(item("1", "Blue umbrella"));
+
+        List<Item> first = cache.findAll();
+        first.get(0).setItemName("changed");
+        first.clear();
+
+        List<Item> second = cache.findAll();
+        assertEquals(1, second.size());
+        assertEquals("Blue umbrella", second.get(0).getItemName());
+        assertEquals(1, cache.getStats().getHits());
+    }
+
+    @Test
+    public void anySaveDropsRankedPages() {
+        CachingItemDAO cache = new CachingItemDAO(new ItemDAOMemoryImpl(), 100, 1, TimeUnit.MINUTES);
+        cache.save(item("1", "Lost key"));
+        ItemQuery ranked = new ItemQuery(null, "key", null, null, null, null);
+        assertEquals(1, cache.findPage(ranked, null, 20).getItems().size());
+
+        // Postgres stems "keys" to match q=key; the cache cannot tell, so it drops the page
+        cache.save(item("2", "Lost keys"));
+        cache.findPage(ranked, null, 20);
+        assertEquals(0, cache.getStats().getHits());
+        assertEquals(2, cache.getStats().getMisses());
+    }
+
+    @Test
+    public void readsPinnedToThePrimaryBypassTheCache() {
+        CachingItemDAO cache = new CachingItemDAO(new ItemDAOMemoryImpl(), 100, 1, TimeUnit.MINUTES);
+        cache.save(item("1", "Blue umbrella"));
+        cache.findAll();
+
+        ReplicaRouter.PrimaryReads pin = DatabaseUtil.pinPrimaryReads();
+        try {
+            assertEquals(1, cache.findAll().size());
+        } finally {
+            pin.close();
+        }
+        assertEquals(0, cache.getStats().getHits());
+        assertEquals(2, cache.getStats().getMisses());
+
+        cache.findAll();
+        assertEquals(1, cache.getStats().getHits());
+    }
+}
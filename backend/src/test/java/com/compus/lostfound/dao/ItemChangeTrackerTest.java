@@ -0,0 +1,51 @@
+package com.campus.lostfound.dao;
+
+import com.campus.lostfound.model.Item;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class ItemChangeTrackerTest {
+
+    private static class Recorder implements ItemChangeTracker.Listener {
+        final List<String> deleted = new ArrayList<>();
+
+        @Override
+        public void itemSaved(Item item) {}
+
+        @Override
+        public void itemDeleted(String itemId) {
+            deleted.add(itemId);
+        }
+    }
+
+    @Test
+    public void archivingReachesEachListenerOnce() {
+        Recorder perItem = new Recorder();
+        List<List<String>> batches = new ArrayList<>();
+        Recorder bulk = new Recorder() {
+            @Override
+            public void itemsArchived(List<String> itemIds) {
+                batches.add(itemIds);
+            }
+        };
+        ItemChangeTracker.addListener(perItem);
+        ItemChangeTracker.addListener(bulk);
+        try {
+            long before = ItemChangeTracker.currentVersion();
+            ItemChangeTracker.archived(Arrays.asList("a", "b", "c"));
+
+            assertEquals(Arrays.asList("a", "b", "c"), perItem.deleted);
+            assertEquals(1, batches.size());
+            assertEquals(0, bulk.deleted.size());
+            assertEquals(before + 1, ItemChangeTracker.currentVersion());
+        } finally {
+            ItemChangeTracker.removeListener(perItem);
+            ItemChangeTracker.removeListener(bulk);
+        }
+    }
+}
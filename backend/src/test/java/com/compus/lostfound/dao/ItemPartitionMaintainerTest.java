@@ -0,0 +1,127 @@
+package com.campus.lostfound.dao;
+
+import com.campus.lostfound.model.Item;
+import com.campus.lostfound.util.DatabaseUtil;
+import com.campus.lostfound.util.TestDatabase;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Id uniqueness across the items partitions (SchemaMigrations version 9)
+ * and what ItemPartitionMaintainer archives. Needs TEST_DATABASE_URL.
+ */
+public class ItemPartitionMaintainerTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    private TestDatabase db;
+    private final ItemDAOPostgresImpl dao = new ItemDAOPostgresImpl();
+    private final ItemPartitionMaintainer maintainer =
+            new ItemPartitionMaintainer(1, 90, 30, Arrays.asList("RESOLVED"), 100);
+
+    @Before
+    public void setUp() throws Exception {
+        Assume.assumeNotNull(TestDatabase.baseUrl());
+        db = TestDatabase.create("partition_test");
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        if (db != null) {
+            db.close();
+        }
+    }
+
+    private static Item item(String id, LocalDate date, String status) {
+        Date when = date == null ? null : Date.from(date.atStartOfDay(ZoneId.systemDefault()).toInstant());
+        return new Item(id, "Blue umbrella", "Accessories", "", "Library", when, status, "a@example.com", "LOST", "u1");
+    }
+
+    private void assertDuplicateRejected(Item item) {
+        try {
+            dao.save(item);
+            fail("a second row with id " + item.getId() + " was stored");
+        } catch (RuntimeException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().contains("item_ids"));
+        }
+    }
+
+    private boolean isArchived(String id) throws SQLException {
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT archived FROM items WHERE id = ?")) {
+            ps.setString(1, id);
+            try (ResultSet rs = ps.executeQuery()) {
+                assertTrue(rs.next());
+                boolean archived = rs.getBoolean(1);
+                assertFalse("more than one row for " + id, rs.next());
+                return archived;
+            }
+        }
+    }
+
+    @Test
+    public void duplicateIdIsRejectedInEveryPartition() throws SQLException {
+        dao.save(item("dated", TODAY, "OPEN"));
+        dao.save(item("undated", null, "OPEN"));
+        // Same id, different month partition or the default partition
+        assertDuplicateRejected(item("dated", TODAY.minusDays(40), "OPEN"));
+        assertDuplicateRejected(item("dated", null, "OPEN"));
+        assertDuplicateRejected(item("undated", TODAY, "OPEN"));
+
+        dao.save(item("old", TODAY.minusDays(200), "OPEN"));
+        assertTrue(maintainer.run(TODAY));
+        assertTrue(isArchived("old"));
+        // The row moved to items_archive; its id is still taken
+        assertDuplicateRejected(item("old", TODAY, "OPEN"));
+
+        assertTrue(dao.delete("old", "u1"));
+        dao.save(item("old", TODAY, "OPEN"));
+        assertFalse(isArchived("old"));
+    }
+
+    @Test
+    public void itemsWithoutADateAreArchivedByAge() throws SQLException {
+        dao.save(item("fresh", null, "OPEN"));
+        dao.save(item("stale", null, "OPEN"));
+        dao.save(item("resolved", null, "resolved"));
+        dao.save(item("resolved recently", null, "RESOLVED"));
+        backdate("stale", 100);
+        backdate("resolved", 40);
+        backdate("resolved recently", 10);
+
+        assertTrue(maintainer.run(TODAY));
+        assertFalse(isArchived("fresh"));
+        assertTrue(isArchived("stale"));
+        assertTrue(isArchived("resolved"));
+        assertFalse(isArchived("resolved recently"));
+        assertEquals(2, maintainer.getArchivedCount());
+        assertNotNull(dao.findById("fresh"));
+    }
+
+    private void backdate(String id, int days) throws SQLException {
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement ps = conn.prepareStatement(
+                     "UPDATE items SET created_at = now() - make_interval(days => ?) WHERE id = ?")) {
+            ps.setInt(1, days);
+            ps.setString(2, id);
+            assertEquals(1, ps.executeUpdate());
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.campus.lostfound.dao;
+
+import com.campus.lostfound.util.DatabaseUtil;
+import com.campus.lostfound.util.TestDatabase;
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * EXPLAINs the SQL ItemDAOPostgresImpl builds for ranked (q=) and substring
+ * searches and checks that every items partition is read through the
+ * full-text or trigram index. Needs TEST_DATABASE_URL.
+ *
+ * The searched values are rare among the 50,000 seeded rows, as in real
+ * searches, so the index is the cheapest plan rather than walking the
+ * (date, id) or type indexes. Sequential scans are disabled for the
+ * EXPLAIN: the point is that the query as written can use the index at all
+ * (a LOWER() or cast in the wrong place silently makes it unusable), not
+ * what the planner would pick for a test-sized table.
+ */
+public class ItemSearchIndexTest {
+
+    private static TestDatabase db;
+    private final ItemDAOPostgresImpl dao = new ItemDAOPostgresImpl();
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        Assume.assumeNotNull(TestDatabase.baseUrl());
+        db = TestDatabase.create("search_index_test");
+        try (Connection conn = DatabaseUtil.getConnection();
+             Statement st = conn.createStatement()) {
+            st.execute("INSERT INTO items (id, item_name, category, description, location, date, status, contact_info, type, user_id) " +
+                    "SELECT md5(g::text), CASE WHEN g % 5000 = 0 THEN 'Blue umbrella' ELSE 'Item ' || g END, " +
+                    "'Category ' || (g % 10), 'Description of item ' || g, 'Building ' || (g % 5000), " +
+                    "current_date - (g % 60), 'OPEN', 'owner@example.com', CASE WHEN g % 2 = 0 THEN 'LOST' ELSE 'FOUND' END, 'u1' " +
+                    "FROM generate_series(1, 50000) g");
+            st.execute("ANALYZE items");
+        }
+    }
+
+    @AfterClass
+    public static void tearDown() throws SQLException {
+        if (db != null) {
+            db.close();
+        }
+    }
+
+    @Test
+    public void rankedSearchUsesFullTextIndex() throws SQLException {
+        ItemQuery query = new ItemQuery(null, "umbrellas", null, null, null, null);
+        assertIndexScan(query, "idx_items_search_vector");
+    }
+
+    @Test
+    public void rankedSearchWithFiltersUsesFullTextIndex() throws SQLException {
+        ItemQuery query = new ItemQuery("LOST", "umbrella", null, "category 0", null, null);
+        assertIndexScan(query, "idx_items_search_vector");
+    }
+
+    @Test
+    public void itemNameSubstringUsesTrigramIndex() throws SQLException {
+        assumeIndex("idx_items_name_trgm");
+        assertIndexScan(ItemQuery.search("mbrell", null, null, null), "idx_items_name_trgm");
+    }
+
+    @Test
+    public void locationSubstringUsesTrigramIndex() throws SQLException {
+        assumeIndex("idx_items_location_trgm");
+        assertIndexScan(ItemQuery.search(null, null, "ilding 4321", null), "idx_items_location_trgm");
+    }
+
+    private void assertIndexScan(ItemQuery query, String parentIndex) throws SQLException {
+        List<Object> params = new ArrayList<>();
+        String plan = explain(dao.pageSql(query, null, 20, params), params);
+        assertFalse("sequential scan in:\n" + plan, plan.contains("Seq Scan"));
+        boolean used = false;
+        for (String index : partitionIndexes(parentIndex)) {
+            used |= Pattern.compile("\\b" + Pattern.quote(index) + "\\b").matcher(plan).find();
+        }
+        assertTrue(parentIndex + " not used in:\n" + plan, used);
+    }
+
+    private static String explain(String sql, List<Object> params) throws SQLException {
+        StringBuilder plan = new StringBuilder();
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            conn.setAutoCommit(false);
+            try (Statement st = conn.createStatement()) {
+                st.execute("SET LOCAL enable_seqscan = off");
+            }
+            try (PreparedStatement ps = conn.prepareStatement("EXPLAIN " + sql)) {
+                for (int i = 0; i < params.size(); i++) {
+                    ps.setObject(i + 1, params.get(i));
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        plan.append(rs.getString(1)).append('\n');
+                    }
+                }
+            } finally {
+                conn.rollback();
+                conn.setAutoCommit(true);
+            }
+        }
+        return plan.toString();
+    }
+
+    /** The index and the copies Postgres made of it on every partition, at any depth. */
+    private static Set<String> partitionIndexes(String parentIndex) throws SQLException {
+        Set<String> names = new HashSet<>();
+        String sql = "WITH RECURSIVE tree(oid) AS (SELECT to_regclass(?)::oid " +
+                "UNION ALL SELECT i.inhrelid FROM pg_inherits i JOIN tree t ON i.inhparent = t.oid) " +
+                "SELECT c.relname FROM tree t JOIN pg_class c ON c.oid = t.oid";
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, parentIndex);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    names.add(rs.getString(1));
+                }
+            }
+        }
+        return names;
+    }
+
+    /** Trigram indexes come from an optional migration; skip if pg_trgm is not installed. */
+    private static void assumeIndex(String index) throws SQLException {
+        try (Connection conn = DatabaseUtil.getConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT to_regclass(?) IS NOT NULL")) {
+            ps.setString(1, index);
+            try (ResultSet rs = ps.executeQuery()) {
+                Assume.assumeTrue(index + " missing (pg_trgm not available)", rs.next() && rs.getBoolean(1));
+            }
+        }
+    }
+}
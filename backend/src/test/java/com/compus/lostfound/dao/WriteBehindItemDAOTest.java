@@ -0,0 +1,251 @@
+package com.campus.lostfound.dao;
+
+import com.campus.lostfound.metrics.MetricsRegistry;
+import com.campus.lostfound.model.Item;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * The delegate can be held shut, so the tests control what is queued when
+ * the writer wakes up instead of depending on timing.
+ */
+public class WriteBehindItemDAOTest {
+
+    /**
+     * Memory store whose saveAll can be held at a gate. A batch holding an
+     * item named "bad" fails whole; the first batch holding "flaky" commits
+     * and then throws, like a connection lost before the commit's reply.
+     */
+    private static class FakeStore extends ItemDAOMemoryImpl {
+        final List<Integer> batches = Collections.synchronizedList(new ArrayList<>());
+        final AtomicInteger inserted = new AtomicInteger();
+        final CountDownLatch entered = new CountDownLatch(1);
+        volatile CountDownLatch gate = new CountDownLatch(0);
+        private boolean flakyFailed;
+
+        FakeStore() {
+            super(false);
+        }
+
+        void hold() {
+            gate = new CountDownLatch(1);
+        }
+
+        void release() {
+            gate.countDown();
+        }
+
+        @Override
+        public void saveAll(List<Item> items) {
+            entered.countDown();
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            for (Item item : items) {
+                if ("bad".equals(item.getItemName())) {
+                    throw new RuntimeException("rejected by the database");
+                }
+            }
+            batches.add(items.size());
+            inserted.addAndGet(items.size());
+            super.saveAll(items);
+            for (Item item : items) {
+                if ("flaky".equals(item.getItemName()) && !flakyFailed) {
+                    flakyFailed = true;
+                    throw new RuntimeException("connection lost after commit");
+                }
+            }
+        }
+    }
+
+    private final FakeStore store = new FakeStore();
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    private WriteBehindItemDAO dao;
+
+    private WriteBehindItemDAO open(WriteBehindItemDAO.Durability durability, int capacity, int maxBatch) {
+        dao = new WriteBehindItemDAO(store, durability, capacity, maxBatch, 0, 50, new MetricsRegistry());
+        return dao;
+    }
+
+    @After
+    public void tearDown() {
+        store.release();
+        if (dao != null) {
+            dao.close(5, TimeUnit.SECONDS);
+        }
+        callers.shutdownNow();
+    }
+
+    private static Item item(String name) {
+        return new Item(null, name, "Keys", "", "Library", new Date(), "OPEN", "a@example.com", "LOST", "u1");
+    }
+
+    /** Saves one item and waits until the writer is stuck in the delegate with it. */
+    private void blockWriter(WriteBehindItemDAO dao) throws InterruptedException {
+        store.hold();
+        callers.submit(() -> dao.save(item("first")));
+        assertTrue(store.entered.await(5, TimeUnit.SECONDS));
+    }
+
+    private void awaitQueued(WriteBehindItemDAO dao, int items) throws InterruptedException {
+        for (int i = 0; i < 250 && dao.getQueuedItems() < items; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(items, dao.getQueuedItems());
+    }
+
+    @Test
+    public void waitingSavesAreGroupedUpToMaxBatch() throws Exception {
+        WriteBehindItemDAO dao = open(WriteBehindItemDAO.Durability.QUEUED, 100, 3);
+        blockWriter(dao);
+        for (int i = 0; i < 7; i++) {
+            dao.save(item("item " + i));
+        }
+        store.release();
+
+        assertTrue(dao.close(5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList(1, 3, 3, 1), store.batches);
+        assertEquals(8, store.findAll().size());
+        assertEquals(4, dao.getFlushCount());
+    }
+
+    @Test
+    public void failingEntryFailsOnlyItsOwnCaller() throws Exception {
+        WriteBehindItemDAO dao = open(WriteBehindItemDAO.Durability.COMMITTED, 100, 10);
+        blockWriter(dao);
+        Future<?> good = callers.submit(() -> dao.save(item("good")));
+        Future<?> bad = callers.submit(() -> dao.save(item("bad")));
+        Future<?> alsoGood = callers.submit(() -> dao.save(item("also good")));
+        awaitQueued(dao, 4);
+        store.release();
+
+        good.get(5, TimeUnit.SECONDS);
+        alsoGood.get(5, TimeUnit.SECONDS);
+        try {
+            bad.get(5, TimeUnit.SECONDS);
+            fail("the bad item was reported as saved");
+        } catch (ExecutionException e) {
+            assertEquals("rejected by the database", e.getCause().getMessage());
+        }
+        assertEquals(3, store.findAll().size());
+        assertEquals(1, dao.getFailedCount());
+    }
+
+    @Test
+    public void fullQueueRejectsTheSave() throws Exception {
+        WriteBehindItemDAO dao = open(WriteBehindItemDAO.Durability.QUEUED, 2, 10);
+        blockWriter(dao);
+        dao.save(item("second"));
+        try {
+            dao.save(item("third"));
+            fail("saved past the queue's capacity");
+        } catch (RejectedExecutionException expected) {
+            // The caller sheds load
+        }
+        assertEquals(1, dao.getRejectedCount());
+
+        store.release();
+        assertTrue(dao.close(5, TimeUnit.SECONDS));
+        assertEquals(2, store.findAll().size());
+    }
+
+    @Test
+    public void findByIdAndDeleteWaitForEarlierSaves() throws Exception {
+        WriteBehindItemDAO dao = open(WriteBehindItemDAO.Durability.QUEUED, 100, 10);
+        blockWriter(dao);
+        Item queued = item("queued");
+        dao.save(queued);
+        assertNotNull(queued.getId());
+
+        Future<Item> found = callers.submit(() -> dao.findById(queued.getId()));
+        try {
+            found.get(200, TimeUnit.MILLISECONDS);
+            fail("read answered before the save ahead of it was written");
+        } catch (TimeoutException expected) {
+            // Still waiting for the writer
+        }
+        store.release();
+        assertEquals("queued", found.get(5, TimeUnit.SECONDS).getItemName());
+
+        store.hold();
+        Item another = item("another");
+        dao.save(another);
+        Future<Boolean> deleted = callers.submit(() -> dao.delete(another.getId(), "u1"));
+        Thread.sleep(200);
+        assertFalse(deleted.isDone());
+        store.release();
+        assertTrue(deleted.get(5, TimeUnit.SECONDS));
+        assertNull(store.findById(another.getId()));
+    }
+
+    @Test
+    public void closeDrainsAcceptedItemsAndRejectsNewOnes() throws Exception {
+        WriteBehindItemDAO dao = open(WriteBehindItemDAO.Durability.QUEUED, 100, 10);
+        blockWriter(dao);
+        dao.save(item("second"));
+        dao.save(item("third"));
+
+        AtomicBoolean drained = new AtomicBoolean();
+        Thread closer = new Thread(() -> drained.set(dao.close(5, TimeUnit.SECONDS)));
+        closer.start();
+        // Waiting for the writer means intake is already shut
+        for (int i = 0; i < 250 && closer.getState() != Thread.State.TIMED_WAITING; i++) {
+            Thread.sleep(20);
+        }
+        try {
+            dao.save(item("late"));
+            fail("saved while closing");
+        } catch (RejectedExecutionException expected) {
+            // Nothing is accepted once close has begun
+        }
+        assertEquals(0, store.findAll().size());
+        store.release();
+
+        closer.join(5000);
+        assertTrue(drained.get());
+        assertEquals(3, store.findAll().size());
+        assertEquals(0, dao.getQueuedItems());
+    }
+
+    @Test
+    public void groupThatCommittedDespiteTheErrorIsNotWrittenAgain() throws Exception {
+        WriteBehindItemDAO dao = open(WriteBehindItemDAO.Durability.COMMITTED, 100, 10);
+        blockWriter(dao);
+        Future<?> plain = callers.submit(() -> dao.save(item("plain")));
+        Future<?> flaky = callers.submit(() -> dao.save(item("flaky")));
+        awaitQueued(dao, 3);
+        store.release();
+
+        // {plain, flaky} commits, then reports an error; the per-entry retry finds both stored
+        plain.get(5, TimeUnit.SECONDS);
+        flaky.get(5, TimeUnit.SECONDS);
+        assertEquals(3, store.findAll().size());
+        assertEquals(3, store.inserted.get());
+        assertEquals(0, dao.getFailedCount());
+    }
+}
@@ -0,0 +1,64 @@
+package com.campus.lostfound.filter;
+
+import com.campus.lostfound.ServletFakes;
+import org.junit.Test;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CompressionFilterTest {
+
+    private static final WriteListener LISTENER = new WriteListener() {
+        @Override
+        public void onWritePossible() {}
+
+        @Override
+        public void onError(Throwable t) {}
+    };
+
+    @Test
+    public void writeListenerSwitchesToPassThrough() throws Exception {
+        ServletFakes.Response raw = new ServletFakes.Response();
+        CompressionFilter.CompressingResponse response = new CompressionFilter.CompressingResponse(raw.proxy, "gzip", 16);
+        response.setContentType("application/json");
+
+        ServletOutputStream out = response.getOutputStream();
+        out.write("{\"a\"".getBytes(StandardCharsets.UTF_8));
+        out.setWriteListener(LISTENER);
+        assertSame(LISTENER, raw.writeListener());
+        assertTrue(out.isReady());
+
+        char[] padding = new char[64];
+        Arrays.fill(padding, 'x');
+        out.write((": \"" + new String(padding) + "\"}").getBytes(StandardCharsets.UTF_8));
+        out.close();
+
+        assertNull(raw.header("Content-Encoding"));
+        assertEquals("{\"a\": \"" + new String(padding) + "\"}", raw.body());
+    }
+
+    @Test
+    public void writeListenerAfterCompressionStartedIsRejected() throws Exception {
+        ServletFakes.Response raw = new ServletFakes.Response();
+        CompressionFilter.CompressingResponse response = new CompressionFilter.CompressingResponse(raw.proxy, "gzip", 16);
+        response.setContentType("application/json");
+
+        ServletOutputStream out = response.getOutputStream();
+        out.write(new byte[64]);
+        assertEquals("gzip", raw.header("Content-Encoding"));
+        try {
+            out.setWriteListener(LISTENER);
+            fail("expected IllegalStateException");
+        } catch (IllegalStateException expected) {
+            assertNull(raw.writeListener());
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.campus.lostfound.util;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.net.URI;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Read routing, failover and read-your-writes stickiness against real
+ * Postgres: two extra databases on the TEST_DATABASE_URL server stand in for
+ * replicas (current_database() tells which one served a read) and a pool
+ * pointed at a closed port stands in for a replica that is down. Skipped
+ * unless TEST_DATABASE_URL is set; the user needs CREATEDB.
+ *
+ * Replay lag cannot be produced without streaming replication, so the
+ * lag check is not covered here.
+ */
+public class ReplicaRouterTest {
+
+    private static String primaryName;
+    private static String replicaA;
+    private static String replicaB;
+
+    private final List<ConnectionPool> pools = new ArrayList<>();
+    private final List<ReplicaRouter> routers = new ArrayList<>();
+
+    @BeforeClass
+    public static void createDatabases() throws Exception {
+        String base = TestDatabase.baseUrl();
+        Assume.assumeNotNull(base);
+        DatabaseUtil.init(base);
+        String suffix = UUID.randomUUID().toString().replace("-", "").substring(0, 8);
+        replicaA = "replica_test_" + suffix + "_a";
+        replicaB = "replica_test_" + suffix + "_b";
+        try (Connection conn = DatabaseUtil.getConnection();
+             Statement st = conn.createStatement()) {
+            primaryName = currentDatabase(conn);
+            st.execute("CREATE DATABASE " + replicaA);
+            st.execute("CREATE DATABASE " + replicaB);
+        }
+    }
+
+    @AfterClass
+    public static void dropDatabases() throws Exception {
+        if (primaryName == null) {
+            return;
+        }
+        DatabaseUtil.init(TestDatabase.baseUrl());
+        try (Connection conn = DatabaseUtil.getConnection();
+             Statement st = conn.createStatement()) {
+            st.execute("DROP DATABASE IF EXISTS " + replicaA);
+            st.execute("DROP DATABASE IF EXISTS " + replicaB);
+        } finally {
+            DatabaseUtil.shutdown();
+        }
+    }
+
+    @After
+    public void closePools() throws Exception {
+        for (ReplicaRouter router : routers) {
+            router.close();
+        }
+        for (ConnectionPool pool : pools) {
+            pool.close();
+        }
+        DatabaseUtil.initReplicas(new ArrayList<>());
+    }
+
+    @Test
+    public void readsAreSpreadOverTheReplicas() throws Exception {
+        ReplicaRouter router = router(10000, replica(replicaA), replica(replicaB));
+        ConnectionPool primary = pool(null);
+
+        Set<String> served = new HashSet<>();
+        for (int i = 0; i < 10; i++) {
+            served.add(readFrom(router, primary));
+        }
+        assertEquals(new HashSet<>(Arrays.asList(replicaA, replicaB)), served);
+        assertEquals(0, router.getPrimaryReadCount());
+    }
+
+    @Test
+    public void pinnedReadsGoToThePrimary() throws Exception {
+        ReplicaRouter router = router(10000, replica(replicaA));
+        ConnectionPool primary = pool(null);
+
+        ReplicaRouter.PrimaryReads pin = ReplicaRouter.pinPrimaryReads();
+        try {
+            assertEquals(primaryName, readFrom(router, primary));
+        } finally {
+            pin.close();
+        }
+        assertEquals(replicaA, readFrom(router, primary));
+        assertEquals(1, router.getPrimaryReadCount());
+    }
+
+    @Test
+    public void unreachableReplicaIsTakenOutAndReadsFailOver() throws Exception {
+        ReplicaRouter.Replica down = unreachableReplica();
+        ReplicaRouter router = router(10000, down, replica(replicaA));
+        ConnectionPool primary = pool(null);
+
+        for (int i = 0; i < 6; i++) {
+            assertEquals(replicaA, readFrom(router, primary));
+        }
+        assertFalse(down.isHealthy());
+        assertNotNull(down.getLastError());
+    }
+
+    @Test
+    public void saturatedReplicaIsPassedOverWithoutBeingTakenOut() throws Exception {
+        ConnectionPool busyPool = pool(replicaA);
+        ReplicaRouter.Replica busy = new ReplicaRouter.Replica(replicaA, busyPool);
+        ReplicaRouter router = router(10000, busy);
+        ConnectionPool primary = pool(null);
+
+        List<Connection> held = new ArrayList<>();
+        try {
+            for (int i = 0; i < config().maxSize; i++) {
+                held.add(busyPool.getConnection());
+            }
+            long start = System.nanoTime();
+            assertEquals(primaryName, readFrom(router, primary));
+            // The short borrow wait, not the pool's acquire timeout
+            assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(config().acquireTimeoutMs / 2));
+            assertTrue(busy.isHealthy());
+            assertEquals(1, router.getBusySkipCount());
+            assertEquals(0, router.getFailoverCount());
+        } finally {
+            for (Connection conn : held) {
+                conn.close();
+            }
+        }
+        assertEquals(replicaA, readFrom(router, primary));
+    }
+
+    @Test
+    public void withEveryReplicaDownReadsGoToThePrimary() throws Exception {
+        ReplicaRouter router = router(10000, unreachableReplica());
+        ConnectionPool primary = pool(null);
+
+        assertEquals(primaryName, readFrom(router, primary));
+        assertEquals(primaryName, readFrom(router, primary));
+        assertEquals(2, router.getPrimaryReadCount());
+    }
+
+    @Test
+    public void writersStayOnThePrimaryForTheStickyWindow() throws Exception {
+        ReplicaRouter router = router(300, replica(replicaA));
+
+        router.recordWrite("writer");
+        assertTrue(router.wroteRecently("writer"));
+        assertFalse(router.wroteRecently("reader"));
+        Thread.sleep(400);
+        assertFalse(router.wroteRecently("writer"));
+    }
+
+    @Test
+    public void databaseUtilRoutesThroughTheConfiguredReplicas() throws Exception {
+        DatabaseUtil.initReplicas(Arrays.asList(withDatabase(TestDatabase.baseUrl(), replicaA)));
+
+        try (Connection conn = DatabaseUtil.getReadConnection()) {
+            assertEquals(replicaA, currentDatabase(conn));
+        }
+        DatabaseUtil.recordWrite("writer");
+        assertTrue(DatabaseUtil.wroteRecently("writer"));
+        ReplicaRouter.PrimaryReads pin = DatabaseUtil.pinPrimaryReads();
+        try (Connection conn = DatabaseUtil.getReadConnection()) {
+            assertEquals(primaryName, currentDatabase(conn));
+        } finally {
+            pin.close();
+        }
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            assertEquals(primaryName, currentDatabase(conn));
+        }
+    }
+
+    private ReplicaRouter router(long stickyMillis, ReplicaRouter.Replica... replicas) {
+        // Health checks far apart, so what the test sees comes from the reads it makes
+        ReplicaRouter router = new ReplicaRouter(Arrays.asList(replicas), 60000, 5000, stickyMillis, 50);
+        routers.add(router);
+        return router;
+    }
+
+    private ReplicaRouter.Replica replica(String database) throws Exception {
+        return new ReplicaRouter.Replica(database, pool(database));
+    }
+
+    private ReplicaRouter.Replica unreachableReplica() {
+        ConnectionPool.Config config = config();
+        ConnectionPool dead = new ConnectionPool("jdbc:postgresql://127.0.0.1:1/none?connectTimeout=1", "none", "none", config);
+        pools.add(dead);
+        return new ReplicaRouter.Replica("127.0.0.1:1/none", dead);
+    }
+
+    /** A pool on the primary (database null) or on one of the replica databases. */
+    private ConnectionPool pool(String database) throws Exception {
+        String url = database == null ? TestDatabase.baseUrl() : withDatabase(TestDatabase.baseUrl(), database);
+        DatabaseUtil.Target target = DatabaseUtil.parse(url);
+        ConnectionPool pool = new ConnectionPool(target.jdbcUrl, target.username, target.password, config());
+        pools.add(pool);
+        return pool;
+    }
+
+    private static ConnectionPool.Config config() {
+        ConnectionPool.Config config = new ConnectionPool.Config();
+        config.minIdle = 0;
+        config.maxSize = 4;
+        config.acquireTimeoutMs = 2000;
+        return config;
+    }
+
+    private static String readFrom(ReplicaRouter router, ConnectionPool primary) throws SQLException {
+        try (Connection conn = router.getReadConnection(primary)) {
+            return currentDatabase(conn);
+        }
+    }
+
+    private static String currentDatabase(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT current_database()")) {
+            rs.next();
+            return rs.getString(1);
+        }
+    }
+
+    private static String withDatabase(String url, String database) throws Exception {
+        URI uri = new URI(url);
+        return new URI(uri.getScheme(), uri.getUserInfo(), uri.getHost(), uri.getPort(), "/" + database,
+                uri.getQuery(), null).toString();
+    }
+}
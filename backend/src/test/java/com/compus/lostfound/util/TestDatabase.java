@@ -0,0 +1,80 @@
+package com.campus.lostfound.util;
+
+import com.campus.lostfound.bootstrap.SchemaMigrations;
+
+import java.net.URISyntaxException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+
+/**
+ * A throwaway schema in the Postgres database named by TEST_DATABASE_URL
+ * (same form as DATABASE_URL), migrated to the current version.
+ *
+ * create() points DatabaseUtil at the schema through pgjdbc's currentSchema
+ * parameter, so the DAOs under test work unchanged; close() drops it and
+ * shuts DatabaseUtil down. Tests that need it skip themselves when the
+ * variable is not set (see baseUrl).
+ */
+public final class TestDatabase implements AutoCloseable {
+
+    public static final String URL_VARIABLE = "TEST_DATABASE_URL";
+
+    private final String url;
+    private final String schema;
+
+    private TestDatabase(String url, String schema) {
+        this.url = url;
+        this.schema = schema;
+    }
+
+    /** The configured database URL, or null when Postgres tests should be skipped. */
+    public static String baseUrl() {
+        String url = System.getenv(URL_VARIABLE);
+        return url == null || url.trim().isEmpty() ? null : url.trim();
+    }
+
+    public static TestDatabase create(String prefix) throws SQLException, URISyntaxException {
+        String base = baseUrl();
+        if (base == null) {
+            throw new IllegalStateException(URL_VARIABLE + " is not set");
+        }
+        String schema = prefix + "_" + UUID.randomUUID().toString().replace("-", "").substring(0, 12);
+        DatabaseUtil.init(base);
+        try (Connection conn = DatabaseUtil.getConnection();
+             Statement st = conn.createStatement()) {
+            st.execute("CREATE SCHEMA " + schema);
+        }
+        // public stays on the path for extensions such as pg_trgm installed there
+        String url = withParameter(base, "currentSchema=" + schema + ",public");
+        DatabaseUtil.init(url);
+        try (Connection conn = DatabaseUtil.getConnection()) {
+            SchemaMigrations.migrate(conn);
+        }
+        return new TestDatabase(url, schema);
+    }
+
+    static String withParameter(String url, String parameter) {
+        return url + (url.contains("?") ? "&" : "?") + parameter;
+    }
+
+    /** URL of the schema, for DatabaseUtil.init or initReplicas. */
+    public String getUrl() {
+        return url;
+    }
+
+    public String getSchema() {
+        return schema;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try (Connection conn = DatabaseUtil.getConnection();
+             Statement st = conn.createStatement()) {
+            st.execute("DROP SCHEMA " + schema + " CASCADE");
+        } finally {
+            DatabaseUtil.shutdown();
+        }
+    }
+}
@@ -1,4 +1,5 @@
 import React, { createContext, useState, useEffect, useContext } from 'react';
+import api from '../services/api';
 
 const AuthContext = createContext(null);
 
@@ -21,6 +22,11 @@ export const AuthProvider = ({ children }) => {
   };
 
   const logout = () => {
+    // Revoke the token server-side; the local session is cleared either way.
+    // The header is set here because the interceptor runs after removeItem below.
+    if (user && user.token) {
+      api.post('/auth/logout', null, { headers: { Authorization: `Bearer ${user.token}` } }).catch(() => {});
+    }
     setUser(null);
     localStorage.removeItem('user');
   };
@@ -1,5 +1,5 @@
 import React, { useEffect, useState } from 'react';
-import { getLostItems, getFoundItems } from '../services/api';
+import { getLostItems, getFoundItems, subscribeItemEvents } from '../services/api';
 import ItemCard from '../components/ItemCard';
 import { Link } from 'react-router-dom';
 
@@ -9,8 +9,28 @@ const Dashboard = () => {
 
     useEffect(() => {
         // Fetch recent items (limiting to top 3 for dashboard)
-        getLostItems().then(res => setRecentLost(res.data.slice(0, 3))).catch(console.error);
-        getFoundItems().then(res => setRecentFound(res.data.slice(0, 3))).catch(console.error);
+        const load = () => {
+            getLostItems().then(res => setRecentLost(res.data.slice(0, 3))).catch(console.error);
+            getFoundItems().then(res => setRecentFound(res.data.slice(0, 3))).catch(console.error);
+        };
+        load();
+
+        // Then keep the lists current from the change feed instead of polling
+        return subscribeItemEvents({
+            'item-created': (item) => {
+                if (item.partial) {
+                    load();
+                    return;
+                }
+                const prepend = (items) => [item, ...items.filter(i => i.id !== item.id)].slice(0, 3);
+                if (item.type === 'LOST') setRecentLost(prepend);
+                if (item.type === 'FOUND') setRecentFound(prepend);
+            },
+            // A removed item leaves a gap only a refetch can fill; deletes are rare
+            'item-deleted': load,
+            'items-archived': load,
+            reset: load,
+        });
     }, []);
 
     return (
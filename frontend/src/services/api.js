@@ -7,13 +7,13 @@ const api = axios.create({
   },
 });
 
-// Add a request interceptor to inject the User ID
+// Add a request interceptor to send the session token issued at login
 api.interceptors.request.use((config) => {
     const user = localStorage.getItem('user');
     if (user) {
         const userData = JSON.parse(user);
-        if (userData && userData.id) {
-            config.headers['X-User-Id'] = userData.id;
+        if (userData && userData.token) {
+            config.headers['Authorization'] = `Bearer ${userData.token}`;
         }
     }
     return config;
@@ -30,4 +30,14 @@ export const reportFoundItem = (data) => api.post('/items/found', data);
 export const searchItems = (params) => 
   api.get('/items/search', { params });
 
+// Live item-created / item-deleted / items-archived / reset events; returns a function that closes the stream.
+// EventSource reconnects on its own and resumes from the last event id it saw.
+export const subscribeItemEvents = (handlers) => {
+  const source = new EventSource('/api/items/stream');
+  Object.entries(handlers).forEach(([name, handler]) => {
+    source.addEventListener(name, (e) => handler(JSON.parse(e.data)));
+  });
+  return () => source.close();
+};
+
 export default api;